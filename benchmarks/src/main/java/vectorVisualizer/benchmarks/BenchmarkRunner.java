@@ -0,0 +1,33 @@
+package vectorVisualizer.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler turned on, so every result comes with its allocation rate.
+ * Any of the usual JMH command line options can be given, for example a regular expression to pick which benchmarks run
+ * @author Robert "Drew" Weimer
+ */
+public class BenchmarkRunner
+{
+	/**
+	 * Runs the benchmarks
+	 * @param args JMH command line options
+	 * @throws RunnerException If a benchmark fails
+	 * @throws CommandLineOptionException If the options aren't understood
+	 */
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException
+	{
+		Options options = new OptionsBuilder()
+				.parent(new CommandLineOptions(args))
+				.addProfiler(GCProfiler.class)
+				.build();
+		
+		new Runner(options).run();
+	}
+}
@@ -0,0 +1,125 @@
+package vectorVisualizer.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import vectorVisualizer.math.DotProduct;
+import vectorVisualizer.math.Functions;
+import vectorVisualizer.math.InPlaceFunctions;
+import vectorVisualizer.vectors.Vector;
+import vectorVisualizer.vectors.VectorStore;
+
+/**
+ * Measures the vector math, both the Functions that return new vectors and the allocation-free and batched forms
+ * @author Robert "Drew" Weimer
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FunctionsBenchmark
+{
+	/**
+	 * The number of vectors in the store for the batched benchmarks. A constant rather than a parameter, since the operations per invocation have to match it
+	 */
+	private static final int COUNT = 100000;
+	
+	/**
+	 * The first vector
+	 */
+	private Vector v1;
+	
+	/**
+	 * The second vector
+	 */
+	private Vector v2;
+	
+	/**
+	 * The components of the first vector
+	 */
+	private double[] c1;
+	
+	/**
+	 * The components of the second vector
+	 */
+	private double[] c2;
+	
+	/**
+	 * Where the in place benchmarks write their result
+	 */
+	private double[] dst = new double[3];
+	
+	/**
+	 * Vectors for the batched benchmarks
+	 */
+	private VectorStore store;
+	
+	/**
+	 * Where the batched benchmarks write their results
+	 */
+	private double[] out;
+	
+	@Setup
+	public void setup()
+	{
+		c1 = new double[] {3.0, 5.0, -8.0};
+		c2 = new double[] {-1.5, 2.0, 4.0};
+		v1 = new Vector(c1);
+		v2 = new Vector(c2);
+		
+		Random random = new Random(42);
+		store = new VectorStore(COUNT);
+		
+		for (int i = 0; i < COUNT; i++)
+			store.add(random.nextGaussian(), random.nextGaussian(), random.nextGaussian(), i, 0xFF);
+		
+		out = new double[COUNT];
+	}
+	
+	@Benchmark
+	public double dProduct()
+	{
+		return Functions.dProduct(v1, v2);
+	}
+	
+	@Benchmark
+	public Vector cProduct()
+	{
+		return Functions.cProduct(v1, v2);
+	}
+	
+	@Benchmark
+	public Vector proj()
+	{
+		return Functions.proj(v1, v2);
+	}
+	
+	@Benchmark
+	public Vector unitVector()
+	{
+		return Functions.unitVector(v1);
+	}
+	
+	@Benchmark
+	public double[] crossInto()
+	{
+		return InPlaceFunctions.crossInto(dst, c1, c2);
+	}
+	
+	@Benchmark
+	public double[] projectInto()
+	{
+		return InPlaceFunctions.projectInto(dst, c1, c2);
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(COUNT)
+	public double[] dotOneToMany()
+	{
+		return DotProduct.oneToMany(store, c1, out);
+	}
+}
@@ -0,0 +1,51 @@
+package vectorVisualizer.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import vectorVisualizer.vectors.VectorStore;
+import vectorVisualizer.viewer.Graph;
+
+/**
+ * Measures adding batches of vectors to a Graph. The graph is never shown, so this runs headless and only measures building the geometry and filling the store
+ * @author Robert "Drew" Weimer
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true"})
+@State(Scope.Thread)
+public class GraphBenchmark
+{
+	/**
+	 * The number of vectors in a batch
+	 */
+	@Param({"1000", "50000"})
+	public int count;
+	
+	/**
+	 * The batch of vectors to add
+	 */
+	private VectorStore batch;
+	
+	@Setup
+	public void setup()
+	{
+		Random random = new Random(42);
+		batch = new VectorStore(count);
+		
+		for (int i = 0; i < count; i++)
+			batch.add(random.nextDouble(), random.nextDouble(), random.nextDouble(), random.nextGaussian(), random.nextGaussian(), random.nextGaussian(), i, 0xFF);
+	}
+	
+	@Benchmark
+	public Graph addVectors()
+	{
+		Graph graph = new Graph();
+		graph.addVectors(batch);
+		return graph;
+	}
+}
@@ -0,0 +1,88 @@
+package vectorVisualizer.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import javafx.scene.paint.Color;
+import vectorVisualizer.vectors.Vector;
+
+/**
+ * Measures creating vectors and working out their derived values
+ * @author Robert "Drew" Weimer
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class VectorBenchmark
+{
+	/**
+	 * The start point used for the vectors
+	 */
+	private double[] origin = new double[] {1.0, -2.0, 0.5};
+	
+	/**
+	 * The end point used for the vectors
+	 */
+	private double[] end = new double[] {4.0, 3.0, -7.5};
+	
+	@Benchmark
+	public Vector fromComponents()
+	{
+		return new Vector(new double[] {3.0, 5.0, -8.0});
+	}
+	
+	@Benchmark
+	public Vector fromComponentsWithColor()
+	{
+		return new Vector(new double[] {3.0, 5.0, -8.0}, 1, Color.RED);
+	}
+	
+	@Benchmark
+	public Vector fromPoints()
+	{
+		return new Vector(origin, end, 1, 1f, 0.5f, 0.25f, 0.125f);
+	}
+	
+	/**
+	 * Creating a vector and asking for everything init() used to work out up front
+	 */
+	@Benchmark
+	public double[] fromComponentsFullyInitialised()
+	{
+		Vector v = new Vector(new double[] {3.0, 5.0, -8.0});
+		v.getMagnitude();
+		return v.getDirection();
+	}
+	
+	/**
+	 * Working out the magnitude of a new vector. The derived values are memoized, so a vector kept between calls would only measure reading them back.
+	 * Take away {@link #fromComponents()} for the cost of the math alone. A vector made per invocation in a setup method would mostly time JMH's own overhead at this size
+	 */
+	@Benchmark
+	public double magnitude()
+	{
+		return new Vector(new double[] {3.0, 5.0, -8.0}).getMagnitude();
+	}
+	
+	/**
+	 * Working out the direction of a new vector, magnitude included
+	 */
+	@Benchmark
+	public double[] direction()
+	{
+		return new Vector(new double[] {3.0, 5.0, -8.0}).getDirection();
+	}
+	
+	/**
+	 * Working out the unit vector of a new vector, magnitude included
+	 */
+	@Benchmark
+	public Vector unitVector()
+	{
+		return new Vector(new double[] {3.0, 5.0, -8.0}).getUnitVector();
+	}
+}
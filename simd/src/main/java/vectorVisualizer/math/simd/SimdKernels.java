@@ -0,0 +1,148 @@
+package vectorVisualizer.math.simd;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import vectorVisualizer.math.BatchKernels;
+import vectorVisualizer.math.ScalarKernels;
+
+/**
+ * The batch kernels using the Java Vector API. Each loop handles as many vectors at once as the preferred species has lanes, then finishes the remainder with the scalar kernels
+ * @author Robert "Drew" Weimer
+ */
+public class SimdKernels implements BatchKernels
+{
+	/**
+	 * The widest species the hardware runs well
+	 */
+	private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+	
+	/**
+	 * Used for the leftover vectors that don't fill a whole species
+	 */
+	private final ScalarKernels tail = new ScalarKernels();
+	
+	@Override
+	public void dot(double[] x, double[] y, double[] z, int from, int to, double[] ref, double[] out)
+	{
+		DoubleVector rx = DoubleVector.broadcast(SPECIES, ref[0]);
+		DoubleVector ry = DoubleVector.broadcast(SPECIES, ref[1]);
+		DoubleVector rz = DoubleVector.broadcast(SPECIES, ref[2]);
+		
+		int i = from;
+		int bound = from + SPECIES.loopBound(to - from);
+		
+		for (; i < bound; i += SPECIES.length())
+		{
+			DoubleVector vx = DoubleVector.fromArray(SPECIES, x, i);
+			DoubleVector vy = DoubleVector.fromArray(SPECIES, y, i);
+			DoubleVector vz = DoubleVector.fromArray(SPECIES, z, i);
+			
+			vx.mul(rx).add(vy.mul(ry)).add(vz.mul(rz)).intoArray(out, i);
+		}
+		
+		tail.dot(x, y, z, i, to, ref, out);
+	}
+	
+	@Override
+	public void cross(double[] x, double[] y, double[] z, int from, int to, double[] ref, double[] outX, double[] outY, double[] outZ)
+	{
+		DoubleVector rx = DoubleVector.broadcast(SPECIES, ref[0]);
+		DoubleVector ry = DoubleVector.broadcast(SPECIES, ref[1]);
+		DoubleVector rz = DoubleVector.broadcast(SPECIES, ref[2]);
+		
+		int i = from;
+		int bound = from + SPECIES.loopBound(to - from);
+		
+		for (; i < bound; i += SPECIES.length())
+		{
+			DoubleVector ax = DoubleVector.fromArray(SPECIES, x, i);
+			DoubleVector ay = DoubleVector.fromArray(SPECIES, y, i);
+			DoubleVector az = DoubleVector.fromArray(SPECIES, z, i);
+			
+			ay.mul(rz).sub(az.mul(ry)).intoArray(outX, i);
+			az.mul(rx).sub(ax.mul(rz)).intoArray(outY, i);
+			ax.mul(ry).sub(ay.mul(rx)).intoArray(outZ, i);
+		}
+		
+		tail.cross(x, y, z, i, to, ref, outX, outY, outZ);
+	}
+	
+	@Override
+	public void scale(double[] x, double[] y, double[] z, int from, int to, double scalar)
+	{
+		int i = from;
+		int bound = from + SPECIES.loopBound(to - from);
+		
+		for (; i < bound; i += SPECIES.length())
+		{
+			DoubleVector.fromArray(SPECIES, x, i).mul(scalar).intoArray(x, i);
+			DoubleVector.fromArray(SPECIES, y, i).mul(scalar).intoArray(y, i);
+			DoubleVector.fromArray(SPECIES, z, i).mul(scalar).intoArray(z, i);
+		}
+		
+		tail.scale(x, y, z, i, to, scalar);
+	}
+	
+	@Override
+	public void normalize(double[] x, double[] y, double[] z, double[] magnitude, int from, int to)
+	{
+		DoubleVector one = DoubleVector.broadcast(SPECIES, 1.0);
+		
+		int i = from;
+		int bound = from + SPECIES.loopBound(to - from);
+		
+		for (; i < bound; i += SPECIES.length())
+		{
+			DoubleVector m = DoubleVector.fromArray(SPECIES, magnitude, i);
+			
+			//Zero vectors are left alone, so only the other lanes are written
+			VectorMask<Double> nonZero = m.compare(VectorOperators.NE, 0.0);
+			DoubleVector scale = one.div(m);
+			
+			DoubleVector.fromArray(SPECIES, x, i).mul(scale).intoArray(x, i, nonZero);
+			DoubleVector.fromArray(SPECIES, y, i).mul(scale).intoArray(y, i, nonZero);
+			DoubleVector.fromArray(SPECIES, z, i).mul(scale).intoArray(z, i, nonZero);
+			one.intoArray(magnitude, i, nonZero);
+		}
+		
+		tail.normalize(x, y, z, magnitude, i, to);
+	}
+	
+	@Override
+	public void project(double[] x, double[] y, double[] z, int from, int to, double[] onto, double[] outX, double[] outY, double[] outZ)
+	{
+		double bb = onto[0] * onto[0] + onto[1] * onto[1] + onto[2] * onto[2];
+		double inverse = bb == 0.0 ? 0.0 : 1.0 / bb;
+		
+		DoubleVector bx = DoubleVector.broadcast(SPECIES, onto[0]);
+		DoubleVector by = DoubleVector.broadcast(SPECIES, onto[1]);
+		DoubleVector bz = DoubleVector.broadcast(SPECIES, onto[2]);
+		
+		int i = from;
+		int bound = from + SPECIES.loopBound(to - from);
+		
+		for (; i < bound; i += SPECIES.length())
+		{
+			DoubleVector vx = DoubleVector.fromArray(SPECIES, x, i);
+			DoubleVector vy = DoubleVector.fromArray(SPECIES, y, i);
+			DoubleVector vz = DoubleVector.fromArray(SPECIES, z, i);
+			
+			DoubleVector scale = vx.mul(bx).add(vy.mul(by)).add(vz.mul(bz)).mul(inverse);
+			
+			bx.mul(scale).intoArray(outX, i);
+			by.mul(scale).intoArray(outY, i);
+			bz.mul(scale).intoArray(outZ, i);
+		}
+		
+		tail.project(x, y, z, i, to, onto, outX, outY, outZ);
+	}
+	
+	@Override
+	public String getName()
+	{
+		return "simd (" + SPECIES.length() + " lanes)";
+	}
+}
@@ -0,0 +1,387 @@
+package vectorVisualizer.cli;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jzy3d.chart.Chart;
+import org.jzy3d.chart.factories.AWTChartComponentFactory;
+import org.jzy3d.maths.Coord3d;
+import org.jzy3d.plot3d.rendering.canvas.Quality;
+
+import vectorVisualizer.io.CsvVectorReader;
+import vectorVisualizer.io.VectorFile;
+import vectorVisualizer.vectors.VectorStore;
+import vectorVisualizer.viewer.VectorBatchDrawable;
+
+/**
+ * Renders a file of vectors from one or more camera views to PNG images, without a display or any JavaFX.
+ * The vectors are read once and shared. Each worker thread draws them all as one batch on an offscreen chart of its own,
+ * which it keeps for every view it renders, so after start up an image costs one render and one PNG write.
+ * <pre>
+ * BatchRenderer [--size WIDTHxHEIGHT] [--threads N] [--views FILE] vectors.vvec|vectors.csv outputDir [view ...]
+ * </pre>
+ * A view is written as {@code azimuth,elevation} in degrees, optionally with a distance after them and a name before them, such as {@code front:0,15}.
+ * The image for a view is named after it, or numbered if it has no name. A views file has one view per line, and lines starting with # are skipped.
+ * With no views given the vectors are rendered from eight sides and from above
+ * @author Robert "Drew" Weimer
+ */
+public class BatchRenderer
+{
+	/**
+	 * The size of the images unless given
+	 */
+	private static final int DEFAULT_WIDTH = 1024, DEFAULT_HEIGHT = 768;
+	
+	/**
+	 * How far away the camera is unless given, the same distance the chart starts at
+	 */
+	private static final double DEFAULT_DISTANCE = 2000;
+	
+	/**
+	 * One camera view to render
+	 */
+	static class View
+	{
+		/**
+		 * The name of the image, without .png
+		 */
+		final String name;
+		
+		/**
+		 * Where the camera is, as azimuth and elevation in radians and a distance
+		 */
+		final Coord3d viewPoint;
+		
+		View(String name, double azimuth, double elevation, double distance)
+		{
+			this.name = name;
+			this.viewPoint = new Coord3d(Math.toRadians(azimuth), Math.toRadians(elevation), distance);
+		}
+		
+		/**
+		 * Reads a view written as [name:]azimuth,elevation[,distance]
+		 * @param s The view
+		 * @param index Used to name the view if it has no name
+		 * @return The view
+		 * @throws IllegalArgumentException If the view isn't written properly
+		 */
+		static View parse(String s, int index)
+		{
+			String name = String.format("view-%04d", index);
+			int colon = s.indexOf(':');
+			
+			if (colon >= 0)
+			{
+				name = s.substring(0, colon).trim();
+				s = s.substring(colon + 1);
+			}
+			
+			String[] parts = s.split(",");
+			
+			if (parts.length < 2 || parts.length > 3 || name.isEmpty())
+				throw new IllegalArgumentException("Views are written as [name:]azimuth,elevation[,distance], found " + s);
+			
+			try
+			{
+				double distance = parts.length == 3 ? Double.parseDouble(parts[2].trim()) : DEFAULT_DISTANCE;
+				return new View(name, Double.parseDouble(parts[0].trim()), Double.parseDouble(parts[1].trim()), distance);
+			}
+			catch (NumberFormatException e)
+			{
+				throw new IllegalArgumentException("Views are written as [name:]azimuth,elevation[,distance], found " + s);
+			}
+		}
+	}
+	
+	/**
+	 * The vectors to render, shared by every worker and never changed
+	 */
+	private VectorStore vectors;
+	
+	/**
+	 * Where the images are written
+	 */
+	private File outputDir;
+	
+	/**
+	 * The size of the images
+	 */
+	private int width, height;
+	
+	/**
+	 * @param vectors The vectors to render
+	 * @param outputDir Where the images are written
+	 * @param width The width of the images
+	 * @param height The height of the images
+	 */
+	public BatchRenderer(VectorStore vectors, File outputDir, int width, int height)
+	{
+		this.vectors = vectors;
+		this.outputDir = outputDir;
+		this.width = width;
+		this.height = height;
+	}
+	
+	/**
+	 * Renders every view, spread over a number of threads
+	 * @param views The views to render
+	 * @param threads The most threads to render on at once
+	 * @return The number of images written
+	 * @throws IOException If an image can't be written, after every other view has been tried
+	 */
+	public int render(final List<View> views, int threads) throws IOException
+	{
+		int workers = Math.max(1, Math.min(threads, views.size()));
+		final AtomicInteger next = new AtomicInteger();
+		
+		ExecutorService executor = Executors.newFixedThreadPool(workers);
+		List<Future<Integer>> results = new ArrayList<Future<Integer>>();
+		
+		//Each worker takes the next view not yet taken, so a slow view doesn't hold the others up
+		for (int w = 0; w < workers; w++)
+		{
+			results.add(executor.submit(new Callable<Integer>()
+			{
+				@Override
+				public Integer call() throws IOException
+				{
+					return renderViews(views, next);
+				}
+			}));
+		}
+		
+		executor.shutdown();
+		
+		int written = 0;
+		IOException failure = null;
+		
+		for (Future<Integer> result : results)
+		{
+			try
+			{
+				written += result.get();
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted while rendering", e);
+			}
+			catch (ExecutionException e)
+			{
+				if (failure == null)
+					failure = e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+				else
+					failure.addSuppressed(e.getCause());
+			}
+		}
+		
+		if (failure != null)
+			throw failure;
+		
+		return written;
+	}
+	
+	/**
+	 * Makes a chart for this thread and renders views on it until there are none left
+	 * @param views Every view
+	 * @param next The index of the next view nobody has taken yet
+	 * @return The number of images this thread wrote
+	 * @throws IOException If an image can't be written
+	 */
+	private int renderViews(List<View> views, AtomicInteger next) throws IOException
+	{
+		Chart chart = AWTChartComponentFactory.chart(Quality.Advanced, "offscreen," + width + "," + height);
+		
+		try
+		{
+			//One drawable for every vector, drawn in full since nobody is waiting on the frame rate
+			VectorBatchDrawable drawable = new VectorBatchDrawable(vectors);
+			drawable.setMaxSegments(Integer.MAX_VALUE);
+			drawable.update();
+			
+			chart.add(drawable);
+			
+			int written = 0;
+			
+			for (int i = next.getAndIncrement(); i < views.size(); i = next.getAndIncrement())
+			{
+				View view = views.get(i);
+				
+				chart.getView().setViewPoint(view.viewPoint, false);
+				chart.screenshot(new File(outputDir, view.name + ".png"));
+				
+				written++;
+			}
+			
+			return written;
+		}
+		finally
+		{
+			chart.dispose();
+		}
+	}
+	
+	/**
+	 * Reads a .vvec or .csv file of vectors
+	 * @param file The file to read
+	 * @return The vectors in it
+	 * @throws IOException If the file can't be read
+	 */
+	static VectorStore readVectors(File file) throws IOException
+	{
+		if (file.getName().toLowerCase().endsWith(".vvec"))
+			return VectorFile.read(file);
+		
+		VectorStore store = new VectorStore();
+		
+		try (CsvVectorReader reader = new CsvVectorReader(file))
+		{
+			while (reader.read(store, 1 << 16) > 0)
+				;
+		}
+		
+		return store;
+	}
+	
+	/**
+	 * @return The views used when none are given, eight around the vectors and one from above
+	 */
+	static List<View> defaultViews()
+	{
+		List<View> views = new ArrayList<View>();
+		
+		for (int i = 0; i < 8; i++)
+			views.add(new View(String.format("side-%03d", i * 45), i * 45, 30, DEFAULT_DISTANCE));
+		
+		views.add(new View("top", 0, 90, DEFAULT_DISTANCE));
+		
+		return views;
+	}
+	
+	/**
+	 * Prints how to use the renderer and exits
+	 */
+	private static void usage(String problem)
+	{
+		System.err.println(problem);
+		System.err.println("Usage: BatchRenderer [--size WIDTHxHEIGHT] [--threads N] [--views FILE] vectors.vvec|vectors.csv outputDir [[name:]azimuth,elevation[,distance] ...]");
+		System.exit(2);
+	}
+	
+	/**
+	 * Reads a whole number above 0 from the command line, or exits if it isn't one
+	 */
+	private static int positive(String s)
+	{
+		try
+		{
+			int n = Integer.parseInt(s.trim());
+			
+			if (n > 0)
+				return n;
+		}
+		catch (NumberFormatException e)
+		{
+		}
+		
+		usage("Expected a whole number above 0, found " + s);
+		return 0;
+	}
+	
+	/**
+	 * Renders a file of vectors to images from the command line
+	 * @param args The options, the vector file, the output directory, and the views
+	 * @throws Exception If the vectors can't be read or an image can't be written
+	 */
+	public static void main(String[] args) throws Exception
+	{
+		//Nothing is ever shown, and AWT mustn't go looking for a display
+		if (System.getProperty("java.awt.headless") == null)
+			System.setProperty("java.awt.headless", "true");
+		
+		int width = DEFAULT_WIDTH, height = DEFAULT_HEIGHT;
+		int threads = Runtime.getRuntime().availableProcessors();
+		List<String> viewSpecs = new ArrayList<String>();
+		List<String> positional = new ArrayList<String>();
+		
+		for (int i = 0; i < args.length; i++)
+		{
+			String arg = args[i];
+			
+			if ((arg.equals("--size") || arg.equals("--threads") || arg.equals("--views")) && i + 1 >= args.length)
+				usage(arg + " needs a value");
+			
+			if (arg.equals("--size"))
+			{
+				String[] size = args[++i].toLowerCase().split("x");
+				
+				if (size.length != 2)
+					usage("Sizes are written as WIDTHxHEIGHT, found " + args[i]);
+				
+				width = positive(size[0]);
+				height = positive(size[1]);
+			}
+			else if (arg.equals("--threads"))
+				threads = positive(args[++i]);
+			else if (arg.equals("--views"))
+			{
+				for (String line : Files.readAllLines(new File(args[++i]).toPath(), StandardCharsets.UTF_8))
+				{
+					line = line.trim();
+					
+					if (!line.isEmpty() && !line.startsWith("#"))
+						viewSpecs.add(line);
+				}
+			}
+			else if (arg.startsWith("--"))
+				usage("Unknown option " + arg);
+			else
+				positional.add(arg);
+		}
+		
+		if (positional.size() < 2)
+			usage("A vector file and an output directory are needed");
+		
+		File outputDir = new File(positional.get(1));
+		
+		if (!outputDir.isDirectory() && !outputDir.mkdirs())
+			usage("Can't make the output directory " + outputDir);
+		
+		viewSpecs.addAll(positional.subList(2, positional.size()));
+		
+		List<View> views = new ArrayList<View>();
+		
+		try
+		{
+			for (String spec : viewSpecs)
+				views.add(View.parse(spec, views.size()));
+		}
+		catch (IllegalArgumentException e)
+		{
+			usage(e.getMessage());
+		}
+		
+		if (views.isEmpty())
+			views = defaultViews();
+		
+		long start = System.nanoTime();
+		VectorStore vectors = readVectors(new File(positional.get(0)));
+		long read = System.nanoTime();
+		
+		int written = new BatchRenderer(vectors, outputDir, width, height).render(views, threads);
+		long done = System.nanoTime();
+		
+		System.out.printf("Read %d vectors in %d ms, wrote %d images in %d ms (%.1f ms per image)%n", vectors.size(), (read - start) / 1000000,
+				written, (done - read) / 1000000, written == 0 ? 0.0 : (done - read) / 1e6 / written);
+	}
+}
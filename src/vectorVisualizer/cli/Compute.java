@@ -0,0 +1,442 @@
+package vectorVisualizer.cli;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import vectorVisualizer.io.CsvVectorReader;
+import vectorVisualizer.io.MappedVectorFile;
+import vectorVisualizer.io.VectorFile;
+import vectorVisualizer.math.expr.Expression;
+import vectorVisualizer.vectors.VectorSource;
+import vectorVisualizer.vectors.VectorStore;
+
+/**
+ * Applies the vector math from the menu to files of vectors from the command line, without JavaFX or jzy3d.
+ * The vectors are streamed through a chunk at a time, so files bigger than the heap can be used, and results are written out as CSV as they are worked out.
+ * <pre>
+ * Compute [--ref x,y,z] [--with FILE] [--out FILE] [--chunk N] unit|mag|dot|cross|proj|comp|angle input.vvec|input.csv
+ * Compute [--ref x,y,z] [--with FILE] [--out FILE] [--chunk N] --expr EXPRESSION input.vvec|input.csv
+ * </pre>
+ * The operations taking two vectors use each vector of the input with either the one --ref vector or, pairwise, the vector in the same row of the --with file.
+ * In an expression, v is each vector of the input, w is the vector in the same row of the --with file, and r is the --ref vector.
+ * The operations are worked out by the same fused expressions the menu's expression field uses, a whole chunk at a time
+ * @author Robert "Drew" Weimer
+ */
+public class Compute
+{
+	/**
+	 * How many vectors are read and worked out at once unless given
+	 */
+	private static final int DEFAULT_CHUNK = 1 << 16;
+	
+	/**
+	 * The expression each named operation stands for, where R is replaced by whichever second vector was given
+	 */
+	private static final String[][] OPERATIONS = {
+			{ "unit", "unit(v)" },
+			{ "mag", "mag(v)" },
+			{ "dot", "dot(v, R)" },
+			{ "cross", "cross(v, R)" },
+			{ "proj", "proj(v, R)" },
+			{ "comp", "comp(v, R)" },
+			{ "angle", "angle(v, R)" } };
+	
+	/**
+	 * Reads a file of vectors a chunk at a time
+	 */
+	abstract static class Input implements Closeable
+	{
+		/**
+		 * Reads the next chunk
+		 * @param max The most vectors to read
+		 * @return The vectors read, with nothing in it once the file has run out. Only good until the next call
+		 * @throws IOException If the file can't be read
+		 */
+		abstract VectorSource next(int max) throws IOException;
+		
+		/**
+		 * Opens a .vvec or .csv file
+		 * @param file The file
+		 * @return The input
+		 * @throws IOException If the file can't be opened
+		 */
+		static Input open(File file) throws IOException
+		{
+			if (file.getName().toLowerCase().endsWith(".vvec"))
+				return new MappedInput(VectorFile.open(file));
+			
+			return new CsvInput(new CsvVectorReader(file));
+		}
+	}
+	
+	/**
+	 * Reads a CSV file, parsing each chunk into the same store
+	 */
+	static class CsvInput extends Input
+	{
+		private CsvVectorReader reader;
+		private VectorStore chunk = new VectorStore();
+		
+		CsvInput(CsvVectorReader reader)
+		{
+			this.reader = reader;
+		}
+		
+		@Override
+		VectorSource next(int max) throws IOException
+		{
+			chunk.clear();
+			reader.read(chunk, max);
+			return chunk;
+		}
+		
+		@Override
+		public void close() throws IOException
+		{
+			reader.close();
+		}
+	}
+	
+	/**
+	 * Reads a mapped vector file through a window which moves along it, so nothing is copied and the operating system pages the file in and out
+	 */
+	static class MappedInput extends Input implements VectorSource
+	{
+		private MappedVectorFile file;
+		
+		/**
+		 * The first vector of the file in the window, and how many vectors the window holds
+		 */
+		private int offset, size;
+		
+		MappedInput(MappedVectorFile file)
+		{
+			this.file = file;
+		}
+		
+		@Override
+		VectorSource next(int max)
+		{
+			offset += size;
+			size = Math.min(max, file.size() - offset);
+			return this;
+		}
+		
+		@Override
+		public int size()
+		{
+			return size;
+		}
+		
+		@Override
+		public double getOriginX(int i)
+		{
+			return file.getOriginX(offset + i);
+		}
+		
+		@Override
+		public double getOriginY(int i)
+		{
+			return file.getOriginY(offset + i);
+		}
+		
+		@Override
+		public double getOriginZ(int i)
+		{
+			return file.getOriginZ(offset + i);
+		}
+		
+		@Override
+		public double getX(int i)
+		{
+			return file.getX(offset + i);
+		}
+		
+		@Override
+		public double getY(int i)
+		{
+			return file.getY(offset + i);
+		}
+		
+		@Override
+		public double getZ(int i)
+		{
+			return file.getZ(offset + i);
+		}
+		
+		@Override
+		public int getColor(int i)
+		{
+			return file.getColor(offset + i);
+		}
+		
+		@Override
+		public int getID(int i)
+		{
+			return file.getID(offset + i);
+		}
+		
+		@Override
+		public void close() throws IOException
+		{
+			file.close();
+		}
+	}
+	
+	/**
+	 * The expression to work out
+	 */
+	private Expression expression;
+	
+	/**
+	 * The --ref vector as a store of one vector, used for every row, or null if none was given
+	 */
+	private VectorStore reference;
+	
+	/**
+	 * How many vectors are read and worked out at once
+	 */
+	private int chunkSize;
+	
+	/**
+	 * @param expression The expression to work out, using v, w, and r
+	 * @param reference The --ref vector, or null if none was given
+	 * @param chunkSize How many vectors are read and worked out at once
+	 */
+	public Compute(Expression expression, double[] reference, int chunkSize)
+	{
+		this.expression = expression;
+		this.chunkSize = chunkSize;
+		
+		if (reference != null)
+		{
+			this.reference = new VectorStore(1);
+			this.reference.add(reference[0], reference[1], reference[2], 0, CsvVectorReader.DEFAULT_COLOR);
+		}
+	}
+	
+	/**
+	 * Works out the expression for every vector of the input and writes the results as CSV
+	 * @param input The vectors, v in the expression
+	 * @param with The vectors paired with them row by row, w in the expression, or null if there aren't any
+	 * @param out Where the results are written
+	 * @return The number of rows written
+	 * @throws IOException If a file can't be read or written, or the files have different numbers of vectors
+	 */
+	public long run(Input input, Input with, Writer out) throws IOException
+	{
+		List<String> names = expression.getVariables();
+		VectorSource[] sources = new VectorSource[names.size()];
+		
+		double[] x = new double[chunkSize];
+		double[] y = expression.isVector() ? new double[chunkSize] : null;
+		double[] z = expression.isVector() ? new double[chunkSize] : null;
+		
+		StringBuilder line = new StringBuilder(64);
+		long rows = 0;
+		
+		out.write(expression.isVector() ? "x,y,z\n" : "value\n");
+		
+		while (true)
+		{
+			VectorSource chunk = input.next(chunkSize);
+			VectorSource paired = with == null ? null : with.next(chunkSize);
+			int n = chunk.size();
+			
+			if (paired != null && paired.size() != n)
+				throw new IOException("The --with file has a different number of vectors, it ran out " + (paired.size() < n ? "first" : "last") + " at row " + (rows + Math.min(n, paired.size()) + 1));
+			
+			if (n == 0)
+				return rows;
+			
+			for (int i = 0; i < sources.length; i++)
+			{
+				switch (names.get(i))
+				{
+					case "v": sources[i] = chunk; break;
+					case "w": sources[i] = paired; break;
+					case "r": sources[i] = reference; break;
+					default: break;
+				}
+			}
+			
+			expression.evaluateColumns(sources, 0, n, x, y, z);
+			
+			for (int i = 0; i < n; i++)
+			{
+				line.setLength(0);
+				line.append(x[i]);
+				
+				if (y != null)
+					line.append(',').append(y[i]).append(',').append(z[i]);
+				
+				line.append('\n');
+				out.append(line);
+			}
+			
+			rows += n;
+		}
+	}
+	
+	/**
+	 * Prints how to use the command and exits
+	 */
+	private static void usage(String problem)
+	{
+		System.err.println(problem);
+		System.err.println("Usage: Compute [--ref x,y,z] [--with FILE] [--out FILE] [--chunk N] unit|mag|dot|cross|proj|comp|angle|--expr EXPRESSION input.vvec|input.csv");
+		System.err.println("In an expression v is each input vector, w the vector in the same row of the --with file, and r the --ref vector");
+		System.exit(2);
+	}
+	
+	/**
+	 * Works out an operation over a file of vectors from the command line
+	 * @param args The options, the operation, and the input file
+	 * @throws IOException If a file can't be read or written
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		double[] reference = null;
+		File withFile = null, outFile = null;
+		int chunkSize = DEFAULT_CHUNK;
+		String source = null;
+		List<String> positional = new ArrayList<String>();
+		
+		for (int i = 0; i < args.length; i++)
+		{
+			String arg = args[i];
+			
+			if (arg.startsWith("--") && i + 1 >= args.length)
+				usage(arg + " needs a value");
+			
+			switch (arg)
+			{
+				case "--ref":
+					reference = parseVector(args[++i]);
+					break;
+				
+				case "--with":
+					withFile = new File(args[++i]);
+					break;
+				
+				case "--out":
+					outFile = new File(args[++i]);
+					break;
+				
+				case "--chunk":
+					try
+					{
+						chunkSize = Math.max(1, Integer.parseInt(args[++i]));
+					}
+					catch (NumberFormatException e)
+					{
+						usage("--chunk needs a whole number, found " + args[i]);
+					}
+					break;
+				
+				case "--expr":
+					source = args[++i];
+					break;
+				
+				default:
+					if (arg.startsWith("--"))
+						usage("Unknown option " + arg);
+					
+					positional.add(arg);
+					break;
+			}
+		}
+		
+		//Without --expr the operation comes before the input
+		if (source == null && !positional.isEmpty())
+			source = operation(positional.remove(0), reference != null, withFile != null);
+		
+		if (source == null || positional.size() != 1)
+			usage("An operation and one input file are needed");
+		
+		Expression expression = null;
+		
+		try
+		{
+			expression = Expression.compile(source);
+		}
+		catch (IllegalArgumentException e)
+		{
+			usage(e.getMessage());
+		}
+		
+		for (String name : expression.getVariables())
+		{
+			if (!name.equals("v") && !name.equals("w") && !name.equals("r"))
+				usage("Unknown variable " + name + ", use v for the input, w for the --with file, and r for the --ref vector");
+			else if (name.equals("w") && withFile == null)
+				usage("w needs a --with file");
+			else if (name.equals("r") && reference == null)
+				usage("r needs a --ref vector");
+		}
+		
+		Compute compute = new Compute(expression, reference, chunkSize);
+		
+		try (Input input = Input.open(new File(positional.get(0)));
+				Input with = withFile == null ? null : Input.open(withFile);
+				Writer out = new BufferedWriter(new OutputStreamWriter(outFile == null ? System.out : new FileOutputStream(outFile), StandardCharsets.UTF_8), 1 << 16))
+		{
+			compute.run(input, with, out);
+		}
+	}
+	
+	/**
+	 * Looks up the expression for a named operation
+	 * @param name The operation
+	 * @param hasReference True if a --ref vector was given
+	 * @param hasWith True if a --with file was given
+	 * @return The expression
+	 */
+	private static String operation(String name, boolean hasReference, boolean hasWith)
+	{
+		for (String[] operation : OPERATIONS)
+		{
+			if (!operation[0].equals(name))
+				continue;
+			
+			if (!operation[1].contains("R"))
+				return operation[1];
+			
+			if (hasReference == hasWith)
+				usage(name + " needs either a --ref vector or a --with file");
+			
+			return operation[1].replace("R", hasWith ? "w" : "r");
+		}
+		
+		usage("Unknown operation " + name);
+		return null;
+	}
+	
+	/**
+	 * Reads a vector written as x,y,z
+	 */
+	private static double[] parseVector(String s)
+	{
+		String[] parts = s.split(",");
+		
+		try
+		{
+			if (parts.length == 3)
+				return new double[] { Double.parseDouble(parts[0].trim()), Double.parseDouble(parts[1].trim()), Double.parseDouble(parts[2].trim()) };
+		}
+		catch (NumberFormatException e)
+		{
+		}
+		
+		usage("Vectors are written as x,y,z, found " + s);
+		return null;
+	}
+}
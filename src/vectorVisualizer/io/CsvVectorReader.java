@@ -0,0 +1,337 @@
+package vectorVisualizer.io;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+import com.opencsv.CSVReader;
+
+import vectorVisualizer.vectors.VectorStore;
+
+/**
+ * Streams vectors out of a CSV file a chunk at a time, so only one chunk is ever held in memory no matter how big the file is.
+ * <p>
+ * The first row may be a header naming the columns, in any order and case:
+ * <ul>
+ * <li>x, y, z - the components of the vector</li>
+ * <li>ox, oy, oz - the start point of the vector (optional, defaults to 0,0,0)</li>
+ * <li>ex, ey, ez - the end point of the vector, used instead of x, y, z</li>
+ * <li>id - the ID of the vector (optional, vectors without one are read as {@link VectorStore#NO_ID} and given an ID by the graph)</li>
+ * <li>color - the colour of the vector as #RRGGBB or #RRGGBBAA (optional, defaults to black)</li>
+ * </ul>
+ * Without a header, rows of 3 columns are read as components and rows of 6 columns as a start and end point
+ * @author Robert "Drew" Weimer
+ */
+public class CsvVectorReader implements Closeable
+{
+	/**
+	 * The colour given to vectors without one, opaque black
+	 */
+	public static final int DEFAULT_COLOR = 0x000000FF;
+	
+	/**
+	 * The column each value is read from, or -1 if the file doesn't have it
+	 */
+	private int ox = -1, oy = -1, oz = -1, x = -1, y = -1, z = -1, ex = -1, ey = -1, ez = -1, id = -1, color = -1;
+	
+	/**
+	 * The underlying CSV parser
+	 */
+	private CSVReader csv;
+	
+	/**
+	 * Counts the bytes read from the file for progress reporting
+	 */
+	private CountingInputStream counter;
+	
+	/**
+	 * The first data row, if it had to be read to work out that the file has no header
+	 */
+	private String[] firstRow;
+	
+	/**
+	 * The number of data rows read so far
+	 */
+	private long rowsRead;
+	
+	/**
+	 * Opens a CSV file of vectors and reads its header
+	 * @param file The file to read
+	 * @throws IOException If the file can't be read or its columns aren't understood
+	 */
+	public CsvVectorReader(File file) throws IOException
+	{
+		this(new FileInputStream(file));
+	}
+	
+	/**
+	 * Starts reading vectors from a stream of CSV and reads its header
+	 * @param in The stream to read
+	 * @throws IOException If the stream can't be read or its columns aren't understood
+	 */
+	public CsvVectorReader(InputStream in) throws IOException
+	{
+		counter = new CountingInputStream(in);
+		csv = new CSVReader(new BufferedReader(new InputStreamReader(counter, StandardCharsets.UTF_8), 1 << 16));
+		
+		readHeader();
+	}
+	
+	/**
+	 * Works out which column holds which value from the first row
+	 * @throws IOException If the columns aren't understood
+	 */
+	private void readHeader() throws IOException
+	{
+		String[] row = csv.readNext();
+		
+		if (row == null)
+			return;
+		
+		if (isNumber(row[0]))
+		{
+			//No header, so guess from the number of columns and keep the row as data
+			if (row.length == 3)
+			{
+				x = 0; y = 1; z = 2;
+			}
+			else if (row.length == 6)
+			{
+				ox = 0; oy = 1; oz = 2; ex = 3; ey = 4; ez = 5;
+			}
+			else
+				throw new IOException("A CSV file without a header needs 3 or 6 columns, found " + row.length);
+			
+			firstRow = row;
+			return;
+		}
+		
+		for (int i = 0; i < row.length; i++)
+		{
+			switch (row[i].trim().toLowerCase())
+			{
+				case "ox": ox = i; break;
+				case "oy": oy = i; break;
+				case "oz": oz = i; break;
+				case "x": x = i; break;
+				case "y": y = i; break;
+				case "z": z = i; break;
+				case "ex": ex = i; break;
+				case "ey": ey = i; break;
+				case "ez": ez = i; break;
+				case "id": id = i; break;
+				case "color": case "colour": color = i; break;
+				default: break;
+			}
+		}
+		
+		boolean hasComponents = x >= 0 && y >= 0 && z >= 0;
+		boolean hasEnd = ex >= 0 && ey >= 0 && ez >= 0;
+		
+		if (hasComponents == hasEnd)
+			throw new IOException("A CSV file of vectors needs either x, y, z or ex, ey, ez columns");
+	}
+	
+	/**
+	 * @param s The string to check
+	 * @return True if the string starts like a number
+	 */
+	private static boolean isNumber(String s)
+	{
+		s = s.trim();
+		
+		if (s.isEmpty())
+			return false;
+		
+		char c = s.charAt(0);
+		return Character.isDigit(c) || c == '-' || c == '+' || c == '.';
+	}
+	
+	/**
+	 * Reads up to the given number of vectors onto the end of a store
+	 * @param into The store to add the vectors to
+	 * @param max The most vectors to read
+	 * @return The number of vectors read, 0 once the file has run out
+	 * @throws IOException If the file can't be read or a row isn't valid
+	 */
+	public int read(VectorStore into, int max) throws IOException
+	{
+		into.ensureCapacity(into.size() + max);
+		
+		int count = 0;
+		
+		while (count < max)
+		{
+			String[] row = firstRow;
+			firstRow = null;
+			
+			if (row == null)
+				row = csv.readNext();
+			
+			if (row == null)
+				break;
+			
+			//Skip blank lines
+			if (row.length == 1 && row[0].trim().isEmpty())
+				continue;
+			
+			try
+			{
+				addRow(into, row);
+			}
+			catch (RuntimeException e)
+			{
+				throw new IOException("Invalid vector on data row " + (rowsRead + 1) + ": " + e.getMessage(), e);
+			}
+			
+			rowsRead++;
+			count++;
+		}
+		
+		return count;
+	}
+	
+	/**
+	 * Parses one row and adds the vector it describes to the store
+	 * @param into The store to add to
+	 * @param row The row to parse
+	 */
+	private void addRow(VectorStore into, String[] row)
+	{
+		double startX = value(row, ox);
+		double startY = value(row, oy);
+		double startZ = value(row, oz);
+		
+		double cx, cy, cz;
+		
+		if (x >= 0)
+		{
+			cx = value(row, x);
+			cy = value(row, y);
+			cz = value(row, z);
+		}
+		else
+		{
+			cx = value(row, ex) - startX;
+			cy = value(row, ey) - startY;
+			cz = value(row, ez) - startZ;
+		}
+		
+		int ID = id >= 0 ? Integer.parseInt(row[id].trim()) : VectorStore.NO_ID;
+		int rgba = color >= 0 && !row[color].trim().isEmpty() ? parseColor(row[color]) : DEFAULT_COLOR;
+		
+		into.add(startX, startY, startZ, cx, cy, cz, ID, rgba);
+	}
+	
+	/**
+	 * @param row The row to read from
+	 * @param column The column to read, or -1 if there isn't one
+	 * @return The value in the column, or 0 if there isn't one
+	 */
+	private static double value(String[] row, int column)
+	{
+		if (column < 0)
+			return 0.0;
+		
+		return Double.parseDouble(row[column].trim());
+	}
+	
+	/**
+	 * Parses a colour written as #RRGGBB or #RRGGBBAA (the # is optional)
+	 * @param s The colour to parse
+	 * @return The colour packed as 0xRRGGBBAA
+	 */
+	public static int parseColor(String s)
+	{
+		s = s.trim();
+		
+		if (s.startsWith("#"))
+			s = s.substring(1);
+		else if (s.startsWith("0x") || s.startsWith("0X"))
+			s = s.substring(2);
+		
+		if (s.length() == 6)
+			return (int) (Long.parseLong(s, 16) << 8) | 0xFF;
+		else if (s.length() == 8)
+			return (int) Long.parseLong(s, 16);
+		
+		throw new NumberFormatException("Colours must be written as #RRGGBB or #RRGGBBAA, found " + s);
+	}
+	
+	/**
+	 * @return The number of bytes of the file read so far
+	 */
+	public long getBytesRead()
+	{
+		return counter.count;
+	}
+	
+	/**
+	 * @return The number of vectors read so far
+	 */
+	public long getRowsRead()
+	{
+		return rowsRead;
+	}
+	
+	@Override
+	public void close() throws IOException
+	{
+		csv.close();
+	}
+	
+	/**
+	 * Counts the bytes which pass through it
+	 */
+	private static class CountingInputStream extends FilterInputStream
+	{
+		/**
+		 * The number of bytes read so far
+		 */
+		private volatile long count;
+		
+		/**
+		 * @param in The stream to count
+		 */
+		CountingInputStream(InputStream in)
+		{
+			super(in);
+		}
+		
+		@Override
+		public int read() throws IOException
+		{
+			int b = super.read();
+			
+			if (b >= 0)
+				count++;
+			
+			return b;
+		}
+		
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException
+		{
+			int n = super.read(b, off, len);
+			
+			if (n > 0)
+				count += n;
+			
+			return n;
+		}
+		
+		@Override
+		public long skip(long n) throws IOException
+		{
+			long skipped = super.skip(n);
+			count += skipped;
+			return skipped;
+		}
+	}
+}
@@ -0,0 +1,178 @@
+package vectorVisualizer.io;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+import vectorVisualizer.vectors.VectorSource;
+
+/**
+ * A vector file mapped into memory, read in place without creating any objects per vector.
+ * The file is mapped in segments since a single mapping can't be bigger than 2GB
+ * @author Robert "Drew" Weimer
+ */
+public class MappedVectorFile implements VectorSource, Closeable
+{
+	/**
+	 * Each segment holds 2^SEGMENT_SHIFT vectors, which keeps a segment under 2GB
+	 */
+	private static final int SEGMENT_SHIFT = 25;
+	
+	/**
+	 * Picks out the index of a vector within its segment
+	 */
+	private static final int SEGMENT_MASK = (1 << SEGMENT_SHIFT) - 1;
+	
+	/**
+	 * The open file
+	 */
+	private FileChannel channel;
+	
+	/**
+	 * The mapped segments of the file
+	 */
+	private MappedByteBuffer[] segments;
+	
+	/**
+	 * The number of vectors in the file
+	 */
+	private int size;
+	
+	/**
+	 * Opens and maps a vector file
+	 * @param file The file to open
+	 * @throws IOException If the file can't be read or isn't a vector file
+	 */
+	MappedVectorFile(File file) throws IOException
+	{
+		channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		
+		try
+		{
+			if (channel.size() < VectorFile.HEADER_SIZE)
+				throw new IOException(file + " is too short to be a vector file");
+			
+			MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, VectorFile.HEADER_SIZE);
+			header.order(ByteOrder.LITTLE_ENDIAN);
+			
+			if (header.getInt(0) != VectorFile.MAGIC)
+				throw new IOException(file + " is not a vector file");
+			
+			if (header.getInt(4) != VectorFile.VERSION)
+				throw new IOException(file + " is version " + header.getInt(4) + " of the vector format, only version " + VectorFile.VERSION + " is supported");
+			
+			long count = header.getLong(8);
+			
+			if (count < 0 || count > Integer.MAX_VALUE || VectorFile.HEADER_SIZE + count * VectorFile.RECORD_SIZE > channel.size())
+				throw new IOException(file + " says it holds " + count + " vectors, which doesn't match its length");
+			
+			size = (int) count;
+			
+			int segmentCount = (int) ((count + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+			segments = new MappedByteBuffer[segmentCount];
+			
+			for (int s = 0; s < segmentCount; s++)
+			{
+				long first = (long) s << SEGMENT_SHIFT;
+				long records = Math.min(count - first, 1L << SEGMENT_SHIFT);
+				
+				segments[s] = channel.map(FileChannel.MapMode.READ_ONLY, VectorFile.HEADER_SIZE + first * VectorFile.RECORD_SIZE, records * VectorFile.RECORD_SIZE);
+				segments[s].order(ByteOrder.LITTLE_ENDIAN);
+			}
+		}
+		catch (IOException e)
+		{
+			channel.close();
+			throw e;
+		}
+	}
+	
+	/**
+	 * Reads a double out of a vector's record
+	 * @param i The index of the vector
+	 * @param field The byte offset of the value within the record
+	 * @return The value
+	 */
+	private double getDouble(int i, int field)
+	{
+		return segments[i >>> SEGMENT_SHIFT].getDouble((i & SEGMENT_MASK) * VectorFile.RECORD_SIZE + field);
+	}
+	
+	/**
+	 * Reads an int out of a vector's record
+	 * @param i The index of the vector
+	 * @param field The byte offset of the value within the record
+	 * @return The value
+	 */
+	private int getInt(int i, int field)
+	{
+		return segments[i >>> SEGMENT_SHIFT].getInt((i & SEGMENT_MASK) * VectorFile.RECORD_SIZE + field);
+	}
+	
+	@Override
+	public int size()
+	{
+		return size;
+	}
+	
+	@Override
+	public double getOriginX(int i)
+	{
+		return getDouble(i, 0);
+	}
+	
+	@Override
+	public double getOriginY(int i)
+	{
+		return getDouble(i, 8);
+	}
+	
+	@Override
+	public double getOriginZ(int i)
+	{
+		return getDouble(i, 16);
+	}
+	
+	@Override
+	public double getX(int i)
+	{
+		return getDouble(i, 24);
+	}
+	
+	@Override
+	public double getY(int i)
+	{
+		return getDouble(i, 32);
+	}
+	
+	@Override
+	public double getZ(int i)
+	{
+		return getDouble(i, 40);
+	}
+	
+	@Override
+	public int getColor(int i)
+	{
+		return getInt(i, 48);
+	}
+	
+	@Override
+	public int getID(int i)
+	{
+		return getInt(i, 52);
+	}
+	
+	/**
+	 * Closes the file. The mapped segments stay readable until they are garbage collected
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		channel.close();
+	}
+}
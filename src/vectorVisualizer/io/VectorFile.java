@@ -0,0 +1,132 @@
+package vectorVisualizer.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+import vectorVisualizer.vectors.VectorSource;
+import vectorVisualizer.vectors.VectorStore;
+
+/**
+ * Reads and writes the binary vector file format (.vvec).
+ * <p>
+ * Everything is little-endian. The file starts with a 16 byte header: the magic number "VVEC", the format version as an int, and the number of vectors as a long.
+ * After it come the vectors, 56 bytes each: the start point and components as six doubles (ox, oy, oz, x, y, z), then the colour packed as 0xRRGGBBAA and the ID as ints.
+ * Because every record is the same size, the file can be mapped into memory and read in place with {@link #open(File)}
+ * @author Robert "Drew" Weimer
+ */
+public class VectorFile
+{
+	/**
+	 * The first four bytes of every vector file, "VVEC" read as a little-endian int
+	 */
+	public static final int MAGIC = 0x43455656;
+	
+	/**
+	 * The version of the format written by this class
+	 */
+	public static final int VERSION = 1;
+	
+	/**
+	 * The size of the header in bytes
+	 */
+	public static final int HEADER_SIZE = 16;
+	
+	/**
+	 * The size of one vector in bytes
+	 */
+	public static final int RECORD_SIZE = 56;
+	
+	/**
+	 * The number of vectors written to the file at a time
+	 */
+	private static final int WRITE_CHUNK = 4096;
+	
+	/**
+	 * Only static methods
+	 */
+	private VectorFile()
+	{
+	}
+	
+	/**
+	 * Writes vectors to a file, replacing whatever was there
+	 * @param file The file to write
+	 * @param source The vectors to write
+	 * @throws IOException If the file can't be written
+	 */
+	public static void write(File file, VectorSource source) throws IOException
+	{
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
+		{
+			ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_CHUNK * RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			
+			buffer.putInt(MAGIC);
+			buffer.putInt(VERSION);
+			buffer.putLong(source.size());
+			
+			for (int i = 0; i < source.size(); i++)
+			{
+				if (buffer.remaining() < RECORD_SIZE)
+					flush(channel, buffer);
+				
+				buffer.putDouble(source.getOriginX(i));
+				buffer.putDouble(source.getOriginY(i));
+				buffer.putDouble(source.getOriginZ(i));
+				buffer.putDouble(source.getX(i));
+				buffer.putDouble(source.getY(i));
+				buffer.putDouble(source.getZ(i));
+				buffer.putInt(source.getColor(i));
+				buffer.putInt(source.getID(i));
+			}
+			
+			flush(channel, buffer);
+		}
+	}
+	
+	/**
+	 * Writes out everything in the buffer and empties it
+	 * @param channel The channel to write to
+	 * @param buffer The buffer to write
+	 * @throws IOException If the write fails
+	 */
+	private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException
+	{
+		buffer.flip();
+		
+		while (buffer.hasRemaining())
+			channel.write(buffer);
+		
+		buffer.clear();
+	}
+	
+	/**
+	 * Maps a vector file into memory. Nothing is parsed or copied, the vectors are read straight out of the file as they're asked for and the operating system pages them in as needed
+	 * @param file The file to open
+	 * @return The vectors in the file
+	 * @throws IOException If the file can't be read or isn't a vector file
+	 */
+	public static MappedVectorFile open(File file) throws IOException
+	{
+		return new MappedVectorFile(file);
+	}
+	
+	/**
+	 * Reads every vector in a file into a new store
+	 * @param file The file to read
+	 * @return A store holding the vectors in the file
+	 * @throws IOException If the file can't be read or isn't a vector file
+	 */
+	public static VectorStore read(File file) throws IOException
+	{
+		try (MappedVectorFile mapped = open(file))
+		{
+			VectorStore store = new VectorStore(mapped.size());
+			store.addAll(mapped);
+			return store;
+		}
+	}
+}
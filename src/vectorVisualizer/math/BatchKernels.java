@@ -0,0 +1,94 @@
+package vectorVisualizer.math;
+
+/**
+ * The inner loops of the batched vector operations, run over a range of vectors stored as x, y, and z component columns.
+ * There is a plain scalar version and, in the separate simd artifact, one using the Java Vector API. {@link #get()} picks one at startup
+ * @author Robert "Drew" Weimer
+ */
+public interface BatchKernels
+{
+	/**
+	 * The class of the Vector API kernels, only there if the simd artifact is on the classpath
+	 */
+	String SIMD_KERNELS = "vectorVisualizer.math.simd.SimdKernels";
+	
+	/**
+	 * Set this system property to "scalar" to always use the scalar kernels
+	 */
+	String KERNELS_PROPERTY = "vectorVisualizer.kernels";
+	
+	/**
+	 * Finds the dot product of each vector in the range with a reference vector
+	 * @param x The x components
+	 * @param y The y components
+	 * @param z The z components
+	 * @param from The first index to use
+	 * @param to One past the last index to use
+	 * @param ref The reference vector, 3 long
+	 * @param out Where to write the dot products, out[i] is vector i . ref
+	 */
+	void dot(double[] x, double[] y, double[] z, int from, int to, double[] ref, double[] out);
+	
+	/**
+	 * Finds the cross product of each vector in the range with a reference vector
+	 * @param x The x components
+	 * @param y The y components
+	 * @param z The z components
+	 * @param from The first index to use
+	 * @param to One past the last index to use
+	 * @param ref The reference vector, 3 long
+	 * @param outX Where to write the x components of the cross products
+	 * @param outY Where to write the y components of the cross products
+	 * @param outZ Where to write the z components of the cross products
+	 */
+	void cross(double[] x, double[] y, double[] z, int from, int to, double[] ref, double[] outX, double[] outY, double[] outZ);
+	
+	/**
+	 * Multiplies each vector in the range by a scalar, in place
+	 * @param x The x components
+	 * @param y The y components
+	 * @param z The z components
+	 * @param from The first index to use
+	 * @param to One past the last index to use
+	 * @param scalar The scalar to multiply by
+	 */
+	void scale(double[] x, double[] y, double[] z, int from, int to, double scalar);
+	
+	/**
+	 * Scales each vector in the range to a magnitude of 1, in place, and sets its magnitude to 1. Zero vectors are left as they are
+	 * @param x The x components
+	 * @param y The y components
+	 * @param z The z components
+	 * @param magnitude The magnitudes of the vectors
+	 * @param from The first index to use
+	 * @param to One past the last index to use
+	 */
+	void normalize(double[] x, double[] y, double[] z, double[] magnitude, int from, int to);
+	
+	/**
+	 * Finds the projection of each vector in the range onto a reference vector
+	 * @param x The x components
+	 * @param y The y components
+	 * @param z The z components
+	 * @param from The first index to use
+	 * @param to One past the last index to use
+	 * @param onto The vector to project onto, 3 long
+	 * @param outX Where to write the x components of the projections
+	 * @param outY Where to write the y components of the projections
+	 * @param outZ Where to write the z components of the projections
+	 */
+	void project(double[] x, double[] y, double[] z, int from, int to, double[] onto, double[] outX, double[] outY, double[] outZ);
+	
+	/**
+	 * @return The name of these kernels, for logging
+	 */
+	String getName();
+	
+	/**
+	 * @return The kernels picked at startup: the Vector API ones if the simd artifact is on the classpath and the jdk.incubator.vector module is loaded, the scalar ones otherwise
+	 */
+	static BatchKernels get()
+	{
+		return ScalarKernels.Holder.SELECTED;
+	}
+}
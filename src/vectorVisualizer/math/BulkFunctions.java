@@ -0,0 +1,334 @@
+package vectorVisualizer.math;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+import vectorVisualizer.vectors.VectorStore;
+
+/**
+ * Operations over every vector in a store, split across a fork/join pool.
+ * A range of vectors is halved until it is no bigger than the threshold, and those pieces run in parallel straight down the store's component arrays using the {@link BatchKernels} picked at startup
+ * @author Robert "Drew" Weimer
+ */
+public class BulkFunctions
+{
+	/**
+	 * The threshold used when none is given. Below this many vectors splitting costs more than it saves
+	 */
+	public static final int DEFAULT_THRESHOLD = 1 << 14;
+	
+	/**
+	 * Shared instance using the common pool and the default threshold
+	 */
+	private static final BulkFunctions DEFAULT = new BulkFunctions(ForkJoinPool.commonPool(), DEFAULT_THRESHOLD);
+	
+	/**
+	 * The pool the work runs in
+	 */
+	private ForkJoinPool pool;
+	
+	/**
+	 * The largest number of vectors handled without splitting the range further
+	 */
+	private int threshold;
+	
+	/**
+	 * The loops run on each piece of the range
+	 */
+	private BatchKernels kernels = BatchKernels.get();
+	
+	/**
+	 * Creates bulk operations that run in the given pool
+	 * @param pool The pool to run in
+	 * @param threshold The largest number of vectors handled in one piece, at least 1
+	 */
+	public BulkFunctions(ForkJoinPool pool, int threshold)
+	{
+		if (threshold < 1)
+			throw new IllegalArgumentException("The threshold must be at least 1, was " + threshold);
+		
+		this.pool = pool;
+		this.threshold = threshold;
+	}
+	
+	/**
+	 * @return Bulk operations using the common pool, so every core, and the default threshold
+	 */
+	public static BulkFunctions getDefault()
+	{
+		return DEFAULT;
+	}
+	
+	/**
+	 * Adds together every vector in a store
+	 * @param store The vectors to add together
+	 * @return The x, y, and z components of the sum
+	 */
+	public double[] sum(VectorStore store)
+	{
+		return pool.invoke(new SumTask(store.xArray(), store.yArray(), store.zArray(), 0, store.size()));
+	}
+	
+	/**
+	 * Finds the mean of every vector in a store
+	 * @param store The vectors
+	 * @return The x, y, and z components of the mean, all NaN if the store is empty
+	 */
+	public double[] mean(VectorStore store)
+	{
+		return InPlaceFunctions.scaleInto(new double[3], sum(store), 1.0 / store.size());
+	}
+	
+	/**
+	 * Finds the centroid of the end points (tail plus components) of every vector in a store
+	 * @param store The vectors
+	 * @return The x, y, and z coordinates of the centroid, all NaN if the store is empty
+	 */
+	public double[] centroid(VectorStore store)
+	{
+		double[] tails = pool.invoke(new SumTask(store.originXArray(), store.originYArray(), store.originZArray(), 0, store.size()));
+		double[] components = sum(store);
+		
+		return InPlaceFunctions.scaleInto(tails, InPlaceFunctions.addInto(tails, tails, components), 1.0 / store.size());
+	}
+	
+	/**
+	 * Finds the dot product of every vector in a store with a reference vector
+	 * @param store The vectors
+	 * @param ref The reference vector, 3 long
+	 * @param out Where to write the dot products, out[i] is vector i . ref
+	 * @return out
+	 */
+	public double[] dotAgainst(VectorStore store, double[] ref, double[] out)
+	{
+		double[] x = store.xArray(), y = store.yArray(), z = store.zArray();
+		
+		pool.invoke(new RangeAction(new RangeBody()
+		{
+			@Override
+			public void run(int from, int to)
+			{
+				kernels.dot(x, y, z, from, to, ref, out);
+			}
+		}, 0, store.size()));
+		
+		return out;
+	}
+	
+	/**
+	 * Finds the cross product of every vector in a store with a reference vector
+	 * @param store The vectors
+	 * @param ref The reference vector, 3 long
+	 * @param outX Where to write the x components of the cross products
+	 * @param outY Where to write the y components of the cross products
+	 * @param outZ Where to write the z components of the cross products
+	 */
+	public void crossAgainst(VectorStore store, double[] ref, double[] outX, double[] outY, double[] outZ)
+	{
+		double[] x = store.xArray(), y = store.yArray(), z = store.zArray();
+		
+		pool.invoke(new RangeAction(new RangeBody()
+		{
+			@Override
+			public void run(int from, int to)
+			{
+				kernels.cross(x, y, z, from, to, ref, outX, outY, outZ);
+			}
+		}, 0, store.size()));
+	}
+	
+	/**
+	 * Finds the projection of every vector in a store onto a reference vector
+	 * @param store The vectors
+	 * @param onto The vector to project onto, 3 long
+	 * @param outX Where to write the x components of the projections
+	 * @param outY Where to write the y components of the projections
+	 * @param outZ Where to write the z components of the projections
+	 */
+	public void projectAll(VectorStore store, double[] onto, double[] outX, double[] outY, double[] outZ)
+	{
+		double[] x = store.xArray(), y = store.yArray(), z = store.zArray();
+		
+		pool.invoke(new RangeAction(new RangeBody()
+		{
+			@Override
+			public void run(int from, int to)
+			{
+				kernels.project(x, y, z, from, to, onto, outX, outY, outZ);
+			}
+		}, 0, store.size()));
+	}
+	
+	/**
+	 * Multiplies every vector in a store by a scalar, keeping their start points, IDs, and colours
+	 * @param store The vectors to scale
+	 * @param scalar The scalar to multiply by
+	 */
+	public void scaleAll(VectorStore store, double scalar)
+	{
+		double[] x = store.xArray(), y = store.yArray(), z = store.zArray();
+		double[] magnitude = store.magnitudeArray();
+		double factor = Math.abs(scalar);
+		
+		pool.invoke(new RangeAction(new RangeBody()
+		{
+			@Override
+			public void run(int from, int to)
+			{
+				kernels.scale(x, y, z, from, to, scalar);
+				
+				for (int i = from; i < to; i++)
+					magnitude[i] *= factor;
+			}
+		}, 0, store.size()));
+	}
+	
+	/**
+	 * Scales every vector in a store to a magnitude of 1, keeping their start points, IDs, and colours. Zero vectors are left as they are
+	 * @param store The vectors to normalize
+	 */
+	public void normalizeAll(VectorStore store)
+	{
+		double[] x = store.xArray(), y = store.yArray(), z = store.zArray();
+		double[] magnitude = store.magnitudeArray();
+		
+		pool.invoke(new RangeAction(new RangeBody()
+		{
+			@Override
+			public void run(int from, int to)
+			{
+				kernels.normalize(x, y, z, magnitude, from, to);
+			}
+		}, 0, store.size()));
+	}
+	
+	/**
+	 * Work to be done over a piece of a range of indices
+	 */
+	private interface RangeBody
+	{
+		/**
+		 * Does the work for a piece of the range
+		 * @param from The first index of the piece
+		 * @param to One past the last index of the piece
+		 */
+		void run(int from, int to);
+	}
+	
+	/**
+	 * Runs some work over a range of indices, splitting it in half until the pieces are no bigger than the threshold
+	 */
+	private class RangeAction extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+		
+		/**
+		 * The work to do
+		 */
+		private final RangeBody body;
+		
+		/**
+		 * The first index of the range
+		 */
+		private final int from;
+		
+		/**
+		 * One past the last index of the range
+		 */
+		private final int to;
+		
+		/**
+		 * @param body The work to do
+		 * @param from The first index of the range
+		 * @param to One past the last index of the range
+		 */
+		RangeAction(RangeBody body, int from, int to)
+		{
+			this.body = body;
+			this.from = from;
+			this.to = to;
+		}
+		
+		@Override
+		protected void compute()
+		{
+			if (to - from <= threshold)
+			{
+				body.run(from, to);
+				return;
+			}
+			
+			int middle = (from + to) >>> 1;
+			
+			invokeAll(new RangeAction(body, from, middle), new RangeAction(body, middle, to));
+		}
+	}
+	
+	/**
+	 * Adds up a range of three component columns, splitting it in half until the pieces are no bigger than the threshold
+	 */
+	private class SumTask extends RecursiveTask<double[]>
+	{
+		private static final long serialVersionUID = 1L;
+		
+		/**
+		 * The columns to add up
+		 */
+		private final double[] x, y, z;
+		
+		/**
+		 * The first index of the range
+		 */
+		private final int from;
+		
+		/**
+		 * One past the last index of the range
+		 */
+		private final int to;
+		
+		/**
+		 * @param x The x column
+		 * @param y The y column
+		 * @param z The z column
+		 * @param from The first index of the range
+		 * @param to One past the last index of the range
+		 */
+		SumTask(double[] x, double[] y, double[] z, int from, int to)
+		{
+			this.x = x;
+			this.y = y;
+			this.z = z;
+			this.from = from;
+			this.to = to;
+		}
+		
+		@Override
+		protected double[] compute()
+		{
+			if (to - from <= threshold)
+			{
+				double sx = 0.0, sy = 0.0, sz = 0.0;
+				
+				for (int i = from; i < to; i++)
+				{
+					sx += x[i];
+					sy += y[i];
+					sz += z[i];
+				}
+				
+				return new double[] {sx, sy, sz};
+			}
+			
+			int middle = (from + to) >>> 1;
+			
+			SumTask left = new SumTask(x, y, z, from, middle);
+			SumTask right = new SumTask(x, y, z, middle, to);
+			
+			left.fork();
+			double[] sum = right.compute();
+			
+			return InPlaceFunctions.addInto(sum, sum, left.join());
+		}
+	}
+}
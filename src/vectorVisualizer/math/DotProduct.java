@@ -0,0 +1,259 @@
+package vectorVisualizer.math;
+
+import vectorVisualizer.vectors.VectorSource;
+import vectorVisualizer.vectors.VectorStore;
+
+/**
+ * Double precision dot products, from a single pair of vectors up to every vector in one store against every vector in another.
+ * Long loops are unrolled over four separate sums, which breaks the chain of dependent additions and gives the JIT a loop it can vectorize.
+ * Where many terms are added together, a compensated (Kahan) sum can be asked for to keep rounding error from building up
+ * @author Robert "Drew" Weimer
+ */
+public class DotProduct
+{
+	/**
+	 * Only static methods
+	 */
+	private DotProduct()
+	{
+	}
+	
+	/**
+	 * @param a The first vector
+	 * @param b The second vector
+	 * @return The dot product of a and b, over the length of the shorter one
+	 */
+	public static double dot(double[] a, double[] b)
+	{
+		return dot(a, 0, b, 0, Math.min(a.length, b.length));
+	}
+	
+	/**
+	 * @param a The first vector
+	 * @param b The second vector
+	 * @param compensated True to use Kahan summation, which is slower but keeps the rounding error from growing with the length
+	 * @return The dot product of a and b, over the length of the shorter one
+	 */
+	public static double dot(double[] a, double[] b, boolean compensated)
+	{
+		int n = Math.min(a.length, b.length);
+		
+		if (compensated)
+			return dotCompensated(a, 0, b, 0, n);
+		
+		return dot(a, 0, b, 0, n);
+	}
+	
+	/**
+	 * Finds the dot product of a run of n values from two arrays
+	 * @param a The first array
+	 * @param aOffset Where the run starts in a
+	 * @param b The second array
+	 * @param bOffset Where the run starts in b
+	 * @param n The length of the run
+	 * @return The dot product
+	 */
+	public static double dot(double[] a, int aOffset, double[] b, int bOffset, int n)
+	{
+		double s0 = 0.0, s1 = 0.0, s2 = 0.0, s3 = 0.0;
+		
+		int i = 0;
+		
+		for (; i + 3 < n; i += 4)
+		{
+			s0 += a[aOffset + i] * b[bOffset + i];
+			s1 += a[aOffset + i + 1] * b[bOffset + i + 1];
+			s2 += a[aOffset + i + 2] * b[bOffset + i + 2];
+			s3 += a[aOffset + i + 3] * b[bOffset + i + 3];
+		}
+		
+		for (; i < n; i++)
+			s0 += a[aOffset + i] * b[bOffset + i];
+		
+		return (s0 + s1) + (s2 + s3);
+	}
+	
+	/**
+	 * Finds the dot product of a run of n values from two arrays using Kahan summation
+	 * @param a The first array
+	 * @param aOffset Where the run starts in a
+	 * @param b The second array
+	 * @param bOffset Where the run starts in b
+	 * @param n The length of the run
+	 * @return The dot product
+	 */
+	public static double dotCompensated(double[] a, int aOffset, double[] b, int bOffset, int n)
+	{
+		double sum = 0.0;
+		double error = 0.0;
+		
+		for (int i = 0; i < n; i++)
+		{
+			double term = a[aOffset + i] * b[bOffset + i] - error;
+			double next = sum + term;
+			
+			//What was lost when term was added, taken back off the next term
+			error = (next - sum) - term;
+			sum = next;
+		}
+		
+		return sum;
+	}
+	
+	/**
+	 * Finds the dot product of every vector in a source with one reference vector
+	 * @param vectors The vectors
+	 * @param ref The reference vector, 3 long
+	 * @param out Where to write the dot products, out[i] is vector i . ref
+	 * @return out
+	 */
+	public static double[] oneToMany(VectorSource vectors, double[] ref, double[] out)
+	{
+		if (vectors instanceof VectorStore)
+		{
+			//Run straight down the component arrays
+			VectorStore store = (VectorStore) vectors;
+			return oneToMany(store.xArray(), store.yArray(), store.zArray(), 0, store.size(), ref, out);
+		}
+		
+		double rx = ref[0], ry = ref[1], rz = ref[2];
+		
+		for (int i = 0; i < vectors.size(); i++)
+			out[i] = vectors.getX(i) * rx + vectors.getY(i) * ry + vectors.getZ(i) * rz;
+		
+		return out;
+	}
+	
+	/**
+	 * Finds the dot product of a range of vectors stored as component columns with one reference vector
+	 * @param x The x components
+	 * @param y The y components
+	 * @param z The z components
+	 * @param from The first index to use
+	 * @param to One past the last index to use
+	 * @param ref The reference vector, 3 long
+	 * @param out Where to write the dot products, out[i] is vector i . ref
+	 * @return out
+	 */
+	public static double[] oneToMany(double[] x, double[] y, double[] z, int from, int to, double[] ref, double[] out)
+	{
+		double rx = ref[0], ry = ref[1], rz = ref[2];
+		
+		for (int i = from; i < to; i++)
+			out[i] = x[i] * rx + y[i] * ry + z[i] * rz;
+		
+		return out;
+	}
+	
+	/**
+	 * Finds the dot product of each vector in one source with the vector at the same index in another
+	 * @param a The first vectors
+	 * @param b The second vectors, at least as many as a
+	 * @param out Where to write the dot products, out[i] is a[i] . b[i]
+	 * @return out
+	 */
+	public static double[] pairwise(VectorSource a, VectorSource b, double[] out)
+	{
+		if (a instanceof VectorStore && b instanceof VectorStore)
+		{
+			VectorStore sa = (VectorStore) a;
+			VectorStore sb = (VectorStore) b;
+			
+			double[] ax = sa.xArray(), ay = sa.yArray(), az = sa.zArray();
+			double[] bx = sb.xArray(), by = sb.yArray(), bz = sb.zArray();
+			
+			for (int i = 0; i < sa.size(); i++)
+				out[i] = ax[i] * bx[i] + ay[i] * by[i] + az[i] * bz[i];
+			
+			return out;
+		}
+		
+		for (int i = 0; i < a.size(); i++)
+			out[i] = a.getX(i) * b.getX(i) + a.getY(i) * b.getY(i) + a.getZ(i) * b.getZ(i);
+		
+		return out;
+	}
+	
+	/**
+	 * Finds the dot product of every vector in one source with every vector in another
+	 * @param a The first vectors, the rows of the result
+	 * @param b The second vectors, the columns of the result
+	 * @param out Where to write the dot products, out[i * b.size() + j] is a[i] . b[j]
+	 * @return out
+	 */
+	public static double[] manyToMany(VectorSource a, VectorSource b, double[] out)
+	{
+		int columns = b.size();
+		double[] ref = new double[3];
+		
+		//Each row is one vector of a against all of b, which is a one to many pass down b's columns
+		double[] row = new double[columns];
+		
+		for (int i = 0; i < a.size(); i++)
+		{
+			ref[0] = a.getX(i);
+			ref[1] = a.getY(i);
+			ref[2] = a.getZ(i);
+			
+			oneToMany(b, ref, row);
+			System.arraycopy(row, 0, out, i * columns, columns);
+		}
+		
+		return out;
+	}
+	
+	/**
+	 * Adds up the dot product of every vector in a source with one reference vector
+	 * @param vectors The vectors
+	 * @param ref The reference vector, 3 long
+	 * @param compensated True to use Kahan summation, which keeps the rounding error from growing with the number of vectors
+	 * @return The sum of vector i . ref over every i
+	 */
+	public static double sumOneToMany(VectorSource vectors, double[] ref, boolean compensated)
+	{
+		double rx = ref[0], ry = ref[1], rz = ref[2];
+		
+		double sum = 0.0;
+		double error = 0.0;
+		
+		for (int i = 0; i < vectors.size(); i++)
+		{
+			double term = vectors.getX(i) * rx + vectors.getY(i) * ry + vectors.getZ(i) * rz;
+			
+			if (compensated)
+			{
+				term -= error;
+				double next = sum + term;
+				error = (next - sum) - term;
+				sum = next;
+			}
+			else
+				sum += term;
+		}
+		
+		return sum;
+	}
+	
+	/**
+	 * The dot product of more than two vectors is taken to be the sum of the dot products of every pair of them.
+	 * Keeping a running total of the vectors seen so far means each vector only has to be dotted once, with that total
+	 * @param c The components of the vectors
+	 * @return The sum of ci . cj over every pair i < j, or the usual dot product for two vectors
+	 */
+	public static double sumOfPairs(double[]... c)
+	{
+		double[] seen = new double[3];
+		double sum = 0.0;
+		
+		for (double[] v : c)
+		{
+			for (int k = 0; k < v.length; k++)
+				sum += v[k] * seen[k];
+			
+			for (int k = 0; k < v.length; k++)
+				seen[k] += v[k];
+		}
+		
+		return sum;
+	}
+}
@@ -0,0 +1,489 @@
+package vectorVisualizer.math;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import vectorVisualizer.math.expr.Expression;
+import vectorVisualizer.vectors.VectorSource;
+import vectorVisualizer.vectors.VectorStore;
+
+/**
+ * Samples a vector field F(p) over a 3d grid into a store, one arrow per grid point with its tail on the point.
+ * The field is an {@link Expression} of the position p, such as {@code <-y(p), x(p), 0>}, evaluated a block of points at a time across a fork/join pool.
+ * The raw samples of the last grid are kept, so when the range or density changes only the points which weren't on the last grid are evaluated again
+ * @author Robert "Drew" Weimer
+ */
+public class FieldSampler
+{
+	/**
+	 * The name of the position in a field's expression
+	 */
+	public static final String POSITION = "p";
+	
+	/**
+	 * How long the longest arrow is, as a fraction of the spacing of the grid, so arrows don't run into each other
+	 */
+	private static final double ARROW_LENGTH = 0.9;
+	
+	/**
+	 * How close a new point has to be to an old one to reuse its sample, as a fraction of the old spacing
+	 */
+	private static final double MATCH_TOLERANCE = 1e-9;
+	
+	/**
+	 * The pool the field is evaluated in
+	 */
+	private ForkJoinPool pool;
+	
+	/**
+	 * The field being sampled
+	 */
+	private Expression field;
+	
+	/**
+	 * The grid last sampled, or null counts if nothing has been sampled since the field was set
+	 */
+	private double[] lastMin, lastStep;
+	private int[] lastCounts;
+	
+	/**
+	 * The raw field at every point of the last grid, x fastest then y then z
+	 */
+	private double[] fx = new double[0], fy = new double[0], fz = new double[0];
+	
+	/**
+	 * Where the next grid's samples are put together, swapped with the raw samples once it's done
+	 */
+	private double[] nextX = new double[0], nextY = new double[0], nextZ = new double[0];
+	
+	/**
+	 * The points of the next grid which have to be evaluated, and their samples, kept between calls so they aren't reallocated
+	 */
+	private int[] missing = new int[0];
+	private double[] missingX = new double[0], missingY = new double[0], missingZ = new double[0];
+	
+	/**
+	 * How many samples the last call reused and how many it evaluated
+	 */
+	private int reused, evaluated;
+	
+	/**
+	 * Creates a sampler which evaluates in the common pool
+	 * @param field The field, a vector expression of p
+	 * @throws IllegalArgumentException If the expression isn't a field
+	 */
+	public FieldSampler(Expression field)
+	{
+		this(field, ForkJoinPool.commonPool());
+	}
+	
+	/**
+	 * Creates a sampler which evaluates in the given pool
+	 * @param field The field, a vector expression of p
+	 * @param pool The pool to evaluate in
+	 * @throws IllegalArgumentException If the expression isn't a field
+	 */
+	public FieldSampler(Expression field, ForkJoinPool pool)
+	{
+		this.pool = pool;
+		setField(field);
+	}
+	
+	/**
+	 * Checks an expression can be used as a field
+	 * @param field The expression
+	 * @throws IllegalArgumentException If it doesn't give a vector, or uses a variable other than p
+	 */
+	public static void check(Expression field)
+	{
+		if (!field.isVector())
+			throw new IllegalArgumentException("A field has to give a vector, \"" + field + "\" gives a number");
+		
+		for (String name : field.getVariables())
+		{
+			if (!name.equals(POSITION))
+				throw new IllegalArgumentException("A field can only use the position " + POSITION + ", \"" + field + "\" uses " + name);
+		}
+	}
+	
+	/**
+	 * Changes the field. Nothing from the old field is reused
+	 * @param field The field, a vector expression of p
+	 * @throws IllegalArgumentException If the expression isn't a field
+	 */
+	public void setField(Expression field)
+	{
+		check(field);
+		
+		this.field = field;
+		lastCounts = null;
+	}
+	
+	/**
+	 * @return The field being sampled
+	 */
+	public Expression getField()
+	{
+		return field;
+	}
+	
+	/**
+	 * @return How many samples the last call to {@link #sample} took from the grid before it
+	 */
+	public int getReused()
+	{
+		return reused;
+	}
+	
+	/**
+	 * @return How many samples the last call to {@link #sample} had to evaluate
+	 */
+	public int getEvaluated()
+	{
+		return evaluated;
+	}
+	
+	/**
+	 * Samples the field over a grid and replaces the contents of a store with an arrow at every point.
+	 * The arrows are scaled together so the longest is a little shorter than the spacing of the grid, and coloured from blue to red by how strong the field is.
+	 * A point where the field isn't finite, such as where it divides by zero, gets no length
+	 * @param min The lowest x, y, and z of the grid
+	 * @param max The highest x, y, and z of the grid
+	 * @param counts The number of points along x, y, and z, at least 1 each
+	 * @param into The store to fill, the ID of each arrow is the index of its point
+	 * @throws IllegalArgumentException If a count isn't at least 1 or there are too many points
+	 */
+	public void sample(double[] min, double[] max, int[] counts, VectorStore into)
+	{
+		long total = (long) counts[0] * counts[1] * counts[2];
+		
+		if (counts[0] < 1 || counts[1] < 1 || counts[2] < 1)
+			throw new IllegalArgumentException("A grid needs at least 1 point along each axis");
+		
+		if (total > Integer.MAX_VALUE - 8)
+			throw new IllegalArgumentException("A grid of " + total + " points is too big");
+		
+		int n = (int) total;
+		double[] step = new double[3];
+		double[][] axes = new double[3][];
+		
+		for (int a = 0; a < 3; a++)
+		{
+			step[a] = counts[a] > 1 ? (max[a] - min[a]) / (counts[a] - 1) : 0;
+			axes[a] = new double[counts[a]];
+			
+			for (int i = 0; i < counts[a]; i++)
+				axes[a][i] = min[a] + i * step[a];
+		}
+		
+		if (nextX.length < n)
+		{
+			nextX = new double[n];
+			nextY = new double[n];
+			nextZ = new double[n];
+			missing = new int[n];
+		}
+		
+		int m = reuse(axes, counts);
+		
+		if (missingX.length < m)
+		{
+			missingX = new double[m];
+			missingY = new double[m];
+			missingZ = new double[m];
+		}
+		
+		Points points = new Points(axes, missing);
+		VectorSource[] sources = field.getVariables().isEmpty() ? new VectorSource[0] : new VectorSource[] { points };
+		
+		pool.invoke(new EvaluateTask(sources, 0, m));
+		
+		reused = n - m;
+		evaluated = m;
+		
+		double[] swap;
+		swap = fx; fx = nextX; nextX = swap;
+		swap = fy; fy = nextY; nextY = swap;
+		swap = fz; fz = nextZ; nextZ = swap;
+		
+		lastMin = min.clone();
+		lastStep = step;
+		lastCounts = counts.clone();
+		
+		//The arrows are all scaled by the strongest sample, so that is found before anything is written
+		double strongest = 0;
+		
+		for (int g = 0; g < n; g++)
+		{
+			double magnitude = Math.sqrt(fx[g] * fx[g] + fy[g] * fy[g] + fz[g] * fz[g]);
+			
+			if (magnitude > strongest && magnitude < Double.POSITIVE_INFINITY)
+				strongest = magnitude;
+		}
+		
+		double spacing = Double.POSITIVE_INFINITY;
+		
+		for (int a = 0; a < 3; a++)
+		{
+			if (step[a] > 0)
+				spacing = Math.min(spacing, step[a]);
+		}
+		
+		if (spacing == Double.POSITIVE_INFINITY)
+			spacing = 1;
+		
+		double scale = strongest > 0 ? ARROW_LENGTH * spacing / strongest : 0;
+		
+		into.setSize(n);
+		pool.invoke(new FillTask(into, axes, counts, scale, strongest, 0, n));
+	}
+	
+	/**
+	 * Copies every sample of the last grid which is also on the new one, and lists the points which aren't
+	 * @param axes The coordinates of the new grid along x, y, and z
+	 * @param counts The number of points along each axis
+	 * @return The number of points which have to be evaluated, listed at the start of {@link #missing}
+	 */
+	private int reuse(double[][] axes, int[] counts)
+	{
+		int[][] old = new int[3][];
+		
+		for (int a = 0; a < 3 && lastCounts != null; a++)
+			old[a] = match(axes[a], lastMin[a], lastStep[a], lastCounts[a]);
+		
+		int m = 0, g = 0;
+		
+		for (int k = 0; k < counts[2]; k++)
+		{
+			for (int j = 0; j < counts[1]; j++)
+			{
+				for (int i = 0; i < counts[0]; i++, g++)
+				{
+					if (lastCounts != null && old[0][i] >= 0 && old[1][j] >= 0 && old[2][k] >= 0)
+					{
+						int from = old[0][i] + lastCounts[0] * (old[1][j] + lastCounts[1] * old[2][k]);
+						
+						nextX[g] = fx[from];
+						nextY[g] = fy[from];
+						nextZ[g] = fz[from];
+					}
+					else
+						missing[m++] = g;
+				}
+			}
+		}
+		
+		return m;
+	}
+	
+	/**
+	 * Finds where each coordinate of a new axis was on the old one
+	 * @param axis The coordinates along the new axis
+	 * @param oldMin The first coordinate of the old axis
+	 * @param oldStep The spacing of the old axis
+	 * @param oldCount The number of points on the old axis
+	 * @return The index on the old axis of each coordinate, or -1 if it wasn't on it
+	 */
+	private static int[] match(double[] axis, double oldMin, double oldStep, int oldCount)
+	{
+		int[] old = new int[axis.length];
+		
+		for (int i = 0; i < axis.length; i++)
+		{
+			if (oldStep == 0)
+			{
+				old[i] = Math.abs(axis[i] - oldMin) <= MATCH_TOLERANCE * Math.max(1, Math.abs(oldMin)) ? 0 : -1;
+				continue;
+			}
+			
+			double f = (axis[i] - oldMin) / oldStep;
+			long r = Math.round(f);
+			
+			old[i] = Math.abs(f - r) <= MATCH_TOLERANCE * Math.max(1, Math.abs(f)) && r >= 0 && r < oldCount ? (int) r : -1;
+		}
+		
+		return old;
+	}
+	
+	/**
+	 * The points of a grid listed by their index, read as vectors so the field's expression can be run down them. Nothing is stored per point
+	 */
+	private static class Points implements VectorSource
+	{
+		private double[] xs, ys, zs;
+		private int nx, ny, nxy;
+		private int[] index;
+		
+		Points(double[][] axes, int[] index)
+		{
+			xs = axes[0];
+			ys = axes[1];
+			zs = axes[2];
+			nx = xs.length;
+			ny = ys.length;
+			nxy = nx * ny;
+			this.index = index;
+		}
+		
+		@Override
+		public int size()
+		{
+			return index.length;
+		}
+		
+		@Override
+		public double getOriginX(int i)
+		{
+			return 0;
+		}
+		
+		@Override
+		public double getOriginY(int i)
+		{
+			return 0;
+		}
+		
+		@Override
+		public double getOriginZ(int i)
+		{
+			return 0;
+		}
+		
+		@Override
+		public double getX(int i)
+		{
+			return xs[index[i] % nx];
+		}
+		
+		@Override
+		public double getY(int i)
+		{
+			return ys[(index[i] / nx) % ny];
+		}
+		
+		@Override
+		public double getZ(int i)
+		{
+			return zs[index[i] / nxy];
+		}
+		
+		@Override
+		public int getColor(int i)
+		{
+			return 0;
+		}
+		
+		@Override
+		public int getID(int i)
+		{
+			return index[i];
+		}
+	}
+	
+	/**
+	 * Evaluates the field at a range of the missing points and puts the samples in their places on the new grid
+	 */
+	private class EvaluateTask extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+		
+		private VectorSource[] sources;
+		private int from, to;
+		
+		EvaluateTask(VectorSource[] sources, int from, int to)
+		{
+			this.sources = sources;
+			this.from = from;
+			this.to = to;
+		}
+		
+		@Override
+		protected void compute()
+		{
+			if (to - from > BulkFunctions.DEFAULT_THRESHOLD)
+			{
+				int mid = (from + to) >>> 1;
+				invokeAll(new EvaluateTask(sources, from, mid), new EvaluateTask(sources, mid, to));
+				return;
+			}
+			
+			field.evaluateColumns(sources, from, to, missingX, missingY, missingZ);
+			
+			for (int i = from; i < to; i++)
+			{
+				int g = missing[i];
+				
+				nextX[g] = missingX[i];
+				nextY[g] = missingY[i];
+				nextZ[g] = missingZ[i];
+			}
+		}
+	}
+	
+	/**
+	 * Writes the arrows for a range of points straight into a store's arrays
+	 */
+	private class FillTask extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+		
+		private VectorStore into;
+		private double[][] axes;
+		private int[] counts;
+		private double scale, strongest;
+		private int from, to;
+		
+		FillTask(VectorStore into, double[][] axes, int[] counts, double scale, double strongest, int from, int to)
+		{
+			this.into = into;
+			this.axes = axes;
+			this.counts = counts;
+			this.scale = scale;
+			this.strongest = strongest;
+			this.from = from;
+			this.to = to;
+		}
+		
+		@Override
+		protected void compute()
+		{
+			if (to - from > BulkFunctions.DEFAULT_THRESHOLD)
+			{
+				int mid = (from + to) >>> 1;
+				invokeAll(new FillTask(into, axes, counts, scale, strongest, from, mid), new FillTask(into, axes, counts, scale, strongest, mid, to));
+				return;
+			}
+			
+			double[] ox = into.originXArray(), oy = into.originYArray(), oz = into.originZArray();
+			double[] x = into.xArray(), y = into.yArray(), z = into.zArray();
+			double[] magnitude = into.magnitudeArray();
+			int[] color = into.colorArray(), id = into.idArray();
+			
+			int nx = counts[0], ny = counts[1];
+			
+			for (int g = from; g < to; g++)
+			{
+				double cx = fx[g], cy = fy[g], cz = fz[g];
+				double length = Math.sqrt(cx * cx + cy * cy + cz * cz);
+				
+				if (!(length < Double.POSITIVE_INFINITY))
+				{
+					cx = cy = cz = length = 0;
+				}
+				
+				ox[g] = axes[0][g % nx];
+				oy[g] = axes[1][(g / nx) % ny];
+				oz[g] = axes[2][g / (nx * ny)];
+				x[g] = cx * scale;
+				y[g] = cy * scale;
+				z[g] = cz * scale;
+				magnitude[g] = length * scale;
+				id[g] = g;
+				
+				//Weak parts of the field are blue and strong parts red
+				float t = strongest > 0 ? (float) (length / strongest) : 0f;
+				color[g] = VectorStore.packColor(1f, t, 0.2f, 1f - t);
+			}
+		}
+	}
+}
@@ -4,6 +4,7 @@ import java.util.ArrayList;
 
 import vectorVisualizer.vectors.Vector;
 import vectorVisualizer.vectors.Vector.VectorType;
+import vectorVisualizer.vectors.VectorStore;
 
 public class Functions 
 {
@@ -19,11 +20,12 @@ public class Functions
 		
 		for (Vector vector : v1)
 		{
-			comps[0] += vector.getComponents()[0];
-			comps[1] += vector.getComponents()[1];
+			double[] c = vector.getComponents();
+			comps[0] += c[0];
+			comps[1] += c[1];
 			//If the vector is 3-d, then we need to add another component.
 			if (vector.getType() == VectorType.threeD);
-				comps[2] += vector.getComponents()[2];
+				comps[2] += c[2];
 		}
 		
 		return new Vector(comps);
@@ -40,11 +42,12 @@ public class Functions
 		
 		for (Vector vector : v1)
 		{
-			comps[0] -= vector.getComponents()[0];
-			comps[1] -= vector.getComponents()[1];
+			double[] c = vector.getComponents();
+			comps[0] -= c[0];
+			comps[1] -= c[1];
 			//If the vector is 3-d, then we need to subtract another component.
 			if (vector.getType() == VectorType.threeD);
-				comps[2] -= vector.getComponents()[2];
+				comps[2] -= c[2];
 		}
 		
 		return new Vector(comps);
@@ -63,84 +66,53 @@ public class Functions
 		if (v1.getType() == VectorType.threeD)
 			components = new double[] {0.0, 0.0, 0.0};
 		
-		for (int i = 0; i < v1.getComponents().length; i++)
-			components[i] = v1.getComponents()[i] * scalar;
+		double[] c = v1.getComponents();
+		
+		for (int i = 0; i < c.length; i++)
+			components[i] = c[i] * scalar;
 		
 		return new Vector(components);
 	}
 	
 	/**
-	 * Returns the dot product of two or more vectors
+	 * Returns the dot product of two or more vectors. For more than two vectors this is the sum of the dot products of every pair of them
 	 * @param v1 The Vectors to dot product
 	 * @return The dot product
 	 */
-	public static int dProduct(Vector... v1)
+	public static double dProduct(Vector... v1)
 	{
-		int int0 = 1;
-		int int1 = 1;
-		int int2 = 0;
-		if (v1[0].getComponents().length == 3)
-			int2 = 1;
+		if (v1.length == 2)
+			return DotProduct.dot(v1[0].getComponents(), v1[1].getComponents());
 		
-		for (Vector vector : v1)
-		{
-			int0 *= vector.getComponents()[0];
-			int1 *= vector.getComponents()[1];
-			//If the vector is 3-d, then we need to multiply another component.
-			if (vector.getType() == VectorType.threeD);
-				int2 *= vector.getComponents()[2];
-		}
+		double[][] c = new double[v1.length][];
 		
-		return int0 + int1 + int2;
+		for (int i = 0; i < v1.length; i++)
+			c[i] = v1[i].getComponents();
+		
+		return DotProduct.sumOfPairs(c);
 	}
 	
 	/**
 	 * Gets the dotProduct of the given vectors.
 	 * @param vectors The vectors to dot product
-	 * @return The dot product of 2 or more given vectors
+	 * @return The dot product of 2 or more given vectors, the sum of the dot products of every pair of them
 	 */
-	public static int dProduct(ArrayList<Vector> vectors)
+	public static double dProduct(ArrayList<Vector> vectors)
 	{
-		int int0 = 1;
-		int int1 = 1;
-		int int2 = 0;
-		if (vectors.get(0).getComponents().length == 3)
-			int2 = 1;
-		
-		for (Vector vector : vectors)
-		{
-			int0 *= vector.getComponents()[0];
-			int1 *= vector.getComponents()[1];
-			//If the vector is 3-d, then we need to multiply another component.
-			if (vector.getType() == VectorType.threeD);
-				int2 *= vector.getComponents()[2];
-		}
-		
-		return int0 + int1 + int2;
+		return dProduct(vectors.toArray(new Vector[vectors.size()]));
 	}
 	
 	/**
 	 * Gets the dot product of vectors based on given components
 	 * @param c1 The components of the vectors
-	 * @return The dot product of 2 or more vectors based on their components
+	 * @return The dot product of 2 or more vectors based on their components, the sum of the dot products of every pair of them
 	 */
-	public static int dProduct(double[]... c1)
+	public static double dProduct(double[]... c1)
 	{
-		int int0 = 1; 
-		int int1 = 1;
-		int int2 = 0;
-		if (c1[0].length == 3)
-			int2 = 1;
-		
-		for (double[] c : c1)
-		{
-			int0 *= c[0];
-			int1 *= c[1];
-			if (c.length == 3)
-				int2 *= c[2];
-		}
+		if (c1.length == 2)
+			return DotProduct.dot(c1[0], c1[1]);
 		
-		return int0 + int1 + int2;
+		return DotProduct.sumOfPairs(c1);
 	}
 	
 	/**
@@ -150,23 +122,11 @@ public class Functions
 	 */
 	public static Vector cProduct(Vector v1, Vector v2)
 	{
-		Vector cProduct = new Vector();	
-		
-		double[] components = new double[] {0.0, 0.0, 0.0};
-		
-		//Make a 2d array of the determinant of the vectors
-		double[][] det1 = new double[][] {new double[] {v1.getComponents()[1], v1.getComponents()[2]}, new double[] {v2.getComponents()[1], v2.getComponents()[2]}};
-		double[][] det2 = new double[][] {new double[] {v1.getComponents()[0], v1.getComponents()[2]}, new double[] {v2.getComponents()[0], v2.getComponents()[2]}}; 
-		double[][] det3 = new double[][] {new double[] {v1.getComponents()[0], v1.getComponents()[1]}, new double[] {v2.getComponents()[0], v2.getComponents()[1]}};
-		
-		components[0] = determinant(det1);
-		components[1] = -determinant(det2);
-		components[2] = determinant(det3);
+		double[] components = new double[3];
 		
-		cProduct = new Vector(components);
-		
-		return cProduct;
+		InPlaceFunctions.crossInto(components, v1.getComponents(), v2.getComponents());
 		
+		return new Vector(components);
 	}
 	
 	/**
@@ -181,8 +141,11 @@ public class Functions
 		if (v1.getType() == VectorType.threeD)
 			components = new double[] {0.0, 0.0, 0.0};
 		
-		for (int i = 0; i < v1.getComponents().length; i++)
-			components[i] = v1.getComponents()[i] / v1.getMagnitude();
+		double[] c = v1.getComponents();
+		double magnitude = v1.getMagnitude();
+		
+		for (int i = 0; i < c.length; i++)
+			components[i] = c[i] / magnitude;
 		
 		return new Vector(components);
 	}
@@ -195,7 +158,10 @@ public class Functions
 	 */
 	public static Vector proj(Vector v1, Vector v2)
 	{
-		return scalarMult(unitVector(v2), comp(v1, v2));
+		//Done in one go as v2 * (v1 . v2) / (v2 . v2) rather than through the unit vector and component, which made two vectors along the way
+		double[] c = v2.getComponents();
+		
+		return new Vector(InPlaceFunctions.projectInto(new double[c.length], v1.getComponents(), c));
 	}
 	
 	/**
@@ -209,15 +175,39 @@ public class Functions
 		return (dProduct(v1, v2) / v2.getMagnitude());
 	}
 	
-	//Make recursive at some point. rn we shoud only ever be dealing in 2x2 and 3x3
 	/**
-	 * Returns the determinant of a 2x2 matrix ONLY
-	 * @param arr a 2x2 matrix
-	 * @return The determinant
+	 * Adds together every vector in a store by running straight down its component arrays
+	 * @param store The vectors to add together
+	 * @return The sum of the vectors
+	 */
+	public static Vector addition(VectorStore store)
+	{
+		double[] x = store.xArray();
+		double[] y = store.yArray();
+		double[] z = store.zArray();
+		
+		double[] comps = new double[] {0.0, 0.0, 0.0};
+		
+		for (int i = 0; i < store.size(); i++)
+		{
+			comps[0] += x[i];
+			comps[1] += y[i];
+			comps[2] += z[i];
+		}
+		
+		return new Vector(comps);
+	}
+	
+	/**
+	 * Gets the dot product of two vectors held in a store without creating any vector objects
+	 * @param store The store holding the vectors
+	 * @param i1 The index of the first vector
+	 * @param i2 The index of the second vector
+	 * @return The dot product of the two vectors
 	 */
-	private static double determinant(double[][] arr)
+	public static double dProduct(VectorStore store, int i1, int i2)
 	{
-		return ((arr[0][0]*arr[1][1]) - (arr[0][1]*arr[1][0]));
+		return store.getX(i1) * store.getX(i2) + store.getY(i1) * store.getY(i2) + store.getZ(i1) * store.getZ(i2);
 	}
 	
 }
@@ -0,0 +1,220 @@
+package vectorVisualizer.math;
+
+import vectorVisualizer.vectors.VectorStore;
+
+/**
+ * The same operations as {@link Functions}, but writing into buffers the caller owns instead of creating new vectors.
+ * Nothing here allocates, so they can be run in tight loops (animation, bulk transforms) without making garbage.
+ * Components are given as double arrays of length 2 or 3, and the destination may be the same array as an input
+ * @author Robert "Drew" Weimer
+ */
+public class InPlaceFunctions
+{
+	/**
+	 * Only static methods
+	 */
+	private InPlaceFunctions()
+	{
+	}
+	
+	/**
+	 * Adds two vectors
+	 * @param dst Where to write a + b
+	 * @param a The first vector
+	 * @param b The second vector
+	 * @return dst
+	 */
+	public static double[] addInto(double[] dst, double[] a, double[] b)
+	{
+		for (int i = 0; i < dst.length; i++)
+			dst[i] = a[i] + b[i];
+		
+		return dst;
+	}
+	
+	/**
+	 * Subtracts one vector from another
+	 * @param dst Where to write a - b
+	 * @param a The vector to subtract from
+	 * @param b The vector to subtract
+	 * @return dst
+	 */
+	public static double[] subtractInto(double[] dst, double[] a, double[] b)
+	{
+		for (int i = 0; i < dst.length; i++)
+			dst[i] = a[i] - b[i];
+		
+		return dst;
+	}
+	
+	/**
+	 * Multiplies each component of a vector by a scalar
+	 * @param dst Where to write a * scalar
+	 * @param a The vector to scale
+	 * @param scalar The scalar to multiply by
+	 * @return dst
+	 */
+	public static double[] scaleInto(double[] dst, double[] a, double scalar)
+	{
+		for (int i = 0; i < dst.length; i++)
+			dst[i] = a[i] * scalar;
+		
+		return dst;
+	}
+	
+	/**
+	 * @param a The first vector
+	 * @param b The second vector
+	 * @return The dot product of a and b
+	 */
+	public static double dot(double[] a, double[] b)
+	{
+		double sum = 0.0;
+		
+		for (int i = 0; i < a.length; i++)
+			sum += a[i] * b[i];
+		
+		return sum;
+	}
+	
+	/**
+	 * @param a The vector
+	 * @return The magnitude of a
+	 */
+	public static double magnitude(double[] a)
+	{
+		return Math.sqrt(dot(a, a));
+	}
+	
+	/**
+	 * Finds the cross product of two 3d vectors
+	 * @param dst Where to write a x b, 3 long
+	 * @param a The first vector
+	 * @param b The second vector
+	 * @return dst
+	 */
+	public static double[] crossInto(double[] dst, double[] a, double[] b)
+	{
+		//Read everything first in case dst is a or b
+		double ax = a[0], ay = a[1], az = a[2];
+		double bx = b[0], by = b[1], bz = b[2];
+		
+		dst[0] = ay * bz - az * by;
+		dst[1] = az * bx - ax * bz;
+		dst[2] = ax * by - ay * bx;
+		
+		return dst;
+	}
+	
+	/**
+	 * Scales a vector to a magnitude of 1, leaving its direction alone. A zero vector is left as it is
+	 * @param a The vector to normalize
+	 * @return The magnitude a had before it was normalized
+	 */
+	public static double normalizeInPlace(double[] a)
+	{
+		double magnitude = magnitude(a);
+		
+		if (magnitude != 0.0)
+			scaleInto(a, a, 1.0 / magnitude);
+		
+		return magnitude;
+	}
+	
+	/**
+	 * Finds the unit vector of a vector. A zero vector gives a zero vector
+	 * @param dst Where to write the unit vector
+	 * @param a The vector
+	 * @return dst
+	 */
+	public static double[] normalizeInto(double[] dst, double[] a)
+	{
+		double magnitude = magnitude(a);
+		
+		return scaleInto(dst, a, magnitude == 0.0 ? 0.0 : 1.0 / magnitude);
+	}
+	
+	/**
+	 * Finds the projection of vector a onto vector b, b * (a . b) / (b . b)
+	 * @param dst Where to write Projba
+	 * @param a The vector to project
+	 * @param b The vector to project onto
+	 * @return dst
+	 */
+	public static double[] projectInto(double[] dst, double[] a, double[] b)
+	{
+		double bb = dot(b, b);
+		
+		return scaleInto(dst, b, bb == 0.0 ? 0.0 : dot(a, b) / bb);
+	}
+	
+	/**
+	 * Copies the components of a vector in a store into a buffer
+	 * @param dst Where to write the components, 3 long
+	 * @param store The store holding the vector
+	 * @param i The index of the vector
+	 * @return dst
+	 */
+	public static double[] load(double[] dst, VectorStore store, int i)
+	{
+		dst[0] = store.getX(i);
+		dst[1] = store.getY(i);
+		dst[2] = store.getZ(i);
+		
+		return dst;
+	}
+	
+	/**
+	 * Finds the cross product of two vectors held in a store
+	 * @param dst Where to write the cross product, 3 long
+	 * @param store The store holding the vectors
+	 * @param i The index of the first vector
+	 * @param j The index of the second vector
+	 * @return dst
+	 */
+	public static double[] crossInto(double[] dst, VectorStore store, int i, int j)
+	{
+		double ax = store.getX(i), ay = store.getY(i), az = store.getZ(i);
+		double bx = store.getX(j), by = store.getY(j), bz = store.getZ(j);
+		
+		dst[0] = ay * bz - az * by;
+		dst[1] = az * bx - ax * bz;
+		dst[2] = ax * by - ay * bx;
+		
+		return dst;
+	}
+	
+	/**
+	 * Finds the projection of one vector in a store onto another
+	 * @param dst Where to write the projection, 3 long
+	 * @param store The store holding the vectors
+	 * @param i The index of the vector to project
+	 * @param j The index of the vector to project onto
+	 * @return dst
+	 */
+	public static double[] projectInto(double[] dst, VectorStore store, int i, int j)
+	{
+		double bx = store.getX(j), by = store.getY(j), bz = store.getZ(j);
+		double bb = bx * bx + by * by + bz * bz;
+		double scale = bb == 0.0 ? 0.0 : (store.getX(i) * bx + store.getY(i) * by + store.getZ(i) * bz) / bb;
+		
+		dst[0] = bx * scale;
+		dst[1] = by * scale;
+		dst[2] = bz * scale;
+		
+		return dst;
+	}
+	
+	/**
+	 * Scales a vector in a store to a magnitude of 1, keeping its start point, ID and colour. A zero vector is left as it is
+	 * @param store The store holding the vector
+	 * @param i The index of the vector
+	 */
+	public static void normalizeInPlace(VectorStore store, int i)
+	{
+		double magnitude = store.getMagnitude(i);
+		
+		if (magnitude != 0.0)
+			store.setComponents(i, store.getX(i) / magnitude, store.getY(i) / magnitude, store.getZ(i) / magnitude);
+	}
+}
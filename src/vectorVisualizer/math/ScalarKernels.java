@@ -0,0 +1,113 @@
+package vectorVisualizer.math;
+
+/**
+ * The batch kernels as plain loops, which work on any JVM
+ * @author Robert "Drew" Weimer
+ */
+public class ScalarKernels implements BatchKernels
+{
+	/**
+	 * Picks the kernels the first time they are asked for
+	 */
+	static class Holder
+	{
+		/**
+		 * The kernels in use
+		 */
+		static final BatchKernels SELECTED = select();
+		
+		/**
+		 * Loads the Vector API kernels if they and the module they need are there, otherwise falls back to the scalar ones
+		 * @return The kernels to use
+		 */
+		private static BatchKernels select()
+		{
+			if ("scalar".equalsIgnoreCase(System.getProperty(KERNELS_PROPERTY)))
+				return new ScalarKernels();
+			
+			try
+			{
+				return (BatchKernels) Class.forName(SIMD_KERNELS).getDeclaredConstructor().newInstance();
+			}
+			catch (ReflectiveOperationException | LinkageError | RuntimeException e)
+			{
+				//Either the simd artifact isn't on the classpath or the JVM wasn't started with --add-modules jdk.incubator.vector
+				return new ScalarKernels();
+			}
+		}
+	}
+	
+	@Override
+	public void dot(double[] x, double[] y, double[] z, int from, int to, double[] ref, double[] out)
+	{
+		DotProduct.oneToMany(x, y, z, from, to, ref, out);
+	}
+	
+	@Override
+	public void cross(double[] x, double[] y, double[] z, int from, int to, double[] ref, double[] outX, double[] outY, double[] outZ)
+	{
+		double rx = ref[0], ry = ref[1], rz = ref[2];
+		
+		for (int i = from; i < to; i++)
+		{
+			double ax = x[i], ay = y[i], az = z[i];
+			
+			outX[i] = ay * rz - az * ry;
+			outY[i] = az * rx - ax * rz;
+			outZ[i] = ax * ry - ay * rx;
+		}
+	}
+	
+	@Override
+	public void scale(double[] x, double[] y, double[] z, int from, int to, double scalar)
+	{
+		for (int i = from; i < to; i++)
+		{
+			x[i] *= scalar;
+			y[i] *= scalar;
+			z[i] *= scalar;
+		}
+	}
+	
+	@Override
+	public void normalize(double[] x, double[] y, double[] z, double[] magnitude, int from, int to)
+	{
+		for (int i = from; i < to; i++)
+		{
+			double m = magnitude[i];
+			
+			if (m == 0.0)
+				continue;
+			
+			double scale = 1.0 / m;
+			
+			x[i] *= scale;
+			y[i] *= scale;
+			z[i] *= scale;
+			magnitude[i] = 1.0;
+		}
+	}
+	
+	@Override
+	public void project(double[] x, double[] y, double[] z, int from, int to, double[] onto, double[] outX, double[] outY, double[] outZ)
+	{
+		double bx = onto[0], by = onto[1], bz = onto[2];
+		double bb = bx * bx + by * by + bz * bz;
+		double inverse = bb == 0.0 ? 0.0 : 1.0 / bb;
+		
+		for (int i = from; i < to; i++)
+		{
+			double scale = (x[i] * bx + y[i] * by + z[i] * bz) * inverse;
+			
+			outX[i] = bx * scale;
+			outY[i] = by * scale;
+			outZ[i] = bz * scale;
+		}
+	}
+	
+	@Override
+	public String getName()
+	{
+		return "scalar";
+	}
+}
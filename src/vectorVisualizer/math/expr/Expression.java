@@ -0,0 +1,310 @@
+package vectorVisualizer.math.expr;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import vectorVisualizer.vectors.VectorSource;
+import vectorVisualizer.vectors.VectorStore;
+
+/**
+ * A compiled vector expression such as {@code proj(a, b) + cross(c, d) * 2}.
+ * Any name that isn't a function is a vector variable. Numbers, {@code <x, y, z>} vector literals, + - * /, brackets, and these functions can be used:
+ * dot, cross, proj, comp, angle, unit, mag, x, y, z (the components), sqrt, and abs.
+ * The expression is compiled once into a tree which writes every step into a fixed slot of a register array,
+ * so evaluating it creates no objects, and it can be run down whole columns of vectors at once with {@link #evaluateColumns},
+ * a block of rows per step, so the tree is walked once per block rather than once per vector
+ * @author Robert "Drew" Weimer
+ */
+public class Expression
+{
+	/**
+	 * How many rows are worked out at once by {@link #evaluateColumns}. Small enough that every column of a block stays in the cache
+	 */
+	private static final int BLOCK = 256;
+	
+	/**
+	 * The text the expression was compiled from
+	 */
+	private final String source;
+	
+	/**
+	 * The root of the compiled tree
+	 */
+	private final Node root;
+	
+	/**
+	 * Where each variable is loaded into the registers, in the order of {@link #variables}
+	 */
+	private final int[] variableSlots;
+	
+	/**
+	 * The names of the variables, in the order they first appear
+	 */
+	private final List<String> variables;
+	
+	/**
+	 * How many doubles of registers the expression needs
+	 */
+	private final int slots;
+	
+	/**
+	 * @param source The text of the expression
+	 */
+	private Expression(String source)
+	{
+		Parser parser = new Parser(source);
+		
+		this.source = source;
+		root = parser.parse();
+		slots = Math.max(parser.getSlots(), 1);
+		
+		variables = Collections.unmodifiableList(new ArrayList<String>(parser.getVariables().keySet()));
+		variableSlots = new int[variables.size()];
+		
+		for (int i = 0; i < variableSlots.length; i++)
+			variableSlots[i] = parser.getVariables().get(variables.get(i)).out;
+	}
+	
+	/**
+	 * Compiles an expression
+	 * @param source The text of the expression
+	 * @return The compiled expression
+	 * @throws IllegalArgumentException If the expression isn't valid, saying what is wrong and where
+	 */
+	public static Expression compile(String source)
+	{
+		return new Expression(source);
+	}
+	
+	/**
+	 * @return The names of the vector variables, in the order they first appear. Values are given to the evaluate methods in this order
+	 */
+	public List<String> getVariables()
+	{
+		return variables;
+	}
+	
+	/**
+	 * @return True if the expression gives a vector, false if it gives a number
+	 */
+	public boolean isVector()
+	{
+		return root.vector;
+	}
+	
+	/**
+	 * @return A new register array big enough for this expression, for use with {@link #evaluateInto}
+	 */
+	public double[] newRegisters()
+	{
+		return new double[slots];
+	}
+	
+	/**
+	 * Evaluates the expression without creating any objects
+	 * @param registers Scratch space from {@link #newRegisters()}. Each thread needs its own
+	 * @param out Where the result is written, 3 components for a vector or 1 for a number
+	 * @param values The components of each variable, in the order of {@link #getVariables()}
+	 * @return out
+	 */
+	public double[] evaluateInto(double[] registers, double[] out, double[]... values)
+	{
+		checkCount(values.length);
+		
+		for (int v = 0; v < values.length; v++)
+		{
+			int slot = variableSlots[v];
+			double[] c = values[v];
+			
+			registers[slot] = c[0];
+			registers[slot + 1] = c[1];
+			registers[slot + 2] = c.length > 2 ? c[2] : 0;
+		}
+		
+		root.eval(registers);
+		
+		out[0] = registers[root.out];
+		
+		if (root.vector)
+		{
+			out[1] = registers[root.out + 1];
+			out[2] = registers[root.out + 2];
+		}
+		
+		return out;
+	}
+	
+	/**
+	 * Evaluates the expression
+	 * @param values The components of each variable, in the order of {@link #getVariables()}
+	 * @return The 3 components of the result if it is a vector, or the 1 number
+	 */
+	public double[] evaluate(double[]... values)
+	{
+		return evaluateInto(newRegisters(), new double[root.vector ? 3 : 1], values);
+	}
+	
+	/**
+	 * Evaluates the expression once for every row of a set of columns. The components of each source are used, their tails are ignored.
+	 * A source holding a single vector is used for every row, so {@code proj(v, a)} can project every vector onto one
+	 * @param sources The vectors for each variable, in the order of {@link #getVariables()}
+	 * @param outX Where the x component of each result is written, or the numbers if the expression gives numbers
+	 * @param outY Where the y component of each result is written, may be null if the expression gives numbers
+	 * @param outZ Where the z component of each result is written, may be null if the expression gives numbers
+	 * @return The number of rows evaluated
+	 * @throws IllegalArgumentException If the sources have different numbers of vectors
+	 */
+	public int evaluateColumns(VectorSource[] sources, double[] outX, double[] outY, double[] outZ)
+	{
+		int rows = rows(sources);
+		evaluateColumns(sources, 0, rows, outX, outY, outZ);
+		return rows;
+	}
+	
+	/**
+	 * Evaluates the expression for a range of rows of a set of columns, the same as {@link #evaluateColumns(VectorSource[], double[], double[], double[])}.
+	 * Each call has its own registers, so different ranges can be evaluated on different threads at once
+	 * @param sources The vectors for each variable, in the order of {@link #getVariables()}
+	 * @param from The first row to evaluate
+	 * @param to The row after the last to evaluate
+	 * @param outX Where the x component, or the number, of each row is written
+	 * @param outY Where the y component of each row is written, may be null if the expression gives numbers
+	 * @param outZ Where the z component of each row is written, may be null if the expression gives numbers
+	 */
+	public void evaluateColumns(VectorSource[] sources, int from, int to, double[] outX, double[] outY, double[] outZ)
+	{
+		checkCount(sources.length);
+		
+		double[][] c = new double[slots][BLOCK];
+		int out = root.out;
+		
+		//Single vectors are the same for every row, so their columns are only filled once
+		for (int v = 0; v < sources.length; v++)
+		{
+			if (sources[v].size() == 1)
+			{
+				int slot = variableSlots[v];
+				
+				Arrays.fill(c[slot], sources[v].getX(0));
+				Arrays.fill(c[slot + 1], sources[v].getY(0));
+				Arrays.fill(c[slot + 2], sources[v].getZ(0));
+			}
+		}
+		
+		for (int start = from; start < to; start += BLOCK)
+		{
+			int n = Math.min(BLOCK, to - start);
+			
+			for (int v = 0; v < sources.length; v++)
+			{
+				if (sources[v].size() == 1)
+					continue;
+				
+				VectorSource source = sources[v];
+				double[] x = c[variableSlots[v]], y = c[variableSlots[v] + 1], z = c[variableSlots[v] + 2];
+				
+				for (int i = 0; i < n; i++)
+				{
+					x[i] = source.getX(start + i);
+					y[i] = source.getY(start + i);
+					z[i] = source.getZ(start + i);
+				}
+			}
+			
+			root.evalColumns(c, n);
+			
+			System.arraycopy(c[out], 0, outX, start, n);
+			
+			if (root.vector)
+			{
+				System.arraycopy(c[out + 1], 0, outY, start, n);
+				System.arraycopy(c[out + 2], 0, outZ, start, n);
+			}
+		}
+	}
+	
+	/**
+	 * Evaluates a vector expression for every row of a set of columns and adds the results to a store, with their tails at the origin.
+	 * Rows which don't give a finite vector, such as the unit vector of a zero vector, are left out.
+	 * The results have no ID, {@link VectorStore#NO_ID}, so the graph gives them the next free ones when they are added
+	 * @param sources The vectors for each variable, in the order of {@link #getVariables()}
+	 * @param into The store to add the results to
+	 * @param color The colour of the results packed as 0xRRGGBBAA
+	 * @return The number of vectors added, which is less than the number of rows if any were left out
+	 * @throws IllegalStateException If the expression gives numbers rather than vectors
+	 */
+	public int evaluateInto(VectorSource[] sources, VectorStore into, int color)
+	{
+		if (!root.vector)
+			throw new IllegalStateException("\"" + source + "\" gives numbers, not vectors");
+		
+		int rows = rows(sources);
+		
+		double[] x = new double[rows];
+		double[] y = new double[rows];
+		double[] z = new double[rows];
+		
+		evaluateColumns(sources, 0, rows, x, y, z);
+		
+		into.ensureCapacity(into.size() + rows);
+		
+		int added = 0;
+		
+		for (int i = 0; i < rows; i++)
+		{
+			//NaN and infinity would end up in the graph's bounds
+			if (!Double.isFinite(x[i]) || !Double.isFinite(y[i]) || !Double.isFinite(z[i]))
+				continue;
+			
+			into.add(x[i], y[i], z[i], VectorStore.NO_ID, color);
+			added++;
+		}
+		
+		return added;
+	}
+	
+	/**
+	 * Works out how many rows a set of sources has, ignoring the single vectors used for every row
+	 * @param sources The vectors for each variable
+	 * @return The number of rows an evaluation over the sources gives, 1 if every source is a single vector
+	 * @throws IllegalArgumentException If the sources don't all have the same number of vectors
+	 */
+	public static int rows(VectorSource[] sources)
+	{
+		int rows = -1;
+		
+		for (VectorSource s : sources)
+		{
+			if (s.size() == 1)
+				continue;
+			
+			if (rows != -1 && s.size() != rows)
+				throw new IllegalArgumentException("The columns have different numbers of vectors: " + rows + " and " + s.size());
+			
+			rows = s.size();
+		}
+		
+		//Every source is a single vector, or there are none at all
+		if (rows == -1)
+			return 1;
+		
+		return rows;
+	}
+	
+	/**
+	 * Makes sure a value has been given for every variable
+	 */
+	private void checkCount(int count)
+	{
+		if (count != variables.size())
+			throw new IllegalArgumentException("\"" + source + "\" has " + variables.size() + " variables " + variables + " but " + count + " values were given");
+	}
+	
+	@Override
+	public String toString()
+	{
+		return source;
+	}
+}
@@ -0,0 +1,595 @@
+package vectorVisualizer.math.expr;
+
+import java.util.Arrays;
+
+/**
+ * One step of a compiled expression. Every node owns a fixed slot in the expression's registers and writes its result there,
+ * three doubles for a vector and one for a number, so evaluating an expression never creates any objects.
+ * Nodes can also work on a block of rows at once, where each slot is a column with a value for every row.
+ * Then each step is one plain loop down its columns, so walking the tree is paid for once per block rather than once per row
+ * @author Robert "Drew" Weimer
+ */
+abstract class Node
+{
+	/**
+	 * Where this node writes its result in the registers
+	 */
+	final int out;
+	
+	/**
+	 * True if this node gives a vector, false if it gives a number
+	 */
+	final boolean vector;
+	
+	/**
+	 * @param out Where this node writes its result in the registers
+	 * @param vector True if this node gives a vector
+	 */
+	Node(int out, boolean vector)
+	{
+		this.out = out;
+		this.vector = vector;
+	}
+	
+	/**
+	 * Works out this node's result, after working out the nodes it depends on
+	 * @param r The registers
+	 */
+	abstract void eval(double[] r);
+	
+	/**
+	 * Works out this node's result for a block of rows, after working out the nodes it depends on
+	 * @param c The register columns
+	 * @param n The number of rows in the block
+	 */
+	abstract void evalColumns(double[][] c, int n);
+	
+	/**
+	 * @return True if this node always gives the same result, so it can be worked out once when the expression is compiled
+	 */
+	abstract boolean isConstant();
+	
+	/**
+	 * A number or vector written straight into the expression, or anything worked out from only those
+	 */
+	static class Constant extends Node
+	{
+		private final double x, y, z;
+		
+		Constant(int out, boolean vector, double x, double y, double z)
+		{
+			super(out, vector);
+			this.x = x;
+			this.y = y;
+			this.z = z;
+		}
+		
+		@Override
+		void eval(double[] r)
+		{
+			r[out] = x;
+			
+			if (vector)
+			{
+				r[out + 1] = y;
+				r[out + 2] = z;
+			}
+		}
+		
+		@Override
+		void evalColumns(double[][] c, int n)
+		{
+			Arrays.fill(c[out], 0, n, x);
+			
+			if (vector)
+			{
+				Arrays.fill(c[out + 1], 0, n, y);
+				Arrays.fill(c[out + 2], 0, n, z);
+			}
+		}
+		
+		@Override
+		boolean isConstant()
+		{
+			return true;
+		}
+	}
+	
+	/**
+	 * A named vector. Its value is loaded into its slot before the expression is evaluated, so there is nothing to do here
+	 */
+	static class Variable extends Node
+	{
+		Variable(int out)
+		{
+			super(out, true);
+		}
+		
+		@Override
+		void eval(double[] r)
+		{
+		}
+		
+		@Override
+		void evalColumns(double[][] c, int n)
+		{
+		}
+		
+		@Override
+		boolean isConstant()
+		{
+			return false;
+		}
+	}
+	
+	/**
+	 * A node worked out from one or more others
+	 */
+	abstract static class Operation extends Node
+	{
+		final Node[] args;
+		
+		Operation(int out, boolean vector, Node... args)
+		{
+			super(out, vector);
+			this.args = args;
+		}
+		
+		@Override
+		final void eval(double[] r)
+		{
+			for (Node arg : args)
+				arg.eval(r);
+			
+			apply(r);
+		}
+		
+		@Override
+		final void evalColumns(double[][] c, int n)
+		{
+			for (Node arg : args)
+				arg.evalColumns(c, n);
+			
+			applyColumns(c, n);
+		}
+		
+		/**
+		 * Works out this node's result from the results of its arguments, which are already in the registers
+		 * @param r The registers
+		 */
+		abstract void apply(double[] r);
+		
+		/**
+		 * Works out this node's result for a block of rows from the results of its arguments, which are already in the register columns
+		 * @param c The register columns
+		 * @param n The number of rows in the block
+		 */
+		abstract void applyColumns(double[][] c, int n);
+		
+		/**
+		 * @return How many slots this node's result takes up
+		 */
+		final int width()
+		{
+			return vector ? 3 : 1;
+		}
+		
+		@Override
+		boolean isConstant()
+		{
+			for (Node arg : args)
+			{
+				if (!arg.isConstant())
+					return false;
+			}
+			
+			return true;
+		}
+	}
+	
+	/**
+	 * Adds or subtracts two vectors or two numbers
+	 */
+	static class Add extends Operation
+	{
+		private final double sign;
+		
+		Add(int out, Node a, Node b, boolean subtract)
+		{
+			super(out, a.vector, a, b);
+			sign = subtract ? -1 : 1;
+		}
+		
+		@Override
+		void apply(double[] r)
+		{
+			int a = args[0].out, b = args[1].out;
+			
+			r[out] = r[a] + sign * r[b];
+			
+			if (vector)
+			{
+				r[out + 1] = r[a + 1] + sign * r[b + 1];
+				r[out + 2] = r[a + 2] + sign * r[b + 2];
+			}
+		}
+		
+		@Override
+		void applyColumns(double[][] c, int n)
+		{
+			for (int k = 0; k < width(); k++)
+			{
+				double[] o = c[out + k], a = c[args[0].out + k], b = c[args[1].out + k];
+				
+				if (sign > 0)
+				{
+					for (int i = 0; i < n; i++)
+						o[i] = a[i] + b[i];
+				}
+				else
+				{
+					for (int i = 0; i < n; i++)
+						o[i] = a[i] - b[i];
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Multiplies a vector or number by a number, or divides it by one
+	 */
+	static class Scale extends Operation
+	{
+		private final boolean divide;
+		
+		/**
+		 * @param value The vector or number to scale
+		 * @param scalar The number to scale it by
+		 * @param divide True to divide by the number instead
+		 */
+		Scale(int out, Node value, Node scalar, boolean divide)
+		{
+			super(out, value.vector, value, scalar);
+			this.divide = divide;
+		}
+		
+		@Override
+		void apply(double[] r)
+		{
+			int a = args[0].out;
+			double s = r[args[1].out];
+			
+			if (divide)
+				s = 1 / s;
+			
+			r[out] = r[a] * s;
+			
+			if (vector)
+			{
+				r[out + 1] = r[a + 1] * s;
+				r[out + 2] = r[a + 2] * s;
+			}
+		}
+		
+		@Override
+		void applyColumns(double[][] c, int n)
+		{
+			double[] s = c[args[1].out];
+			
+			for (int k = 0; k < width(); k++)
+			{
+				double[] o = c[out + k], a = c[args[0].out + k];
+				
+				if (divide)
+				{
+					for (int i = 0; i < n; i++)
+						o[i] = a[i] * (1 / s[i]);
+				}
+				else
+				{
+					for (int i = 0; i < n; i++)
+						o[i] = a[i] * s[i];
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Divides a number by a number. Kept apart from {@link Scale} so it doesn't lose precision going through the reciprocal
+	 */
+	static class Divide extends Operation
+	{
+		Divide(int out, Node a, Node b)
+		{
+			super(out, false, a, b);
+		}
+		
+		@Override
+		void apply(double[] r)
+		{
+			r[out] = r[args[0].out] / r[args[1].out];
+		}
+		
+		@Override
+		void applyColumns(double[][] c, int n)
+		{
+			double[] o = c[out], a = c[args[0].out], b = c[args[1].out];
+			
+			for (int i = 0; i < n; i++)
+				o[i] = a[i] / b[i];
+		}
+	}
+	
+	/**
+	 * Flips the sign of a vector or number
+	 */
+	static class Negate extends Operation
+	{
+		Negate(int out, Node a)
+		{
+			super(out, a.vector, a);
+		}
+		
+		@Override
+		void apply(double[] r)
+		{
+			int a = args[0].out;
+			
+			r[out] = -r[a];
+			
+			if (vector)
+			{
+				r[out + 1] = -r[a + 1];
+				r[out + 2] = -r[a + 2];
+			}
+		}
+		
+		@Override
+		void applyColumns(double[][] c, int n)
+		{
+			for (int k = 0; k < width(); k++)
+			{
+				double[] o = c[out + k], a = c[args[0].out + k];
+				
+				for (int i = 0; i < n; i++)
+					o[i] = -a[i];
+			}
+		}
+	}
+	
+	/**
+	 * Builds a vector from three numbers, such as {@code <1, 2, x(a)>}
+	 */
+	static class Literal extends Operation
+	{
+		Literal(int out, Node x, Node y, Node z)
+		{
+			super(out, true, x, y, z);
+		}
+		
+		@Override
+		void apply(double[] r)
+		{
+			r[out] = r[args[0].out];
+			r[out + 1] = r[args[1].out];
+			r[out + 2] = r[args[2].out];
+		}
+		
+		@Override
+		void applyColumns(double[][] c, int n)
+		{
+			for (int k = 0; k < 3; k++)
+				System.arraycopy(c[args[k].out], 0, c[out + k], 0, n);
+		}
+	}
+	
+	/**
+	 * The built in functions
+	 */
+	enum Function {
+		dot(2, false), cross(2, true), proj(2, true), comp(2, false), angle(2, false), unit(1, true), mag(1, false), x(1, false), y(1, false), z(1, false), sqrt(-1, false), abs(-1, false);
+		
+		/**
+		 * How many vectors the function takes, or -1 if it takes one number
+		 */
+		final int vectors;
+		
+		/**
+		 * True if the function gives a vector
+		 */
+		final boolean result;
+		
+		Function(int vectors, boolean result)
+		{
+			this.vectors = vectors;
+			this.result = result;
+		}
+	}
+	
+	/**
+	 * Calls a built in function. Composite ones like proj are done in one go rather than through the functions they are made of
+	 */
+	static class Call extends Operation
+	{
+		private final Function function;
+		
+		Call(int out, Function function, Node... args)
+		{
+			super(out, function.result, args);
+			this.function = function;
+		}
+		
+		@Override
+		void apply(double[] r)
+		{
+			int a = args[0].out;
+			int b = args.length > 1 ? args[1].out : a;
+			
+			switch (function)
+			{
+				case dot:
+					r[out] = dot(r, a, b);
+					break;
+				
+				case cross:
+					r[out] = r[a + 1] * r[b + 2] - r[a + 2] * r[b + 1];
+					r[out + 1] = r[a + 2] * r[b] - r[a] * r[b + 2];
+					r[out + 2] = r[a] * r[b + 1] - r[a + 1] * r[b];
+					break;
+				
+				case proj:
+				{
+					//proj(a, b) = unit(b) * comp(a, b) = b * (a.b / b.b), and nothing when b has no length, the same as InPlaceFunctions.projectInto
+					double bb = dot(r, b, b);
+					double s = bb == 0 ? 0 : dot(r, a, b) / bb;
+					
+					r[out] = r[b] * s;
+					r[out + 1] = r[b + 1] * s;
+					r[out + 2] = r[b + 2] * s;
+					break;
+				}
+				
+				case comp:
+					r[out] = dot(r, a, b) / Math.sqrt(dot(r, b, b));
+					break;
+				
+				case angle:
+					r[out] = Math.acos(dot(r, a, b) / Math.sqrt(dot(r, a, a) * dot(r, b, b)));
+					break;
+				
+				case unit:
+				{
+					double s = 1 / Math.sqrt(dot(r, a, a));
+					
+					r[out] = r[a] * s;
+					r[out + 1] = r[a + 1] * s;
+					r[out + 2] = r[a + 2] * s;
+					break;
+				}
+				
+				case mag:
+					r[out] = Math.sqrt(dot(r, a, a));
+					break;
+				
+				case x:
+					r[out] = r[a];
+					break;
+				
+				case y:
+					r[out] = r[a + 1];
+					break;
+				
+				case z:
+					r[out] = r[a + 2];
+					break;
+				
+				case sqrt:
+					r[out] = Math.sqrt(r[a]);
+					break;
+				
+				case abs:
+					r[out] = Math.abs(r[a]);
+					break;
+			}
+		}
+		
+		@Override
+		void applyColumns(double[][] c, int n)
+		{
+			int a = args[0].out;
+			int b = args.length > 1 ? args[1].out : a;
+			
+			//sqrt and abs take a number, so there are no y and z columns to look at
+			boolean components = args[0].vector;
+			
+			double[] ax = c[a], ay = components ? c[a + 1] : null, az = components ? c[a + 2] : null;
+			double[] bx = c[b], by = components ? c[b + 1] : null, bz = components ? c[b + 2] : null;
+			double[] ox = c[out], oy = vector ? c[out + 1] : null, oz = vector ? c[out + 2] : null;
+			
+			switch (function)
+			{
+				case dot:
+					for (int i = 0; i < n; i++)
+						ox[i] = ax[i] * bx[i] + ay[i] * by[i] + az[i] * bz[i];
+					break;
+				
+				case cross:
+					for (int i = 0; i < n; i++)
+					{
+						ox[i] = ay[i] * bz[i] - az[i] * by[i];
+						oy[i] = az[i] * bx[i] - ax[i] * bz[i];
+						oz[i] = ax[i] * by[i] - ay[i] * bx[i];
+					}
+					break;
+				
+				case proj:
+					for (int i = 0; i < n; i++)
+					{
+						double bb = bx[i] * bx[i] + by[i] * by[i] + bz[i] * bz[i];
+						double s = bb == 0 ? 0 : (ax[i] * bx[i] + ay[i] * by[i] + az[i] * bz[i]) / bb;
+						
+						ox[i] = bx[i] * s;
+						oy[i] = by[i] * s;
+						oz[i] = bz[i] * s;
+					}
+					break;
+				
+				case comp:
+					for (int i = 0; i < n; i++)
+						ox[i] = (ax[i] * bx[i] + ay[i] * by[i] + az[i] * bz[i]) / Math.sqrt(bx[i] * bx[i] + by[i] * by[i] + bz[i] * bz[i]);
+					break;
+				
+				case angle:
+					for (int i = 0; i < n; i++)
+						ox[i] = Math.acos((ax[i] * bx[i] + ay[i] * by[i] + az[i] * bz[i]) / Math.sqrt((ax[i] * ax[i] + ay[i] * ay[i] + az[i] * az[i]) * (bx[i] * bx[i] + by[i] * by[i] + bz[i] * bz[i])));
+					break;
+				
+				case unit:
+					for (int i = 0; i < n; i++)
+					{
+						double s = 1 / Math.sqrt(ax[i] * ax[i] + ay[i] * ay[i] + az[i] * az[i]);
+						
+						ox[i] = ax[i] * s;
+						oy[i] = ay[i] * s;
+						oz[i] = az[i] * s;
+					}
+					break;
+				
+				case mag:
+					for (int i = 0; i < n; i++)
+						ox[i] = Math.sqrt(ax[i] * ax[i] + ay[i] * ay[i] + az[i] * az[i]);
+					break;
+				
+				case x:
+					System.arraycopy(ax, 0, ox, 0, n);
+					break;
+				
+				case y:
+					System.arraycopy(ay, 0, ox, 0, n);
+					break;
+				
+				case z:
+					System.arraycopy(az, 0, ox, 0, n);
+					break;
+				
+				case sqrt:
+					for (int i = 0; i < n; i++)
+						ox[i] = Math.sqrt(ax[i]);
+					break;
+				
+				case abs:
+					for (int i = 0; i < n; i++)
+						ox[i] = Math.abs(ax[i]);
+					break;
+			}
+		}
+		
+		/**
+		 * @return The dot product of the vectors in two slots
+		 */
+		private static double dot(double[] r, int a, int b)
+		{
+			return r[a] * r[b] + r[a + 1] * r[b + 1] + r[a + 2] * r[b + 2];
+		}
+	}
+}
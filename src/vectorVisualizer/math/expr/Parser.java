@@ -0,0 +1,391 @@
+package vectorVisualizer.math.expr;
+
+import java.util.LinkedHashMap;
+
+/**
+ * Turns the text of an expression into a tree of {@link Node}s, checking as it goes that vectors and numbers are only combined in ways that make sense.
+ * Every node is given its own slot in the registers, and any part of the expression made only of constants is worked out here, once
+ * @author Robert "Drew" Weimer
+ */
+class Parser
+{
+	/**
+	 * The expression being parsed
+	 */
+	private final String source;
+	
+	/**
+	 * Where in the source the parser has got to
+	 */
+	private int pos;
+	
+	/**
+	 * How many register slots have been handed out so far
+	 */
+	private int slots;
+	
+	/**
+	 * The variables, in the order they first appear
+	 */
+	private final LinkedHashMap<String, Node.Variable> variables = new LinkedHashMap<String, Node.Variable>();
+	
+	/**
+	 * @param source The expression to parse
+	 */
+	Parser(String source)
+	{
+		this.source = source;
+	}
+	
+	/**
+	 * Parses the whole expression
+	 * @return The root of the tree
+	 * @throws IllegalArgumentException If the expression isn't valid
+	 */
+	Node parse()
+	{
+		Node root = expression();
+		
+		skipSpace();
+		
+		if (pos < source.length())
+			throw error("Unexpected '" + source.charAt(pos) + "'");
+		
+		return root;
+	}
+	
+	/**
+	 * @return The variables, in the order they first appear
+	 */
+	LinkedHashMap<String, Node.Variable> getVariables()
+	{
+		return variables;
+	}
+	
+	/**
+	 * @return How many register slots the expression needs
+	 */
+	int getSlots()
+	{
+		return slots;
+	}
+	
+	/**
+	 * expression := term (('+' | '-') term)*
+	 */
+	private Node expression()
+	{
+		Node left = term();
+		
+		while (true)
+		{
+			int at = pos;
+			
+			if (accept('+'))
+				left = add(left, term(), false, at);
+			else if (accept('-'))
+				left = add(left, term(), true, at);
+			else
+				return left;
+		}
+	}
+	
+	/**
+	 * term := unary (('*' | '/') unary)*
+	 */
+	private Node term()
+	{
+		Node left = unary();
+		
+		while (true)
+		{
+			int at = pos;
+			
+			if (accept('*'))
+				left = multiply(left, unary(), at);
+			else if (accept('/'))
+				left = divide(left, unary(), at);
+			else
+				return left;
+		}
+	}
+	
+	/**
+	 * unary := '-' unary | primary
+	 */
+	private Node unary()
+	{
+		if (accept('-'))
+		{
+			Node value = unary();
+			return fold(new Node.Negate(allocate(value.vector), value));
+		}
+		
+		return primary();
+	}
+	
+	/**
+	 * primary := number | '&lt;' expression ',' expression ',' expression '&gt;' | '(' expression ')' | name '(' arguments ')' | name
+	 */
+	private Node primary()
+	{
+		skipSpace();
+		
+		if (pos >= source.length())
+			throw error("Unexpected end of expression");
+		
+		char c = source.charAt(pos);
+		
+		if (Character.isDigit(c) || c == '.')
+			return number();
+		
+		if (accept('('))
+		{
+			Node inner = expression();
+			expect(')');
+			return inner;
+		}
+		
+		if (accept('<'))
+		{
+			Node x = scalar(expression(), "A vector's components");
+			expect(',');
+			Node y = scalar(expression(), "A vector's components");
+			expect(',');
+			Node z = scalar(expression(), "A vector's components");
+			expect('>');
+			
+			return fold(new Node.Literal(allocate(true), x, y, z));
+		}
+		
+		if (Character.isLetter(c) || c == '_')
+		{
+			int at = pos;
+			String name = name();
+			
+			if (accept('('))
+				return call(name, at);
+			
+			Node.Variable variable = variables.get(name);
+			
+			if (variable == null)
+			{
+				variable = new Node.Variable(allocate(true));
+				variables.put(name, variable);
+			}
+			
+			return variable;
+		}
+		
+		throw error("Unexpected '" + c + "'");
+	}
+	
+	/**
+	 * Parses a call to one of the built in functions, after its name and opening bracket
+	 */
+	private Node call(String name, int at)
+	{
+		Node.Function function;
+		
+		try
+		{
+			function = Node.Function.valueOf(name);
+		}
+		catch (IllegalArgumentException e)
+		{
+			pos = at;
+			throw error("Unknown function '" + name + "'");
+		}
+		
+		int count = Math.abs(function.vectors);
+		Node[] args = new Node[count];
+		
+		for (int i = 0; i < count; i++)
+		{
+			if (i > 0)
+				expect(',');
+			
+			Node arg = expression();
+			
+			if (function.vectors > 0 && !arg.vector)
+				throw error(name + "() takes vectors, not numbers", at);
+			else if (function.vectors < 0 && arg.vector)
+				throw error(name + "() takes a number, not a vector", at);
+			
+			args[i] = arg;
+		}
+		
+		expect(')');
+		
+		return fold(new Node.Call(allocate(function.result), function, args));
+	}
+	
+	/**
+	 * Adds or subtracts two values of the same kind
+	 */
+	private Node add(Node a, Node b, boolean subtract, int at)
+	{
+		if (a.vector != b.vector)
+			throw error("Can't " + (subtract ? "subtract" : "add") + " a vector and a number", at);
+		
+		return fold(new Node.Add(allocate(a.vector), a, b, subtract));
+	}
+	
+	/**
+	 * Multiplies two numbers, or a vector and a number either way round
+	 */
+	private Node multiply(Node a, Node b, int at)
+	{
+		if (a.vector && b.vector)
+			throw error("Can't multiply two vectors, use dot() or cross()", at);
+		
+		if (b.vector)
+			return fold(new Node.Scale(allocate(true), b, a, false));
+		
+		return fold(new Node.Scale(allocate(a.vector), a, b, false));
+	}
+	
+	/**
+	 * Divides a vector or number by a number
+	 */
+	private Node divide(Node a, Node b, int at)
+	{
+		if (b.vector)
+			throw error("Can't divide by a vector", at);
+		
+		if (a.vector)
+			return fold(new Node.Scale(allocate(true), a, b, true));
+		
+		return fold(new Node.Divide(allocate(false), a, b));
+	}
+	
+	/**
+	 * Checks a value is a number
+	 */
+	private Node scalar(Node value, String what)
+	{
+		if (value.vector)
+			throw error(what + " have to be numbers");
+		
+		return value;
+	}
+	
+	/**
+	 * Works out a node straight away if everything it depends on is constant
+	 */
+	private Node fold(Node node)
+	{
+		if (!(node instanceof Node.Operation) || !node.isConstant())
+			return node;
+		
+		double[] r = new double[slots];
+		node.eval(r);
+		
+		return new Node.Constant(node.out, node.vector, r[node.out], node.vector ? r[node.out + 1] : 0, node.vector ? r[node.out + 2] : 0);
+	}
+	
+	/**
+	 * Hands out the next register slot
+	 * @param vector True if the slot is for a vector
+	 * @return Where the slot starts
+	 */
+	private int allocate(boolean vector)
+	{
+		int slot = slots;
+		slots += vector ? 3 : 1;
+		return slot;
+	}
+	
+	/**
+	 * Reads a number
+	 */
+	private Node number()
+	{
+		int start = pos;
+		
+		while (pos < source.length() && (Character.isDigit(source.charAt(pos)) || source.charAt(pos) == '.'))
+			pos++;
+		
+		//An exponent, such as 1e-3
+		if (pos < source.length() && (source.charAt(pos) == 'e' || source.charAt(pos) == 'E'))
+		{
+			int mark = pos++;
+			
+			if (pos < source.length() && (source.charAt(pos) == '+' || source.charAt(pos) == '-'))
+				pos++;
+			
+			if (pos < source.length() && Character.isDigit(source.charAt(pos)))
+			{
+				while (pos < source.length() && Character.isDigit(source.charAt(pos)))
+					pos++;
+			}
+			else
+				pos = mark;
+		}
+		
+		try
+		{
+			return new Node.Constant(allocate(false), false, Double.parseDouble(source.substring(start, pos)), 0, 0);
+		}
+		catch (NumberFormatException e)
+		{
+			pos = start;
+			throw error("Bad number");
+		}
+	}
+	
+	/**
+	 * Reads a name
+	 */
+	private String name()
+	{
+		int start = pos;
+		
+		while (pos < source.length() && (Character.isLetterOrDigit(source.charAt(pos)) || source.charAt(pos) == '_'))
+			pos++;
+		
+		return source.substring(start, pos);
+	}
+	
+	/**
+	 * Skips any spaces, then moves past the given character if it is next
+	 * @return True if the character was there
+	 */
+	private boolean accept(char c)
+	{
+		skipSpace();
+		
+		if (pos < source.length() && source.charAt(pos) == c)
+		{
+			pos++;
+			return true;
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * Moves past the given character, which has to be next
+	 */
+	private void expect(char c)
+	{
+		if (!accept(c))
+			throw error("Expected '" + c + "'");
+	}
+	
+	private void skipSpace()
+	{
+		while (pos < source.length() && Character.isWhitespace(source.charAt(pos)))
+			pos++;
+	}
+	
+	private IllegalArgumentException error(String message)
+	{
+		return error(message, pos);
+	}
+	
+	private IllegalArgumentException error(String message, int at)
+	{
+		return new IllegalArgumentException(message + " at position " + (at + 1) + " of \"" + source + "\"");
+	}
+}
@@ -0,0 +1,827 @@
+package vectorVisualizer.spatial;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+import vectorVisualizer.vectors.VectorStore;
+
+/**
+ * An octree over one point per vector of a store, either the end point of each vector or the tip of its unit vector.
+ * The tree only holds indices into the store and reads the coordinates from it, so it costs little more than an int and a reference per vector.
+ * The tree is kept up to date as the store changes rather than rebuilt. Vectors added to the end of the store are inserted by {@link #update()}, which queries also call,
+ * a moved vector is taken out of its leaf and put back in at its new point by {@link #moved(int)}, and removed vectors are taken out and the rest renumbered by {@link #removed(int[])}.
+ * Anything else that changes the store needs {@link #invalidate()}, after which the tree is rebuilt on the next query
+ * @author Robert "Drew" Weimer
+ */
+public class Octree
+{
+	/**
+	 * Which point of each vector the tree is built over
+	 */
+	public enum Points {
+		/**
+		 * The point the vector ends at, its tail plus its components
+		 */
+		endPoints,
+		
+		/**
+		 * The tip of the unit vector, for finding vectors by direction. Vectors with no length have no direction and are left out
+		 */
+		directions
+	}
+	
+	/**
+	 * The most vectors a leaf holds before it is split
+	 */
+	private static final int LEAF_CAPACITY = 32;
+	
+	/**
+	 * How deep the tree can go. Past this, leaves just get bigger, which only happens with lots of vectors on the same point
+	 */
+	private static final int MAX_DEPTH = 20;
+	
+	/**
+	 * The vectors in the tree
+	 */
+	private VectorStore store;
+	
+	/**
+	 * Which point of each vector the tree is built over
+	 */
+	private Points points;
+	
+	/**
+	 * The top of the tree, or null if nothing has been inserted
+	 */
+	private Node root;
+	
+	/**
+	 * How many vectors of the store have been looked at. The ones after this are inserted on the next update
+	 */
+	private int indexed;
+	
+	/**
+	 * The leaf each vector that has been looked at is in, or null if it has no point in the tree
+	 */
+	private Node[] leaves = new Node[0];
+	
+	/**
+	 * True if the store has changed in a way that means the tree has to be rebuilt
+	 */
+	private boolean stale;
+	
+	/**
+	 * A cube of space, split into eight smaller cubes once it holds too many vectors
+	 */
+	private static class Node
+	{
+		/**
+		 * The centre of the cube
+		 */
+		private double cx, cy, cz;
+		
+		/**
+		 * Half the width of the cube
+		 */
+		private double half;
+		
+		/**
+		 * The eight smaller cubes, or null while this is a leaf
+		 */
+		private Node[] children;
+		
+		/**
+		 * The indices of the vectors in this leaf
+		 */
+		private int[] items;
+		
+		/**
+		 * How many of the items are used
+		 */
+		private int count;
+		
+		private Node(double cx, double cy, double cz, double half)
+		{
+			this.cx = cx;
+			this.cy = cy;
+			this.cz = cz;
+			this.half = half;
+			items = new int[LEAF_CAPACITY];
+		}
+		
+		/**
+		 * @return Which child a point falls in, one bit per axis
+		 */
+		private int octant(double x, double y, double z)
+		{
+			return (x >= cx ? 1 : 0) | (y >= cy ? 2 : 0) | (z >= cz ? 4 : 0);
+		}
+		
+		/**
+		 * @return True if the point is inside this cube
+		 */
+		private boolean contains(double x, double y, double z)
+		{
+			return Math.abs(x - cx) <= half && Math.abs(y - cy) <= half && Math.abs(z - cz) <= half;
+		}
+		
+		/**
+		 * @return The squared distance from a point to the nearest part of this cube, 0 if it is inside
+		 */
+		private double distanceSquared(double x, double y, double z)
+		{
+			double dx = Math.max(0, Math.abs(x - cx) - half);
+			double dy = Math.max(0, Math.abs(y - cy) - half);
+			double dz = Math.max(0, Math.abs(z - cz) - half);
+			
+			return dx * dx + dy * dy + dz * dz;
+		}
+	}
+	
+	/**
+	 * Creates an octree over the vectors of a store. Nothing is built until the first query
+	 * @param store The vectors to index
+	 * @param points Which point of each vector to index
+	 */
+	public Octree(VectorStore store, Points points)
+	{
+		this.store = store;
+		this.points = points;
+	}
+	
+	/**
+	 * Points the tree at another store which holds the same vectors at the same indices, such as the store a batch built on another thread was handed over to
+	 * @param store The store to read the vectors from from now on
+	 */
+	public void setStore(VectorStore store)
+	{
+		this.store = store;
+	}
+	
+	/**
+	 * Marks the tree as out of date, so it is rebuilt on the next query. Only needed for changes that {@link #update()}, {@link #moved(int)}, and {@link #removed(int[])} don't cover
+	 */
+	public void invalidate()
+	{
+		stale = true;
+	}
+	
+	/**
+	 * Brings the tree up to date with the store, rebuilding it if it is stale and otherwise inserting any vectors added since the last update.
+	 * Queries call this themselves, calling it as soon as vectors are added keeps the work out of the next query
+	 */
+	public void update()
+	{
+		if (stale || indexed > store.size())
+			rebuild();
+		
+		if (leaves.length < store.size())
+			leaves = Arrays.copyOf(leaves, Math.max(store.size(), leaves.length * 3 / 2));
+		
+		for (; indexed < store.size(); indexed++)
+		{
+			leaves[indexed] = null;
+			
+			if (hasPoint(indexed))
+				insert(indexed);
+		}
+	}
+	
+	/**
+	 * Moves a vector to where its point is now, after it was changed in the store. Only its leaf and the one it goes to are touched
+	 * @param i The index of the vector
+	 */
+	public void moved(int i)
+	{
+		//Vectors not looked at yet are put in at their new point by the next update anyway
+		if (stale || i >= indexed)
+			return;
+		
+		if (leaves[i] != null)
+			take(leaves[i], i);
+		
+		leaves[i] = null;
+		
+		if (hasPoint(i))
+			insert(i);
+	}
+	
+	/**
+	 * Takes vectors out of the tree after they were removed from the store, and renumbers the ones after them to match their new indices.
+	 * The nodes stay where they are, so this is one pass over the indices in the tree rather than a rebuild
+	 * @param sortedIndices The indices the vectors were removed from, smallest first and with no repeats, as they were before any was removed
+	 */
+	public void removed(int[] sortedIndices)
+	{
+		if (stale || sortedIndices.length == 0 || sortedIndices[0] >= indexed)
+			return;
+		
+		int gone = 0;
+		
+		for (; gone < sortedIndices.length && sortedIndices[gone] < indexed; gone++)
+		{
+			int i = sortedIndices[gone];
+			
+			if (leaves[i] != null)
+				take(leaves[i], i);
+		}
+		
+		if (root != null)
+			renumber(root, sortedIndices);
+		
+		//The leaf of each vector that is kept moves down with it
+		for (int i = sortedIndices[0], to = i, r = 0; i < indexed; i++)
+		{
+			if (r < gone && sortedIndices[r] == i)
+				r++;
+			else
+				leaves[to++] = leaves[i];
+		}
+		
+		indexed -= gone;
+	}
+	
+	/**
+	 * Lowers every index in a node and everything under it by the number of removed vectors that were before it
+	 */
+	private static void renumber(Node node, int[] sortedIndices)
+	{
+		if (node.children == null)
+		{
+			for (int n = 0; n < node.count; n++)
+			{
+				int i = node.items[n];
+				
+				//Removed vectors are already out of the tree, so this always gives where the index would go
+				if (i > sortedIndices[0])
+					node.items[n] = i + Arrays.binarySearch(sortedIndices, i) + 1;
+			}
+			
+			return;
+		}
+		
+		for (Node child : node.children)
+		{
+			if (child != null)
+				renumber(child, sortedIndices);
+		}
+	}
+	
+	/**
+	 * Throws the tree away and builds it again from every vector in the store, starting from a cube that fits them all so it doesn't have to grow
+	 */
+	private void rebuild()
+	{
+		root = null;
+		indexed = 0;
+		stale = false;
+		
+		double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+		
+		for (int i = 0; i < store.size(); i++)
+		{
+			if (!hasPoint(i))
+				continue;
+			
+			double x = x(i), y = y(i), z = z(i);
+			
+			minX = Math.min(minX, x);
+			minY = Math.min(minY, y);
+			minZ = Math.min(minZ, z);
+			maxX = Math.max(maxX, x);
+			maxY = Math.max(maxY, y);
+			maxZ = Math.max(maxZ, z);
+		}
+		
+		if (minX <= maxX)
+		{
+			double half = Math.max(maxX - minX, Math.max(maxY - minY, maxZ - minZ)) / 2;
+			root = new Node((minX + maxX) / 2, (minY + maxY) / 2, (minZ + maxZ) / 2, Math.max(half, 1e-9));
+		}
+	}
+	
+	/**
+	 * @return True if the vector has a point to put in the tree
+	 */
+	private boolean hasPoint(int i)
+	{
+		if (points == Points.directions && !(store.getMagnitude(i) > 0))
+			return false;
+		
+		//Points at infinity or NaN have nowhere to go in the tree
+		return Double.isFinite(x(i) + y(i) + z(i));
+	}
+	
+	/**
+	 * @return The x coordinate of the indexed point of a vector
+	 */
+	private double x(int i)
+	{
+		if (points == Points.directions)
+			return store.getX(i) / store.getMagnitude(i);
+		
+		return store.getOriginX(i) + store.getX(i);
+	}
+	
+	/**
+	 * @return The y coordinate of the indexed point of a vector
+	 */
+	private double y(int i)
+	{
+		if (points == Points.directions)
+			return store.getY(i) / store.getMagnitude(i);
+		
+		return store.getOriginY(i) + store.getY(i);
+	}
+	
+	/**
+	 * @return The z coordinate of the indexed point of a vector
+	 */
+	private double z(int i)
+	{
+		if (points == Points.directions)
+			return store.getZ(i) / store.getMagnitude(i);
+		
+		return store.getOriginZ(i) + store.getZ(i);
+	}
+	
+	/**
+	 * Puts a vector into the tree, growing the root until it covers the vector's point
+	 * @param i The index of the vector
+	 */
+	private void insert(int i)
+	{
+		double x = x(i), y = y(i), z = z(i);
+		
+		if (root == null)
+			root = new Node(x, y, z, 1);
+		
+		//Double the root towards the point, keeping the old root as one of its children
+		while (!root.contains(x, y, z))
+		{
+			double half = root.half;
+			double cx = root.cx + (x >= root.cx ? half : -half);
+			double cy = root.cy + (y >= root.cy ? half : -half);
+			double cz = root.cz + (z >= root.cz ? half : -half);
+			
+			Node grown = new Node(cx, cy, cz, half * 2);
+			grown.children = new Node[8];
+			grown.items = null;
+			grown.children[grown.octant(root.cx, root.cy, root.cz)] = root;
+			
+			root = grown;
+		}
+		
+		Node node = root;
+		int depth = 0;
+		
+		while (node.children != null)
+		{
+			node = child(node, node.octant(x, y, z));
+			depth++;
+		}
+		
+		add(node, i);
+		leaves[i] = node;
+		
+		if (node.count > LEAF_CAPACITY && depth < MAX_DEPTH)
+			split(node);
+	}
+	
+	/**
+	 * Gets a child of a node, creating it if it doesn't exist yet
+	 * @param node The parent
+	 * @param octant Which child
+	 * @return The child
+	 */
+	private static Node child(Node node, int octant)
+	{
+		Node child = node.children[octant];
+		
+		if (child == null)
+		{
+			double quarter = node.half / 2;
+			
+			child = new Node(node.cx + ((octant & 1) != 0 ? quarter : -quarter),
+							 node.cy + ((octant & 2) != 0 ? quarter : -quarter),
+							 node.cz + ((octant & 4) != 0 ? quarter : -quarter), quarter);
+			
+			node.children[octant] = child;
+		}
+		
+		return child;
+	}
+	
+	/**
+	 * Adds an index to a leaf, growing it if it is full
+	 */
+	private static void add(Node leaf, int i)
+	{
+		if (leaf.count == leaf.items.length)
+			leaf.items = Arrays.copyOf(leaf.items, leaf.items.length * 2);
+		
+		leaf.items[leaf.count++] = i;
+	}
+	
+	/**
+	 * Takes an index out of a leaf, moving the last one into its place
+	 */
+	private static void take(Node leaf, int i)
+	{
+		for (int n = 0; n < leaf.count; n++)
+		{
+			if (leaf.items[n] == i)
+			{
+				leaf.items[n] = leaf.items[--leaf.count];
+				return;
+			}
+		}
+	}
+	
+	/**
+	 * Turns a full leaf into a branch, handing its vectors down to its children
+	 */
+	private void split(Node leaf)
+	{
+		int[] items = leaf.items;
+		int count = leaf.count;
+		
+		leaf.children = new Node[8];
+		leaf.items = null;
+		leaf.count = 0;
+		
+		for (int n = 0; n < count; n++)
+		{
+			int i = items[n];
+			Node child = child(leaf, leaf.octant(x(i), y(i), z(i)));
+			
+			add(child, i);
+			leaves[i] = child;
+		}
+	}
+	
+	/**
+	 * Finds the vector whose point is nearest to the given point
+	 * @param x The x coordinate
+	 * @param y The y coordinate
+	 * @param z The z coordinate
+	 * @return The index of the nearest vector, or -1 if there are none
+	 */
+	public int nearest(double x, double y, double z)
+	{
+		int[] found = nearest(x, y, z, 1);
+		
+		return found.length == 0 ? -1 : found[0];
+	}
+	
+	/**
+	 * Finds the k vectors whose points are nearest to the given point
+	 * @param x The x coordinate
+	 * @param y The y coordinate
+	 * @param z The z coordinate
+	 * @param k How many vectors to find
+	 * @return The indices of up to k vectors, nearest first
+	 */
+	public int[] nearest(double x, double y, double z, int k)
+	{
+		update();
+		
+		Neighbours found = new Neighbours(k);
+		
+		if (root != null && k > 0)
+			nearest(root, x, y, z, found);
+		
+		return found.sorted();
+	}
+	
+	/**
+	 * Searches a node for the nearest vectors, going into the child the point falls in first so the others can usually be skipped
+	 */
+	private void nearest(Node node, double x, double y, double z, Neighbours found)
+	{
+		if (node.distanceSquared(x, y, z) > found.worst())
+			return;
+		
+		if (node.children == null)
+		{
+			for (int n = 0; n < node.count; n++)
+			{
+				int i = node.items[n];
+				
+				double dx = x(i) - x, dy = y(i) - y, dz = z(i) - z;
+				found.offer(i, dx * dx + dy * dy + dz * dz);
+			}
+			
+			return;
+		}
+		
+		int first = node.octant(x, y, z);
+		
+		for (int o = 0; o < 8; o++)
+		{
+			Node child = node.children[o ^ first];
+			
+			if (child != null)
+				nearest(child, x, y, z, found);
+		}
+	}
+	
+	/**
+	 * Finds the k vectors pointing most nearly the same way as the given direction. Only works on a tree over {@link Points#directions}.
+	 * The tips of unit vectors all lie on the unit sphere, where being nearer means a smaller angle, so this is a nearest point search
+	 * @param dx The x component of the direction
+	 * @param dy The y component of the direction
+	 * @param dz The z component of the direction
+	 * @param k How many vectors to find
+	 * @return The indices of up to k vectors, smallest angle first
+	 */
+	public int[] nearestByDirection(double dx, double dy, double dz, int k)
+	{
+		if (points != Points.directions)
+			throw new IllegalStateException("The tree isn't over the directions of the vectors");
+		
+		double length = Math.sqrt(dx * dx + dy * dy + dz * dz);
+		
+		if (length == 0)
+			return new int[0];
+		
+		return nearest(dx / length, dy / length, dz / length, k);
+	}
+	
+	/**
+	 * Finds every vector whose point is inside a box
+	 * @param minX The smallest x of the box
+	 * @param minY The smallest y of the box
+	 * @param minZ The smallest z of the box
+	 * @param maxX The largest x of the box
+	 * @param maxY The largest y of the box
+	 * @param maxZ The largest z of the box
+	 * @return The indices of the vectors in the box, in no particular order
+	 */
+	public int[] inBox(double minX, double minY, double minZ, double maxX, double maxY, double maxZ)
+	{
+		update();
+		
+		IntList found = new IntList();
+		
+		if (root != null)
+			inBox(root, minX, minY, minZ, maxX, maxY, maxZ, found);
+		
+		return found.toArray();
+	}
+	
+	/**
+	 * Collects the vectors of a node that are inside a box, skipping children that don't touch it
+	 */
+	private void inBox(Node node, double minX, double minY, double minZ, double maxX, double maxY, double maxZ, IntList found)
+	{
+		if (node.cx + node.half < minX || node.cx - node.half > maxX
+			|| node.cy + node.half < minY || node.cy - node.half > maxY
+			|| node.cz + node.half < minZ || node.cz - node.half > maxZ)
+			return;
+		
+		if (node.children == null)
+		{
+			for (int n = 0; n < node.count; n++)
+			{
+				int i = node.items[n];
+				double x = x(i), y = y(i), z = z(i);
+				
+				if (x >= minX && x <= maxX && y >= minY && y <= maxY && z >= minZ && z <= maxZ)
+					found.add(i);
+			}
+			
+			return;
+		}
+		
+		for (Node child : node.children)
+		{
+			if (child != null)
+				inBox(child, minX, minY, minZ, maxX, maxY, maxZ, found);
+		}
+	}
+	
+	/**
+	 * Finds the vector whose point is nearest to a ray, such as the line under the mouse pointer
+	 * @param ox The x coordinate the ray starts at
+	 * @param oy The y coordinate the ray starts at
+	 * @param oz The z coordinate the ray starts at
+	 * @param dx The x direction of the ray
+	 * @param dy The y direction of the ray
+	 * @param dz The z direction of the ray
+	 * @param maxDistance Vectors further than this from the ray are ignored
+	 * @return The index of the nearest vector, or -1 if none are close enough
+	 */
+	public int nearestToRay(double ox, double oy, double oz, double dx, double dy, double dz, double maxDistance)
+	{
+		update();
+		
+		double length = Math.sqrt(dx * dx + dy * dy + dz * dz);
+		
+		if (root == null || length == 0)
+			return -1;
+		
+		Neighbours found = new Neighbours(1);
+		found.offer(-1, maxDistance * maxDistance);
+		
+		nearestToRay(root, ox, oy, oz, dx / length, dy / length, dz / length, found);
+		
+		return found.sorted()[0];
+	}
+	
+	/**
+	 * Searches a node for the vector nearest to a ray. A node is skipped if its bounding sphere is further from the ray than the best so far
+	 */
+	private void nearestToRay(Node node, double ox, double oy, double oz, double dx, double dy, double dz, Neighbours found)
+	{
+		double reach = Math.sqrt(rayDistanceSquared(node.cx, node.cy, node.cz, ox, oy, oz, dx, dy, dz)) - node.half * Math.sqrt(3);
+		
+		if (reach > 0 && reach * reach > found.worst())
+			return;
+		
+		if (node.children == null)
+		{
+			for (int n = 0; n < node.count; n++)
+			{
+				int i = node.items[n];
+				found.offer(i, rayDistanceSquared(x(i), y(i), z(i), ox, oy, oz, dx, dy, dz));
+			}
+			
+			return;
+		}
+		
+		for (Node child : node.children)
+		{
+			if (child != null)
+				nearestToRay(child, ox, oy, oz, dx, dy, dz, found);
+		}
+	}
+	
+	/**
+	 * Gets the squared distance from a point to a ray. Points behind the start of the ray are measured to its start
+	 * @return The squared distance
+	 */
+	private static double rayDistanceSquared(double x, double y, double z, double ox, double oy, double oz, double dx, double dy, double dz)
+	{
+		double px = x - ox, py = y - oy, pz = z - oz;
+		double t = Math.max(0, px * dx + py * dy + pz * dz);
+		
+		double ex = px - t * dx, ey = py - t * dy, ez = pz - t * dz;
+		
+		return ex * ex + ey * ey + ez * ez;
+	}
+	
+	/**
+	 * @return The number of vectors in the tree
+	 */
+	public int size()
+	{
+		update();
+		
+		return root == null ? 0 : count(root);
+	}
+	
+	/**
+	 * @return The number of vectors in a node and everything under it
+	 */
+	private static int count(Node node)
+	{
+		if (node.children == null)
+			return node.count;
+		
+		int total = 0;
+		
+		for (Node child : node.children)
+		{
+			if (child != null)
+				total += count(child);
+		}
+		
+		return total;
+	}
+	
+	/**
+	 * Keeps the k nearest vectors found so far as a max-heap on distance, so the furthest can be swapped out cheaply
+	 */
+	private static class Neighbours
+	{
+		private int[] indices;
+		private double[] distances;
+		private int size;
+		
+		private Neighbours(int k)
+		{
+			indices = new int[Math.max(k, 0)];
+			distances = new double[Math.max(k, 0)];
+		}
+		
+		/**
+		 * @return The squared distance a vector has to beat to be kept
+		 */
+		private double worst()
+		{
+			return size < indices.length ? Double.POSITIVE_INFINITY : distances[0];
+		}
+		
+		/**
+		 * Keeps a vector if it is nearer than the furthest kept so far
+		 */
+		private void offer(int index, double distance)
+		{
+			if (indices.length == 0)
+				return;
+			
+			if (size < indices.length)
+			{
+				//Sift up from the bottom
+				int c = size++;
+				
+				while (c > 0 && distances[(c - 1) / 2] < distance)
+				{
+					indices[c] = indices[(c - 1) / 2];
+					distances[c] = distances[(c - 1) / 2];
+					c = (c - 1) / 2;
+				}
+				
+				indices[c] = index;
+				distances[c] = distance;
+			}
+			else if (distance < distances[0])
+			{
+				//Replace the furthest and sift down from the top
+				int p = 0;
+				
+				while (true)
+				{
+					int c = 2 * p + 1;
+					
+					if (c >= size)
+						break;
+					
+					if (c + 1 < size && distances[c + 1] > distances[c])
+						c++;
+					
+					if (distances[c] <= distance)
+						break;
+					
+					indices[p] = indices[c];
+					distances[p] = distances[c];
+					p = c;
+				}
+				
+				indices[p] = index;
+				distances[p] = distance;
+			}
+		}
+		
+		/**
+		 * @return The kept indices, nearest first
+		 */
+		private int[] sorted()
+		{
+			Integer[] order = new Integer[size];
+			
+			for (int n = 0; n < size; n++)
+				order[n] = n;
+			
+			Arrays.sort(order, new Comparator<Integer>()
+			{
+				@Override
+				public int compare(Integer a, Integer b)
+				{
+					return Double.compare(distances[a], distances[b]);
+				}
+			});
+			
+			int[] result = new int[size];
+			
+			for (int n = 0; n < size; n++)
+				result[n] = indices[order[n]];
+			
+			return result;
+		}
+	}
+	
+	/**
+	 * A growable list of ints, so range queries don't box every index
+	 */
+	private static class IntList
+	{
+		private int[] values = new int[16];
+		private int size;
+		
+		private void add(int value)
+		{
+			if (size == values.length)
+				values = Arrays.copyOf(values, size * 2);
+			
+			values[size++] = value;
+		}
+		
+		private int[] toArray()
+		{
+			return Arrays.copyOf(values, size);
+		}
+	}
+}
@@ -1,26 +1,26 @@
 package vectorVisualizer.vectors;
 
-import javafx.event.*;
-import javafx.scene.control.CheckBox;
-import javafx.scene.layout.*;
 import javafx.scene.paint.Color;
-import javafx.scene.text.*;
 
 import vectorVisualizer.math.Functions;
-import vectorVisualizer.viewer.Menu;
 
 public class Vector
 {
 	/**
-	 * The magnitude of this vector
+	 * The magnitude of this vector, or NaN until it is first asked for
 	 */
-	private double magnitude;
+	private double magnitude = Double.NaN;
 	
 	/**
-	 * The direction of the vector if its tail is place at the origin
+	 * The direction of the vector if its tail is place at the origin, or null until it is first asked for
 	 */
 	private double[] direction;
 	
+	/**
+	 * The unit vector of this vector, or null until it is first asked for
+	 */
+	private Vector unitVector;
+	
 	/**
 	 * The int array of the components of the vector. 
 	 */
@@ -41,6 +41,16 @@ public class Vector
 	 */
 	private Color color;
 	
+	/**
+	 * The store this vector is a view of, or null if this vector holds its own values
+	 */
+	private VectorStore store;
+	
+	/**
+	 * The index of this vector in its store
+	 */
+	private int index;
+	
 	/**
 	 * There are two types of vectors currently implemented, 2d and 3d
 	 * @author pod
@@ -164,7 +174,20 @@ public class Vector
 	}
 	
 	/**
-	 * Instantiates all variables, because Java is dumb and won't let me call different constructors not as the first line
+	 * Creates a lightweight view of a vector held in a store. Nothing is copied, every getter reads from the store
+	 * @param store The store holding the vector
+	 * @param index The index of the vector in the store
+	 */
+	Vector(VectorStore store, int index)
+	{
+		this.store = store;
+		this.index = index;
+		type = VectorType.threeD;
+	}
+	
+	/**
+	 * Instantiates all variables, because Java is dumb and won't let me call different constructors not as the first line.
+	 * The magnitude, direction, and unit vector are only worked out the first time they are asked for, so creating a vector costs little more than storing its components
 	 */
 	private void init()
 	{
@@ -172,9 +195,6 @@ public class Vector
 			type = VectorType.twoD;
 		else
 			type = VectorType.threeD;
-		
-		magnitude = calculateMagnitude();
-		calculateDirection();
 	}
 	
 	/**
@@ -187,71 +207,37 @@ public class Vector
 		components = new double[] {0.0, 0.0, 0.0};
 	}
 	
-	/**
-	 * Determines the magnitude of this vector
-	 * @return the magnitude
-	 */
-	private double calculateMagnitude()
-	{
-		//Takes the square root of all the components squared and added together. 
-		double sqrtInside = 0.0;
-		
-		for (int i = 0; i < components.length; i++)
-			sqrtInside += Math.pow((components[i]), 2);
-		
-		return Math.sqrt(sqrtInside);
-	}
-	
 	/**
 	 * Calculates the magnitude of a vector in component form
 	 * @param c1 The components of the vector
 	 * @return The magnitude of the vector
 	 */
-	private double calculateMagnitude(double[] c1)
+	private static double calculateMagnitude(double[] c1)
 	{
 		//Takes the square root of all the components squared and added together. 
 		double sqrtInside = 0.0;
 		
 		for (int i = 0; i < c1.length; i++)
-			sqrtInside += Math.pow((c1[i]), 2);
+			sqrtInside += c1[i] * c1[i];
 		
 		return Math.sqrt(sqrtInside);
 	}
 	
 	/**
-	 * Calculates the direction of the vector if its tail is placed at the origin
-	 * @return the angle between the x-axis and the vector in degrees
+	 * Calculates the direction of a vector if its tail is placed at the origin.
+	 * The angle to each axis is the arccosine of the direction cosine, the component along that axis divided by the magnitude, so no axis vectors are needed
+	 * @param c The components of the vector
+	 * @param magnitude The magnitude of the vector
+	 * @return The angles between the x, y (and z for 3d vectors) axes and the vector in radians
 	 */
-	private void calculateDirection()
+	private static double[] calculateDirection(double[] c, double magnitude)
 	{
-		//The three different angles
-		double angleAlpha; //x-axis angle
-		double angleBeta; //y-xis angle
-		double angleGamma; //z-axis angle
-		
-		//The vectors representing the axes
-		double[] xVector = new double[] {1.0, 0.0};
-		double[] yVector = new double[] {0.0, 1.0};
-		double[] zVector = new double[] {0.0, 0.0};
-		
-		//If we're using a 3d vector, then we need to make the axes 3d
-		if (this.getType() == VectorType.threeD)
-		{
-			xVector = new double[] {1.0, 0.0, 0.0};
-			yVector = new double[] {0.0, 1.0, 0.0};
-			zVector = new double[] {0.0, 0.0, 1.0};
-		}
+		double[] angles = new double[c.length];
 		
-		//Calculate the angle between the axes and this vector
-		angleAlpha = angleBetweenVectors(this.components, xVector);
-		angleBeta = angleBetweenVectors(this.components, yVector);
-		angleGamma = angleBetweenVectors(this.components, zVector);
+		for (int i = 0; i < c.length; i++)
+			angles[i] = Math.acos(c[i] / magnitude);
 		
-		//Set our direction as 2d or 3d depending on the type.
-		if (this.getType() == VectorType.threeD)
-			direction = new double[] {angleAlpha, angleBeta, angleGamma};
-		else
-			direction = new double[] {angleAlpha, angleBeta};
+		return angles;
 	}
 	
 	/**
@@ -266,30 +252,32 @@ public class Vector
 	}
 	
 	/**
-	 * Finds the angle between two vector components, c1 and c2
-	 * @param c1 The components of the first vector
-	 * @param c2 The components of the second vector
-	 * @return The angle between vectors
-	 */
-	private double angleBetweenVectors(double[] c1, double[] c2)
-	{
-		return Math.acos(Functions.dProduct(c1, c2) / (calculateMagnitude(c1) * calculateMagnitude(c2)));
-	}
-	
-	/**
-	 * @return The unit vector of this vector, which is a vector in the same direction but magnitude 1
+	 * @return The unit vector of this vector, which is a vector in the same direction but magnitude 1. It is worked out once and reused
 	 */
 	public Vector getUnitVector()
 	{
-		double[] c = new double[3];
+		//Views read from a store that can change underneath them, so they always work it out fresh
+		if (unitVector != null && store == null)
+			return unitVector;
 		
-		c[0] = this.components[0] / this.magnitude;
-		c[1] = this.components[1] / this.magnitude;
-		c[2] = this.components[2] / this.magnitude;
+		double[] components = getComponents();
+		double magnitude = getMagnitude();
+		
+		double[] c = new double[components.length];
+		
+		for (int i = 0; i < c.length; i++)
+			c[i] = components[i] / magnitude;
 		
 		Color newColor = Color.BLACK;
 		
-		Vector vector = new Vector(c, vectorID, newColor);
+		Vector vector = new Vector(c, getID(), newColor);
+		
+		//A unit vector is its own unit vector, and its magnitude is 1 by definition
+		vector.magnitude = 1.0;
+		vector.unitVector = vector;
+		
+		if (store == null)
+			unitVector = vector;
 		
 		return vector;
 	}
@@ -299,6 +287,9 @@ public class Vector
 	 */
 	public int getID()
 	{
+		if (store != null)
+			return store.getID(index);
+		
 		return vectorID;
 	}
 	
@@ -307,6 +298,9 @@ public class Vector
 	 */
 	public double[] getComponents()
 	{
+		if (store != null)
+			return store.getComponents(index);
+		
 		return components;
 	}
 	
@@ -323,14 +317,27 @@ public class Vector
 	 */
 	public double getMagnitude()
 	{
+		if (store != null)
+			return store.getMagnitude(index);
+		
+		if (Double.isNaN(magnitude))
+			magnitude = calculateMagnitude(components);
+		
 		return magnitude;
 	}
 	
 	/**
-	 * @return The x, y, and z directions of this vector
+	 * @return The x, y, and z directions of this vector. The array is shared, so don't change it
 	 */
 	public double[] getDirection()
 	{
+		//Views don't keep a direction of their own, so work it out from the store when asked
+		if (store != null)
+			return calculateDirection(store.getComponents(index), store.getMagnitude(index));
+		
+		if (direction == null)
+			direction = calculateDirection(components, getMagnitude());
+		
 		return direction;
 	}
 	
@@ -339,9 +346,56 @@ public class Vector
 	 */
 	public Color getColor()
 	{
+		if (store != null)
+		{
+			int rgba = store.getColor(index);
+			return Color.rgb(rgba >>> 24, (rgba >>> 16) & 0xFF, (rgba >>> 8) & 0xFF, (rgba & 0xFF) / 255.0);
+		}
+		
 		return color;
 	}
 	
+	/**
+	 * @return The store this vector is a view of, or null if it holds its own values
+	 */
+	public VectorStore getStore()
+	{
+		return store;
+	}
+	
+	/**
+	 * @return The index of this vector in its store. Only meaningful if {@link #getStore()} is not null
+	 */
+	public int getIndex()
+	{
+		return index;
+	}
+	
+	/**
+	 * Two views are equal if they look at the same index of the same store. Other vectors are only equal to themselves
+	 */
+	@Override
+	public boolean equals(Object o)
+	{
+		if (this == o)
+			return true;
+		
+		if (store == null || !(o instanceof Vector))
+			return false;
+		
+		Vector other = (Vector) o;
+		return store == other.store && index == other.index;
+	}
+	
+	@Override
+	public int hashCode()
+	{
+		if (store == null)
+			return super.hashCode();
+		
+		return System.identityHashCode(store) * 31 + index;
+	}
+	
 	/**
 	 * Converts the vector to a String format. 
 	 * ex. <a, b, c>
@@ -349,6 +403,7 @@ public class Vector
 	public String toString()
 	{
 		String output = "";
+		double[] components = getComponents();
 		
 		output = "<" + components[0] + ", " + components[1];
 		
@@ -359,58 +414,5 @@ public class Vector
 		
 		return output;
 	}
-	
-	/**
-	 * @param menu The menu object of the current instance
-	 * @return A stackpane object to be placed into the menu
-	 */
-	public StackPane display(Menu menu)
-	{
-		//Create the gridpane for the vector info
-		GridPane info = new GridPane();
-		
-		info.setGridLinesVisible(true);
-		
-		//The checkbox to select this vector when viewing its info or doing math
-		CheckBox select = new CheckBox();
-		
-		//The name and ID of this vector
-		Text name = new Text();
-		name.setText("Vector" + vectorID);
-		name.setFont(Font.font("Arial", FontWeight.SEMI_BOLD, 20));
-		
-		//We need to pass our current vector, and this was the easiest way since using this inside of the setOnAction method would instead grab the EventHandler object
-		Vector thisVector = this;
-		
-		//When we select the vector, make it selected. Simple as that.
-		select.setOnAction(new EventHandler<ActionEvent>()
-		{
-			@Override
-			/**
-			 * Sets the vector as selected depending on the state of the checkbox
-			 */
-			public void handle(ActionEvent arg0)
-			{
-				if (select.isSelected())
-					menu.addSelectedVector(thisVector);
-				else
-					menu.removeSelectedVector(thisVector);
-			}
-			
-		});
-		
-		//Make the background of our vector object the same colour as it is on the graph.
-		Background background = new Background(new BackgroundFill[] {new BackgroundFill(color, null, null)});
-		
-		info.setBackground(background);
-		
-		info.add(name, 0, 0);
-		info.add(select, 1, 0);
-		
-		//Create our pane, add everything to it, then return it
-		StackPane pane = new StackPane();
-		pane.getChildren().add(info);
-		return pane;
-	}
 
 }
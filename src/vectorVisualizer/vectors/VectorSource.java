@@ -0,0 +1,62 @@
+package vectorVisualizer.vectors;
+
+/**
+ * Anything that can be read as an indexed collection of 3d vectors without creating an object per vector.
+ * Used to hand whole batches of vectors over at once
+ * @author Robert "Drew" Weimer
+ */
+public interface VectorSource
+{
+	/**
+	 * @return The number of vectors
+	 */
+	int size();
+	
+	/**
+	 * @param i The index of the vector
+	 * @return The x coordinate of the tail
+	 */
+	double getOriginX(int i);
+	
+	/**
+	 * @param i The index of the vector
+	 * @return The y coordinate of the tail
+	 */
+	double getOriginY(int i);
+	
+	/**
+	 * @param i The index of the vector
+	 * @return The z coordinate of the tail
+	 */
+	double getOriginZ(int i);
+	
+	/**
+	 * @param i The index of the vector
+	 * @return The x component
+	 */
+	double getX(int i);
+	
+	/**
+	 * @param i The index of the vector
+	 * @return The y component
+	 */
+	double getY(int i);
+	
+	/**
+	 * @param i The index of the vector
+	 * @return The z component
+	 */
+	double getZ(int i);
+	
+	/**
+	 * @param i The index of the vector
+	 * @return The colour of the vector packed as 0xRRGGBBAA
+	 */
+	int getColor(int i);
+	
+	/**
+	 * @param i The index of the vector
+	 * @return The ID of the vector
+	 */
+	int getID(int i);
+}
@@ -0,0 +1,593 @@
+package vectorVisualizer.vectors;
+
+import java.util.Arrays;
+
+/**
+ * Holds a large collection of 3d vectors as parallel primitive arrays (structure of arrays) instead of one object per vector.
+ * Each vector is identified by its index, and lightweight {@link Vector} views can be handed out with {@link #get(int)}
+ * @author Robert "Drew" Weimer
+ */
+public class VectorStore implements VectorSource
+{
+	/**
+	 * The capacity of a store created without one
+	 */
+	private static final int DEFAULT_CAPACITY = 16;
+	
+	/**
+	 * The ID of a vector which hasn't been given one yet. The graph gives such vectors the next free ID when they are added to it
+	 */
+	public static final int NO_ID = Integer.MIN_VALUE;
+	
+	/**
+	 * The x, y, and z coordinates of the tail (start point) of each vector
+	 */
+	private double[] originX, originY, originZ;
+	
+	/**
+	 * The x, y, and z components of each vector
+	 */
+	private double[] x, y, z;
+	
+	/**
+	 * The magnitude of each vector
+	 */
+	private double[] magnitude;
+	
+	/**
+	 * The colour of each vector packed as 0xRRGGBBAA
+	 */
+	private int[] rgba;
+	
+	/**
+	 * The ID of each vector
+	 */
+	private int[] ids;
+	
+	/**
+	 * The number of vectors currently held
+	 */
+	private int size;
+	
+	/**
+	 * Creates an empty store
+	 */
+	public VectorStore()
+	{
+		this(DEFAULT_CAPACITY);
+	}
+	
+	/**
+	 * Creates an empty store that can hold the given number of vectors before it has to grow
+	 * @param capacity The initial capacity
+	 */
+	public VectorStore(int capacity)
+	{
+		capacity = Math.max(capacity, 1);
+		
+		originX = new double[capacity];
+		originY = new double[capacity];
+		originZ = new double[capacity];
+		x = new double[capacity];
+		y = new double[capacity];
+		z = new double[capacity];
+		magnitude = new double[capacity];
+		rgba = new int[capacity];
+		ids = new int[capacity];
+	}
+	
+	/**
+	 * Packs a colour given as floats between 0 and 1 into a single int
+	 * @param a The alpha value of the colour
+	 * @param r The red value
+	 * @param g The green value
+	 * @param b The blue value
+	 * @return The colour packed as 0xRRGGBBAA
+	 */
+	public static int packColor(float a, float r, float g, float b)
+	{
+		return (toByte(r) << 24) | (toByte(g) << 16) | (toByte(b) << 8) | toByte(a);
+	}
+	
+	/**
+	 * Converts a colour channel between 0 and 1 to a value between 0 and 255
+	 * @param channel The channel to convert
+	 * @return The channel as an int between 0 and 255
+	 */
+	private static int toByte(float channel)
+	{
+		return Math.round(Math.max(0f, Math.min(1f, channel)) * 255f);
+	}
+	
+	/**
+	 * Makes sure there is room for at least the given number of vectors
+	 * @param capacity The number of vectors the store must be able to hold
+	 */
+	public void ensureCapacity(int capacity)
+	{
+		if (capacity <= x.length)
+			return;
+		
+		//Grow by half again, or straight to the requested capacity if that is bigger
+		int newCapacity = Math.max(capacity, x.length + (x.length >> 1));
+		
+		originX = Arrays.copyOf(originX, newCapacity);
+		originY = Arrays.copyOf(originY, newCapacity);
+		originZ = Arrays.copyOf(originZ, newCapacity);
+		x = Arrays.copyOf(x, newCapacity);
+		y = Arrays.copyOf(y, newCapacity);
+		z = Arrays.copyOf(z, newCapacity);
+		magnitude = Arrays.copyOf(magnitude, newCapacity);
+		rgba = Arrays.copyOf(rgba, newCapacity);
+		ids = Arrays.copyOf(ids, newCapacity);
+	}
+	
+	/**
+	 * Adds a vector with its tail at the origin
+	 * @param cx The x component
+	 * @param cy The y component
+	 * @param cz The z component
+	 * @param ID The ID of the vector
+	 * @param color The colour of the vector packed as 0xRRGGBBAA
+	 * @return The index of the new vector
+	 */
+	public int add(double cx, double cy, double cz, int ID, int color)
+	{
+		return add(0, 0, 0, cx, cy, cz, ID, color);
+	}
+	
+	/**
+	 * Adds a vector with its tail at the given point
+	 * @param ox The x coordinate of the tail
+	 * @param oy The y coordinate of the tail
+	 * @param oz The z coordinate of the tail
+	 * @param cx The x component
+	 * @param cy The y component
+	 * @param cz The z component
+	 * @param ID The ID of the vector
+	 * @param color The colour of the vector packed as 0xRRGGBBAA
+	 * @return The index of the new vector
+	 */
+	public int add(double ox, double oy, double oz, double cx, double cy, double cz, int ID, int color)
+	{
+		ensureCapacity(size + 1);
+		
+		int i = size++;
+		
+		set(i, ox, oy, oz, cx, cy, cz, ID, color);
+		
+		return i;
+	}
+	
+	/**
+	 * Adds a copy of a vector object with its tail at the origin. 2d vectors get a z component of 0
+	 * @param v The vector to add
+	 * @return The index of the new vector
+	 */
+	public int add(Vector v)
+	{
+		double[] c = v.getComponents();
+		double cz = c.length > 2 ? c[2] : 0.0;
+		
+		int color = 0x000000FF;
+		
+		if (v.getColor() != null)
+			color = packColor((float) v.getColor().getOpacity(), (float) v.getColor().getRed(), (float) v.getColor().getGreen(), (float) v.getColor().getBlue());
+		
+		return add(c[0], c[1], cz, v.getID(), color);
+	}
+	
+	/**
+	 * Adds every vector of a source to the end of this store
+	 * @param source The vectors to add
+	 */
+	public void addAll(VectorSource source)
+	{
+		int count = source.size();
+		ensureCapacity(size + count);
+		
+		//Another store is copied a column at a time, which is the difference between a few milliseconds and a pass per vector for millions of them
+		if (source instanceof VectorStore)
+		{
+			VectorStore other = (VectorStore) source;
+			
+			System.arraycopy(other.originX, 0, originX, size, count);
+			System.arraycopy(other.originY, 0, originY, size, count);
+			System.arraycopy(other.originZ, 0, originZ, size, count);
+			System.arraycopy(other.x, 0, x, size, count);
+			System.arraycopy(other.y, 0, y, size, count);
+			System.arraycopy(other.z, 0, z, size, count);
+			System.arraycopy(other.magnitude, 0, magnitude, size, count);
+			System.arraycopy(other.rgba, 0, rgba, size, count);
+			System.arraycopy(other.ids, 0, ids, size, count);
+			
+			size += count;
+			return;
+		}
+		
+		for (int i = 0; i < count; i++)
+		{
+			int j = size++;
+			set(j, source.getOriginX(i), source.getOriginY(i), source.getOriginZ(i), source.getX(i), source.getY(i), source.getZ(i), source.getID(i), source.getColor(i));
+		}
+	}
+	
+	/**
+	 * Moves every vector of another store to the end of this one, leaving the other store empty.
+	 * If this store is empty and too small, it takes over the other store's arrays rather than growing and copying into its own, which makes it free however many vectors there are
+	 * @param other The store to move the vectors out of
+	 */
+	public void takeAll(VectorStore other)
+	{
+		if (size > 0 || other.size <= x.length)
+		{
+			addAll(other);
+			other.clear();
+			return;
+		}
+		
+		double[] swap;
+		swap = originX; originX = other.originX; other.originX = swap;
+		swap = originY; originY = other.originY; other.originY = swap;
+		swap = originZ; originZ = other.originZ; other.originZ = swap;
+		swap = x; x = other.x; other.x = swap;
+		swap = y; y = other.y; other.y = swap;
+		swap = z; z = other.z; other.z = swap;
+		swap = magnitude; magnitude = other.magnitude; other.magnitude = swap;
+		
+		int[] swapInts;
+		swapInts = rgba; rgba = other.rgba; other.rgba = swapInts;
+		swapInts = ids; ids = other.ids; other.ids = swapInts;
+		
+		size = other.size;
+		other.size = 0;
+	}
+	
+	/**
+	 * Replaces the vector at the given index
+	 * @param i The index of the vector to replace
+	 * @param ox The x coordinate of the tail
+	 * @param oy The y coordinate of the tail
+	 * @param oz The z coordinate of the tail
+	 * @param cx The x component
+	 * @param cy The y component
+	 * @param cz The z component
+	 * @param ID The ID of the vector
+	 * @param color The colour of the vector packed as 0xRRGGBBAA
+	 */
+	public void set(int i, double ox, double oy, double oz, double cx, double cy, double cz, int ID, int color)
+	{
+		checkIndex(i);
+		
+		originX[i] = ox;
+		originY[i] = oy;
+		originZ[i] = oz;
+		x[i] = cx;
+		y[i] = cy;
+		z[i] = cz;
+		magnitude[i] = Math.sqrt(cx * cx + cy * cy + cz * cz);
+		rgba[i] = color;
+		ids[i] = ID;
+	}
+	
+	/**
+	 * Replaces the components of the vector at the given index, keeping its start point, ID, and colour
+	 * @param i The index of the vector to change
+	 * @param cx The x component
+	 * @param cy The y component
+	 * @param cz The z component
+	 */
+	public void setComponents(int i, double cx, double cy, double cz)
+	{
+		checkIndex(i);
+		
+		x[i] = cx;
+		y[i] = cy;
+		z[i] = cz;
+		magnitude[i] = Math.sqrt(cx * cx + cy * cy + cz * cz);
+	}
+	
+	/**
+	 * Removes the vector at the given index. Every vector after it moves down by one
+	 * @param i The index of the vector to remove
+	 */
+	public void remove(int i)
+	{
+		checkIndex(i);
+		
+		int moved = size - i - 1;
+		
+		if (moved > 0)
+		{
+			System.arraycopy(originX, i + 1, originX, i, moved);
+			System.arraycopy(originY, i + 1, originY, i, moved);
+			System.arraycopy(originZ, i + 1, originZ, i, moved);
+			System.arraycopy(x, i + 1, x, i, moved);
+			System.arraycopy(y, i + 1, y, i, moved);
+			System.arraycopy(z, i + 1, z, i, moved);
+			System.arraycopy(magnitude, i + 1, magnitude, i, moved);
+			System.arraycopy(rgba, i + 1, rgba, i, moved);
+			System.arraycopy(ids, i + 1, ids, i, moved);
+		}
+		
+		size--;
+	}
+	
+	/**
+	 * Removes many vectors at once, moving each vector that is kept down only once however many are removed before it
+	 * @param sortedIndices The indices of the vectors to remove, smallest first and with no repeats
+	 * @throws IllegalArgumentException If the indices aren't sorted or repeat one
+	 */
+	public void removeAll(int[] sortedIndices)
+	{
+		if (sortedIndices.length == 0)
+			return;
+		
+		for (int r = 0; r < sortedIndices.length; r++)
+		{
+			checkIndex(sortedIndices[r]);
+			
+			if (r > 0 && sortedIndices[r] <= sortedIndices[r - 1])
+				throw new IllegalArgumentException("The indices have to be sorted with no repeats, " + sortedIndices[r] + " came after " + sortedIndices[r - 1]);
+		}
+		
+		//Each run of kept vectors between two removed ones moves down by the number removed so far
+		int to = sortedIndices[0];
+		
+		for (int r = 0; r < sortedIndices.length; r++)
+		{
+			int from = sortedIndices[r] + 1;
+			int length = (r + 1 < sortedIndices.length ? sortedIndices[r + 1] : size) - from;
+			
+			if (length > 0)
+			{
+				System.arraycopy(originX, from, originX, to, length);
+				System.arraycopy(originY, from, originY, to, length);
+				System.arraycopy(originZ, from, originZ, to, length);
+				System.arraycopy(x, from, x, to, length);
+				System.arraycopy(y, from, y, to, length);
+				System.arraycopy(z, from, z, to, length);
+				System.arraycopy(magnitude, from, magnitude, to, length);
+				System.arraycopy(rgba, from, rgba, to, length);
+				System.arraycopy(ids, from, ids, to, length);
+				
+				to += length;
+			}
+		}
+		
+		size = to;
+	}
+	
+	/**
+	 * Sets the number of vectors held, growing the store if needed, so the backing arrays can be filled in directly.
+	 * Vectors past the old size keep whatever the arrays held, so every column of them has to be written, magnitudes included
+	 * @param size The number of vectors the store holds
+	 */
+	public void setSize(int size)
+	{
+		if (size < 0)
+			throw new IllegalArgumentException("The size can't be negative, was " + size);
+		
+		ensureCapacity(size);
+		this.size = size;
+	}
+	
+	/**
+	 * Removes every vector from the store. The capacity is kept
+	 */
+	public void clear()
+	{
+		size = 0;
+	}
+	
+	/**
+	 * Throws an exception if the index is not one of a held vector
+	 * @param i The index to check
+	 */
+	private void checkIndex(int i)
+	{
+		if (i < 0 || i >= size)
+			throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+	}
+	
+	/**
+	 * Gets a lightweight view of the vector at the given index. The view reads straight from this store
+	 * @param i The index of the vector
+	 * @return A vector object backed by this store
+	 */
+	public Vector get(int i)
+	{
+		checkIndex(i);
+		
+		return new Vector(this, i);
+	}
+	
+	/**
+	 * @return The number of vectors in the store
+	 */
+	@Override
+	public int size()
+	{
+		return size;
+	}
+	
+	/**
+	 * @return True if the store holds no vectors
+	 */
+	public boolean isEmpty()
+	{
+		return size == 0;
+	}
+	
+	/**
+	 * @param i The index of the vector
+	 * @return The x coordinate of the tail
+	 */
+	@Override
+	public double getOriginX(int i)
+	{
+		return originX[i];
+	}
+	
+	/**
+	 * @param i The index of the vector
+	 * @return The y coordinate of the tail
+	 */
+	@Override
+	public double getOriginY(int i)
+	{
+		return originY[i];
+	}
+	
+	/**
+	 * @param i The index of the vector
+	 * @return The z coordinate of the tail
+	 */
+	@Override
+	public double getOriginZ(int i)
+	{
+		return originZ[i];
+	}
+	
+	/**
+	 * @param i The index of the vector
+	 * @return The x component
+	 */
+	@Override
+	public double getX(int i)
+	{
+		return x[i];
+	}
+	
+	/**
+	 * @param i The index of the vector
+	 * @return The y component
+	 */
+	@Override
+	public double getY(int i)
+	{
+		return y[i];
+	}
+	
+	/**
+	 * @param i The index of the vector
+	 * @return The z component
+	 */
+	@Override
+	public double getZ(int i)
+	{
+		return z[i];
+	}
+	
+	/**
+	 * @param i The index of the vector
+	 * @return The magnitude of the vector
+	 */
+	public double getMagnitude(int i)
+	{
+		return magnitude[i];
+	}
+	
+	/**
+	 * @param i The index of the vector
+	 * @return The colour of the vector packed as 0xRRGGBBAA
+	 */
+	@Override
+	public int getColor(int i)
+	{
+		return rgba[i];
+	}
+	
+	/**
+	 * @param i The index of the vector
+	 * @return The ID of the vector
+	 */
+	@Override
+	public int getID(int i)
+	{
+		return ids[i];
+	}
+	
+	/**
+	 * Copies the components of a vector into a new array
+	 * @param i The index of the vector
+	 * @return The x, y, and z components
+	 */
+	public double[] getComponents(int i)
+	{
+		return new double[] {x[i], y[i], z[i]};
+	}
+	
+	/**
+	 * The backing arrays are exposed so the math can run straight down a column. Only the first {@link #size()} entries are valid
+	 * @return The x components of every vector
+	 */
+	public double[] xArray()
+	{
+		return x;
+	}
+	
+	/**
+	 * @return The y components of every vector. Only the first {@link #size()} entries are valid
+	 */
+	public double[] yArray()
+	{
+		return y;
+	}
+	
+	/**
+	 * @return The z components of every vector. Only the first {@link #size()} entries are valid
+	 */
+	public double[] zArray()
+	{
+		return z;
+	}
+	
+	/**
+	 * @return The x coordinates of the tail of every vector. Only the first {@link #size()} entries are valid
+	 */
+	public double[] originXArray()
+	{
+		return originX;
+	}
+	
+	/**
+	 * @return The y coordinates of the tail of every vector. Only the first {@link #size()} entries are valid
+	 */
+	public double[] originYArray()
+	{
+		return originY;
+	}
+	
+	/**
+	 * @return The z coordinates of the tail of every vector. Only the first {@link #size()} entries are valid
+	 */
+	public double[] originZArray()
+	{
+		return originZ;
+	}
+	
+	/**
+	 * @return The magnitude of every vector. Only the first {@link #size()} entries are valid
+	 */
+	public double[] magnitudeArray()
+	{
+		return magnitude;
+	}
+	
+	/**
+	 * @return The colour of every vector packed as 0xRRGGBBAA. Only the first {@link #size()} entries are valid
+	 */
+	public int[] colorArray()
+	{
+		return rgba;
+	}
+	
+	/**
+	 * @return The ID of every vector. Only the first {@link #size()} entries are valid
+	 */
+	public int[] idArray()
+	{
+		return ids;
+	}
+}
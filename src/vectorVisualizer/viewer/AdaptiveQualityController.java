@@ -0,0 +1,305 @@
+package vectorVisualizer.viewer;
+
+import org.jzy3d.chart.AWTChart;
+import org.jzy3d.plot3d.rendering.canvas.OffscreenCanvas;
+import org.jzy3d.plot3d.rendering.canvas.Quality;
+
+import com.jogamp.opengl.GL;
+import com.jogamp.opengl.GL2;
+import com.jogamp.opengl.GLAutoDrawable;
+import com.jogamp.opengl.GLEventListener;
+
+import javafx.animation.PauseTransition;
+import javafx.event.ActionEvent;
+import javafx.event.EventHandler;
+import javafx.util.Duration;
+
+/**
+ * Keeps the frame rate up while the camera moves. It doesn't move the camera itself, a {@link CameraController} does and tells this each time.
+ * As soon as the camera starts moving, alpha blending and smoothing are turned off and the batch of vectors is drawn at a lower level of detail.
+ * Once there has been no input for the idle time, everything is put back and the chart is drawn once more at full quality
+ * @author Robert "Drew" Weimer
+ */
+public class AdaptiveQualityController implements GLEventListener
+{
+	/**
+	 * How long the camera has to be still before full quality comes back, unless changed
+	 */
+	public static final Duration DEFAULT_IDLE_TIME = Duration.millis(250);
+	
+	/**
+	 * How much of its segment budget the batch of vectors uses while the camera moves, unless changed
+	 */
+	public static final float DEFAULT_INTERACTIVE_DETAIL = 0.15f;
+	
+	/**
+	 * The graph that is redrawn as the camera moves
+	 */
+	private Graph graph;
+	
+	/**
+	 * The chart whose quality is lowered
+	 */
+	private AWTChart chart;
+	
+	/**
+	 * The canvas the chart is drawn on
+	 */
+	private OffscreenCanvas canvas;
+	
+	/**
+	 * The drawable this is listening to. The canvas makes a new one whenever it is resized
+	 */
+	private GLAutoDrawable drawable;
+	
+	/**
+	 * Counts down from the last input, then puts full quality back
+	 */
+	private PauseTransition idle = new PauseTransition(DEFAULT_IDLE_TIME);
+	
+	/**
+	 * How much of its segment budget the batch of vectors uses while the camera moves
+	 */
+	private float interactiveDetail = DEFAULT_INTERACTIVE_DETAIL;
+	
+	/**
+	 * True while the chart is being drawn at the cheap quality
+	 */
+	private boolean interacting;
+	
+	/**
+	 * True if the quality has changed since OpenGL was last told about it
+	 */
+	private boolean glStateDirty;
+	
+	/**
+	 * The quality settings as they were before the camera started moving
+	 */
+	private boolean alpha, smoothLine, smoothPoint, smoothPolygon;
+	
+	/**
+	 * The batch drawable whose detail was turned down, and the detail it had, so they can be put back
+	 */
+	private VectorBatchDrawable decimated;
+	private float savedDetail;
+	
+	/**
+	 * Lowers the quality of a chart whenever its camera moves
+	 * @param graph The graph to redraw once the quality is back
+	 * @param chart The chart, which has to be drawn offscreen
+	 * @param camera What moves the chart's camera
+	 * @throws IllegalArgumentException If the chart isn't drawn offscreen
+	 */
+	public AdaptiveQualityController(Graph graph, AWTChart chart, CameraController camera)
+	{
+		if (!(chart.getCanvas() instanceof OffscreenCanvas))
+			throw new IllegalArgumentException("The chart has to be drawn offscreen");
+		
+		this.graph = graph;
+		this.chart = chart;
+		this.canvas = (OffscreenCanvas) chart.getCanvas();
+		
+		idle.setOnFinished(new EventHandler<ActionEvent>()
+		{
+			@Override
+			public void handle(ActionEvent event)
+			{
+				restore();
+			}
+		});
+		
+		camera.addListener(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				interact();
+			}
+		});
+		
+		attach();
+	}
+	
+	/**
+	 * Starts listening to the canvas's current drawable, if it isn't already. Called before each render since resizing the canvas replaces its drawable
+	 */
+	public void attach()
+	{
+		GLAutoDrawable current = canvas.getDrawable();
+		
+		if (current == drawable)
+			return;
+		
+		detach();
+		
+		drawable = current;
+		
+		//This has to run before the chart's own renderer so the quality is set before anything is drawn
+		if (drawable != null)
+		{
+			drawable.addGLEventListener(0, this);
+			glStateDirty = true;
+		}
+	}
+	
+	/**
+	 * Stops listening to the canvas
+	 */
+	public void detach()
+	{
+		if (drawable != null)
+			drawable.removeGLEventListener(this);
+		
+		drawable = null;
+	}
+	
+	/**
+	 * @param time How long the camera has to be still before full quality comes back
+	 */
+	public void setIdleTime(Duration time)
+	{
+		idle.setDuration(time);
+	}
+	
+	/**
+	 * @return How long the camera has to be still before full quality comes back
+	 */
+	public Duration getIdleTime()
+	{
+		return idle.getDuration();
+	}
+	
+	/**
+	 * @param detail How much of its segment budget the batch of vectors uses while the camera moves, between 0 and 1
+	 */
+	public void setInteractiveDetail(float detail)
+	{
+		interactiveDetail = Math.max(0f, Math.min(1f, detail));
+	}
+	
+	/**
+	 * @return How much of its segment budget the batch of vectors uses while the camera moves
+	 */
+	public float getInteractiveDetail()
+	{
+		return interactiveDetail;
+	}
+	
+	/**
+	 * @return True while the chart is being drawn at the cheap quality
+	 */
+	public boolean isInteracting()
+	{
+		return interacting;
+	}
+	
+	/**
+	 * Drops to the cheap quality if it isn't there already, and starts the idle count down again
+	 */
+	private void interact()
+	{
+		idle.playFromStart();
+		
+		if (interacting)
+			return;
+		
+		interacting = true;
+		
+		Quality quality = chart.getQuality();
+		
+		alpha = quality.isAlphaActivated();
+		smoothLine = quality.isSmoothLine();
+		smoothPoint = quality.isSmoothPoint();
+		smoothPolygon = quality.isSmoothPolygon();
+		
+		quality.setAlphaActivated(false);
+		quality.setSmoothLine(false);
+		quality.setSmoothPoint(false);
+		quality.setSmoothPolygon(false);
+		
+		//Below the mass rendering threshold each vector is its own line, which is cheap enough to draw them all
+		decimated = graph.isMassRendering() ? graph.getBatchDrawable() : null;
+		
+		if (decimated != null)
+		{
+			savedDetail = decimated.getDetail();
+			decimated.setDetail(savedDetail * interactiveDetail);
+		}
+		
+		glStateDirty = true;
+	}
+	
+	/**
+	 * Puts back the quality from before the camera started moving and draws the chart once more with it
+	 */
+	private void restore()
+	{
+		if (!interacting)
+			return;
+		
+		interacting = false;
+		
+		Quality quality = chart.getQuality();
+		
+		quality.setAlphaActivated(alpha);
+		quality.setSmoothLine(smoothLine);
+		quality.setSmoothPoint(smoothPoint);
+		quality.setSmoothPolygon(smoothPolygon);
+		
+		if (decimated != null)
+		{
+			decimated.setDetail(savedDetail);
+			decimated = null;
+		}
+		
+		glStateDirty = true;
+		graph.requestRender();
+	}
+	
+	@Override
+	public void init(GLAutoDrawable drawable)
+	{
+		glStateDirty = true;
+	}
+	
+	@Override
+	public void dispose(GLAutoDrawable drawable)
+	{
+	}
+	
+	@Override
+	public void reshape(GLAutoDrawable drawable, int x, int y, int width, int height)
+	{
+	}
+	
+	@Override
+	/**
+	 * The chart only sets up blending and smoothing when its context is created, so changes to the quality are passed on to OpenGL here
+	 */
+	public void display(GLAutoDrawable drawable)
+	{
+		if (!glStateDirty || !drawable.getGL().isGL2())
+			return;
+		
+		Quality quality = chart.getQuality();
+		GL2 gl = drawable.getGL().getGL2();
+		
+		set(gl, GL.GL_BLEND, quality.isAlphaActivated());
+		set(gl, GL2.GL_LINE_SMOOTH, quality.isSmoothLine());
+		set(gl, GL2.GL_POINT_SMOOTH, quality.isSmoothPoint());
+		set(gl, GL2.GL_POLYGON_SMOOTH, quality.isSmoothPolygon());
+		
+		glStateDirty = false;
+	}
+	
+	/**
+	 * Turns an OpenGL capability on or off
+	 */
+	private static void set(GL gl, int capability, boolean on)
+	{
+		if (on)
+			gl.glEnable(capability);
+		else
+			gl.glDisable(capability);
+	}
+}
@@ -0,0 +1,155 @@
+package vectorVisualizer.viewer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jzy3d.chart.AWTChart;
+import org.jzy3d.maths.Coord2d;
+
+import javafx.event.EventHandler;
+import javafx.scene.image.ImageView;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.input.ScrollEvent;
+
+/**
+ * Moves the camera of a chart shown in an image view. Dragging with the primary button turns it and scrolling zooms.
+ * The chart is drawn offscreen, so nothing else hears the mouse over it, and this stands in for the mouse controller an onscreen canvas would have
+ * @author Robert "Drew" Weimer
+ */
+public class CameraController
+{
+	/**
+	 * How far the mouse has to move, in pixels, to turn the camera one radian
+	 */
+	private static final float PIXELS_PER_RADIAN = 100f;
+	
+	/**
+	 * How far one step of the scroll wheel zooms, as a fraction
+	 */
+	private static final float ZOOM_PER_STEP = 0.1f;
+	
+	/**
+	 * The graph that is redrawn as the camera moves
+	 */
+	private Graph graph;
+	
+	/**
+	 * The chart whose camera is moved
+	 */
+	private AWTChart chart;
+	
+	/**
+	 * Run just before each move of the camera
+	 */
+	private List<Runnable> listeners = new ArrayList<Runnable>();
+	
+	/**
+	 * Where the mouse was in the scene at the last press or drag
+	 */
+	private double lastX, lastY;
+	
+	/**
+	 * Starts moving the camera of a chart from an image view
+	 * @param graph The graph to redraw as the camera moves
+	 * @param chart The chart
+	 * @param imageView The image view the chart is shown in
+	 */
+	public CameraController(Graph graph, AWTChart chart, ImageView imageView)
+	{
+		this.graph = graph;
+		this.chart = chart;
+		
+		imageView.addEventHandler(MouseEvent.MOUSE_PRESSED, new EventHandler<MouseEvent>()
+		{
+			@Override
+			public void handle(MouseEvent event)
+			{
+				//The image view is drawn upside down, so the scene's coordinates are used to keep dragging down turning the camera the same way
+				lastX = event.getSceneX();
+				lastY = event.getSceneY();
+			}
+		});
+		
+		imageView.addEventHandler(MouseEvent.MOUSE_DRAGGED, new EventHandler<MouseEvent>()
+		{
+			@Override
+			public void handle(MouseEvent event)
+			{
+				if (event.getButton() != MouseButton.PRIMARY)
+					return;
+				
+				float dx = (float) (event.getSceneX() - lastX) / PIXELS_PER_RADIAN;
+				float dy = (float) (event.getSceneY() - lastY) / PIXELS_PER_RADIAN;
+				
+				lastX = event.getSceneX();
+				lastY = event.getSceneY();
+				
+				rotate(dx, dy);
+			}
+		});
+		
+		imageView.addEventHandler(ScrollEvent.SCROLL, new EventHandler<ScrollEvent>()
+		{
+			@Override
+			public void handle(ScrollEvent event)
+			{
+				if (event.getDeltaY() == 0)
+					return;
+				
+				//Scrolling up zooms in, by the same amount per step whatever size the steps are
+				double steps = event.getDeltaY() / (event.getMultiplierY() == 0 ? 40 : event.getMultiplierY());
+				
+				zoom((float) Math.pow(1 - ZOOM_PER_STEP, steps));
+			}
+		});
+	}
+	
+	/**
+	 * @param listener Run on the JavaFX thread just before each move of the camera, such as to lower the quality while it moves
+	 */
+	public void addListener(Runnable listener)
+	{
+		listeners.add(listener);
+	}
+	
+	/**
+	 * @param listener The listener to stop running
+	 */
+	public void removeListener(Runnable listener)
+	{
+		listeners.remove(listener);
+	}
+	
+	/**
+	 * Turns the camera and redraws the chart
+	 * @param dx How far to turn around the z axis, in radians
+	 * @param dy How far to turn up or down, in radians
+	 */
+	public void rotate(float dx, float dy)
+	{
+		moving();
+		chart.getView().rotate(new Coord2d(dx, dy), false);
+		graph.requestRender();
+	}
+	
+	/**
+	 * Zooms the camera and redraws the chart
+	 * @param factor How much to scale the range shown by, under 1 zooms in
+	 */
+	public void zoom(float factor)
+	{
+		moving();
+		chart.getView().zoomZ(factor, false);
+		graph.requestRender();
+	}
+	
+	/**
+	 * Tells the listeners the camera is about to move
+	 */
+	private void moving()
+	{
+		for (Runnable listener : listeners)
+			listener.run();
+	}
+}
@@ -0,0 +1,354 @@
+package vectorVisualizer.viewer;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+
+import org.jzy3d.chart.AWTChart;
+import org.jzy3d.plot3d.rendering.canvas.OffscreenCanvas;
+
+import com.jogamp.opengl.GL;
+import com.jogamp.opengl.GL2;
+import com.jogamp.opengl.GLAutoDrawable;
+import com.jogamp.opengl.GLEventListener;
+
+import javafx.application.Platform;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelBuffer;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.util.Callback;
+
+/**
+ * Shows an offscreen chart in an image view without going through AWT.
+ * The chart is rendered on the JavaFX thread, so right after it is drawn its pixels are read out of OpenGL straight into the buffer a {@link PixelBuffer} shares with the image.
+ * OpenGL gives the rows bottom first, and rather than copying them the right way up the image view is flipped.
+ * While the camera moves every pixel changes, so the frame is just read and uploaded whole. Once it is still, a frame is read to the side
+ * and only the rows that changed are copied over, so a change to one part of the chart only uploads that part. Nothing is allocated per frame
+ * @author Robert "Drew" Weimer
+ */
+public class FramebufferBridge implements GLEventListener
+{
+	/**
+	 * The canvas the chart is drawn on
+	 */
+	private OffscreenCanvas canvas;
+	
+	/**
+	 * The image view the chart is shown in
+	 */
+	private ImageView imageView;
+	
+	/**
+	 * Says whether the camera is moving, or null to always upload whole frames
+	 */
+	private AdaptiveQualityController quality;
+	
+	/**
+	 * The drawable this is listening to. The canvas makes a new one whenever it is resized
+	 */
+	private GLAutoDrawable drawable;
+	
+	/**
+	 * A frame read to the side, to be compared with what is shown or handed over from another thread
+	 */
+	private IntBuffer frame;
+	
+	/**
+	 * The size of the frame read to the side
+	 */
+	private int frameWidth, frameHeight;
+	
+	/**
+	 * The pixels shown in the image view, bottom row first, shared with {@link #pixelBuffer}
+	 */
+	private IntBuffer pixels;
+	
+	/**
+	 * Backs the image shown in the image view
+	 */
+	private PixelBuffer<IntBuffer> pixelBuffer;
+	
+	/**
+	 * The OpenGL the current frame is read from, only set while it is being read
+	 */
+	private GL readFrom;
+	
+	/**
+	 * The clear colour of the chart, kept while the alpha of the frame is cleared
+	 */
+	private float[] clearColor = new float[4];
+	
+	/**
+	 * Reads the whole frame straight into the shared pixels
+	 */
+	private Callback<PixelBuffer<IntBuffer>, Rectangle2D> readWhole = new Callback<PixelBuffer<IntBuffer>, Rectangle2D>()
+	{
+		@Override
+		public Rectangle2D call(PixelBuffer<IntBuffer> buffer)
+		{
+			read(readFrom, pixels, buffer.getWidth(), buffer.getHeight());
+			
+			//Null marks the whole buffer as changed
+			return null;
+		}
+	};
+	
+	/**
+	 * Reads the frame to the side, then copies the rows that changed into the shared pixels
+	 */
+	private Callback<PixelBuffer<IntBuffer>, Rectangle2D> readChanged = new Callback<PixelBuffer<IntBuffer>, Rectangle2D>()
+	{
+		@Override
+		public Rectangle2D call(PixelBuffer<IntBuffer> buffer)
+		{
+			readAside(readFrom, buffer.getWidth(), buffer.getHeight());
+			
+			return copyChangedRows();
+		}
+	};
+	
+	/**
+	 * Copies the rows of the frame read to the side that changed into the shared pixels
+	 */
+	private Callback<PixelBuffer<IntBuffer>, Rectangle2D> copyFrame = new Callback<PixelBuffer<IntBuffer>, Rectangle2D>()
+	{
+		@Override
+		public Rectangle2D call(PixelBuffer<IntBuffer> buffer)
+		{
+			return copyChangedRows();
+		}
+	};
+	
+	/**
+	 * Starts showing a chart in an image view
+	 * @param chart The chart, which has to be drawn offscreen
+	 * @param imageView The image view to show it in. It is flipped upside down, so its own y coordinates count up from the bottom like OpenGL's
+	 * @param quality Says whether the camera is moving, or null to always upload whole frames
+	 * @throws IllegalArgumentException If the chart isn't drawn offscreen
+	 */
+	public FramebufferBridge(AWTChart chart, ImageView imageView, AdaptiveQualityController quality)
+	{
+		if (!(chart.getCanvas() instanceof OffscreenCanvas))
+			throw new IllegalArgumentException("The chart has to be drawn offscreen to be shown in an image view");
+		
+		this.canvas = (OffscreenCanvas) chart.getCanvas();
+		this.imageView = imageView;
+		this.quality = quality;
+		
+		//The frames are shown as OpenGL reads them, bottom row first
+		imageView.setScaleY(-1);
+		
+		attach();
+	}
+	
+	/**
+	 * Starts listening to the canvas's current drawable, if it isn't already. Called before each render since resizing the canvas replaces its drawable
+	 */
+	public void attach()
+	{
+		GLAutoDrawable current = canvas.getDrawable();
+		
+		if (current == drawable)
+			return;
+		
+		detach();
+		
+		drawable = current;
+		
+		//Listeners are run in the order they were added, so this reads the frame after the chart's own renderer has drawn it
+		if (drawable != null)
+			drawable.addGLEventListener(this);
+	}
+	
+	/**
+	 * Stops listening to the canvas
+	 */
+	public void detach()
+	{
+		if (drawable != null)
+			drawable.removeGLEventListener(this);
+		
+		drawable = null;
+	}
+	
+	@Override
+	public void init(GLAutoDrawable drawable)
+	{
+	}
+	
+	@Override
+	public void dispose(GLAutoDrawable drawable)
+	{
+	}
+	
+	@Override
+	public void reshape(GLAutoDrawable drawable, int x, int y, int width, int height)
+	{
+	}
+	
+	@Override
+	/**
+	 * Reads the frame the chart was just drawn into and hands it to the image view
+	 */
+	public void display(GLAutoDrawable drawable)
+	{
+		int width = drawable.getSurfaceWidth();
+		int height = drawable.getSurfaceHeight();
+		
+		if (width <= 0 || height <= 0)
+			return;
+		
+		GL gl = drawable.getGL();
+		makeOpaque(gl);
+		
+		//The render scheduler draws the chart on the JavaFX thread, so the frame can go straight into the image's buffer
+		if (Platform.isFxApplicationThread())
+		{
+			boolean resized = ensureImage(width, height);
+			
+			readFrom = gl;
+			
+			try
+			{
+				pixelBuffer.updateBuffer(resized || quality == null || quality.isInteracting() ? readWhole : readChanged);
+			}
+			finally
+			{
+				readFrom = null;
+			}
+			
+			return;
+		}
+		
+		//Anything else reads the frame to the side and hands it over
+		synchronized (this)
+		{
+			readAside(gl, width, height);
+		}
+		
+		Platform.runLater(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				publish();
+			}
+		});
+	}
+	
+	/**
+	 * Sets the alpha of the whole frame to one on the GPU. The chart is opaque, and this keeps the pixels valid as premultiplied whatever blending left in the alpha
+	 */
+	private void makeOpaque(GL gl)
+	{
+		gl.glGetFloatv(GL.GL_COLOR_CLEAR_VALUE, clearColor, 0);
+		
+		gl.glColorMask(false, false, false, true);
+		gl.glClearColor(0, 0, 0, 1);
+		gl.glClear(GL.GL_COLOR_BUFFER_BIT);
+		
+		gl.glColorMask(true, true, true, true);
+		gl.glClearColor(clearColor[0], clearColor[1], clearColor[2], clearColor[3]);
+	}
+	
+	/**
+	 * Makes a new image if there isn't one the size of the frame yet. Has to be run on the JavaFX thread
+	 * @return True if a new image was made, so the whole frame has to be written
+	 */
+	private boolean ensureImage(int width, int height)
+	{
+		if (pixelBuffer != null && pixelBuffer.getWidth() == width && pixelBuffer.getHeight() == height)
+			return false;
+		
+		pixels = newBuffer(width, height);
+		pixelBuffer = new PixelBuffer<IntBuffer>(width, height, pixels, PixelFormat.getIntArgbPreInstance());
+		imageView.setImage(new WritableImage(pixelBuffer));
+		
+		return true;
+	}
+	
+	/**
+	 * Reads the frame to the side, making the buffer for it first if the size changed
+	 */
+	private void readAside(GL gl, int width, int height)
+	{
+		if (frame == null || width != frameWidth || height != frameHeight)
+		{
+			frame = newBuffer(width, height);
+			frameWidth = width;
+			frameHeight = height;
+		}
+		
+		read(gl, frame, width, height);
+	}
+	
+	/**
+	 * Reads the frame out of OpenGL, bottom row first
+	 */
+	private static void read(GL gl, IntBuffer into, int width, int height)
+	{
+		into.clear();
+		gl.glPixelStorei(GL.GL_PACK_ALIGNMENT, 4);
+		
+		//BGRA read as reversed packed ints comes out as one ARGB int per pixel, the layout JavaFX wants
+		gl.glReadPixels(0, 0, width, height, GL.GL_BGRA, GL2.GL_UNSIGNED_INT_8_8_8_8_REV, into);
+	}
+	
+	/**
+	 * Shows the frame read to the side by another thread. Has to be run on the JavaFX thread
+	 */
+	private synchronized void publish()
+	{
+		if (frame == null)
+			return;
+		
+		ensureImage(frameWidth, frameHeight);
+		pixelBuffer.updateBuffer(copyFrame);
+	}
+	
+	/**
+	 * Copies every row of the frame read to the side which differs from what is shown.
+	 * Rows which haven't changed are only read, so when a change only touches part of the chart only that part is written and uploaded
+	 * @return The rows that changed, or {@link Rectangle2D#EMPTY} if none did
+	 */
+	private Rectangle2D copyChangedRows()
+	{
+		int width = frameWidth, height = frameHeight;
+		int first = -1, last = -1;
+		
+		for (int row = 0; row < height; row++)
+		{
+			int start = row * width;
+			int i = 0;
+			
+			while (i < width && frame.get(start + i) == pixels.get(start + i))
+				i++;
+			
+			if (i == width)
+				continue;
+			
+			for (; i < width; i++)
+				pixels.put(start + i, frame.get(start + i));
+			
+			if (first < 0)
+				first = row;
+			
+			last = row;
+		}
+		
+		if (first < 0)
+			return Rectangle2D.EMPTY;
+		
+		return new Rectangle2D(0, first, width, last - first + 1);
+	}
+	
+	/**
+	 * @return A direct buffer of one int per pixel, in the platform's byte order so OpenGL and JavaFX can both use it as is
+	 */
+	private static IntBuffer newBuffer(int width, int height)
+	{
+		return ByteBuffer.allocateDirect(width * height * 4).order(ByteOrder.nativeOrder()).asIntBuffer();
+	}
+}
@@ -0,0 +1,94 @@
+package vectorVisualizer.viewer;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import javafx.application.Platform;
+
+/**
+ * Builds geometry away from the JavaFX thread. The work runs on a pool of background threads (virtual threads when the JVM has them),
+ * and the finished result is handed back to the JavaFX thread in a single step, so the UI thread only ever does the cheap part of putting it into the scene
+ * @author Robert "Drew" Weimer
+ */
+public class GeometryWorker
+{
+	/**
+	 * The threads the geometry is built on
+	 */
+	private ExecutorService executor;
+	
+	/**
+	 * Creates a worker, using virtual threads if the JVM supports them and a daemon thread per core otherwise
+	 */
+	public GeometryWorker()
+	{
+		executor = createExecutor();
+	}
+	
+	/**
+	 * Looks for Executors.newVirtualThreadPerTaskExecutor(), which only exists on newer JVMs, and falls back to a fixed pool
+	 * @return The executor to build geometry on
+	 */
+	private static ExecutorService createExecutor()
+	{
+		try
+		{
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		}
+		catch (ReflectiveOperationException | RuntimeException e)
+		{
+			AtomicInteger count = new AtomicInteger();
+			
+			return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new ThreadFactory()
+			{
+				@Override
+				public Thread newThread(Runnable r)
+				{
+					Thread thread = new Thread(r, "Geometry worker " + count.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+	}
+	
+	/**
+	 * Builds something on a background thread, then hands it to the JavaFX thread
+	 * @param builder Builds the geometry, run on a background thread
+	 * @param publish Puts the finished geometry into the scene, run on the JavaFX thread
+	 * @return Completes once the geometry has been published, or exceptionally if building or publishing failed
+	 */
+	public <T> CompletableFuture<Void> build(Callable<T> builder, Consumer<T> publish)
+	{
+		return CompletableFuture.supplyAsync(new Supplier<T>()
+		{
+			@Override
+			public T get()
+			{
+				try
+				{
+					return builder.call();
+				}
+				catch (Exception e)
+				{
+					throw new CompletionException(e);
+				}
+			}
+		}, executor).thenAcceptAsync(publish, Platform::runLater);
+	}
+	
+	/**
+	 * Stops the background threads. Anything already building is left to finish
+	 */
+	public void shutdown()
+	{
+		executor.shutdown();
+	}
+}
@@ -1,21 +1,34 @@
 package vectorVisualizer.viewer;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 import org.jzy3d.chart.AWTChart;
 import org.jzy3d.colors.Color;
 import org.jzy3d.javafx.JavaFXChartFactory;
+import org.jzy3d.maths.BoundingBox3d;
 import org.jzy3d.maths.Coord3d;
 import org.jzy3d.plot3d.primitives.*;
 import org.jzy3d.plot3d.rendering.canvas.Quality;
 
 import javafx.application.Application;
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
 import javafx.scene.Scene;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.StackPane;
 import javafx.stage.Stage;
 
+import vectorVisualizer.io.MappedVectorFile;
+import vectorVisualizer.io.VectorFile;
+import vectorVisualizer.spatial.Octree;
 import vectorVisualizer.vectors.Vector;
+import vectorVisualizer.vectors.VectorSource;
+import vectorVisualizer.vectors.VectorStore;
 
 /**
  * The main class of the program, this initializes the Graph and Menu displays and handles the interconnect between them
@@ -24,14 +37,39 @@ import vectorVisualizer.vectors.Vector;
 public class Graph extends Application
 {
 	/**
-	 * The collection of lines aka vectors on the graph
+	 * Once a batch of additions takes the graph to this many vectors, it switches to drawing them all as one batch instead of one line each
 	 */
-	private static ArrayList<CroppableLineStrip> lines = new ArrayList<CroppableLineStrip>();
+	public static final int MASS_RENDERING_THRESHOLD = 10000;
+	
+	/**
+	 * The collection of lines aka vectors on the graph. The line at index i draws the vector at index i of the store. Empty while mass rendering
+	 */
+	private ArrayList<CroppableLineStrip> lines = new ArrayList<CroppableLineStrip>();
+	
+	/**
+	 * The ID the next vector added without one is given. IDs are never handed out twice, even after the vector holding one is removed
+	 */
+	private int nextID;
+	
+	/**
+	 * Drawables which have been added since the chart was last updated
+	 */
+	private ArrayList<AbstractDrawable> pendingAdds = new ArrayList<AbstractDrawable>();
+	
+	/**
+	 * Drawables which have been removed since the chart was last updated
+	 */
+	private ArrayList<AbstractDrawable> pendingRemoves = new ArrayList<AbstractDrawable>();
+	
+	/**
+	 * How many batches are currently open. The chart is only updated once every batch has ended
+	 */
+	private int batchDepth;
 	
 	/**
 	 * The collection of vectors on the graph
 	 */
-	private ArrayList<Vector> vectors = new ArrayList<Vector>();
+	private VectorStore vectors = new VectorStore();
 	
 	/**
 	 * The primary chart aka graph that everything is displayed on
@@ -48,10 +86,75 @@ public class Graph extends Application
 	 */
 	private JavaFXChartFactory factory;
 	
+	/**
+	 * Hands each frame of the chart to the image view
+	 */
+	private FramebufferBridge framebuffer;
+	
+	/**
+	 * Moves the camera when the chart is dragged or scrolled
+	 */
+	private CameraController camera;
+	
+	/**
+	 * Lowers the quality while the camera moves
+	 */
+	private AdaptiveQualityController qualityController;
+	
 	/**
 	 * The primary stackpane which everything is added onto
 	 */
 	private StackPane pane;
+	
+	/**
+	 * The menu which goes with the graph
+	 */
+	private Menu menu;
+	
+	/**
+	 * Coalesces changes into at most one render per JavaFX pulse
+	 */
+	private RenderScheduler renderScheduler;
+	
+	/**
+	 * Builds geometry on background threads, created the first time it's needed
+	 */
+	private GeometryWorker geometryWorker;
+	
+	/**
+	 * True if every vector is drawn by the batch drawable rather than a line of its own
+	 */
+	private volatile boolean massRendering;
+	
+	/**
+	 * Draws every vector in one go while mass rendering, created the first time it's needed
+	 */
+	private VectorBatchDrawable batchDrawable;
+	
+	/**
+	 * True if the vectors have changed since the batch drawable was last packed
+	 */
+	private boolean batchDrawableDirty;
+	
+	/**
+	 * Draws the arrows of a sampled vector field, or null if no field is shown
+	 */
+	private VectorBatchDrawable fieldDrawable;
+	
+	/**
+	 * True if the field's samples have changed since its drawable was last packed
+	 */
+	private boolean fieldDirty;
+	
+	/**
+	 * Finds vectors by where they end, kept up to date as the vectors change
+	 */
+	private Octree endPointIndex = new Octree(vectors, Octree.Points.endPoints);
+	
+	/**
+	 * Finds vectors by which way they point, created the first time it's needed
+	 */
+	private Octree directionIndex;
 		
 	/**
 	 * The primary run method.
@@ -73,13 +176,24 @@ public class Graph extends Application
 		//Create the graph
         factory = new JavaFXChartFactory();
         chart  = getDemoChart(factory, "offscreen");
-        imageView = factory.bindImageView(chart);
+        
+        imageView = new ImageView();
+        
+        //The image view doesn't pass the mouse on to the chart, so dragging turns the camera and scrolling zooms from here
+        camera = new CameraController(this, chart, imageView);
+        
+        //The chart is drawn at a lower quality while the camera moves, until it is still again
+        qualityController = new AdaptiveQualityController(this, chart, camera);
+        
+        //Frames go straight from the chart's offscreen buffer into the image, rather than through an AWT image each time
+        framebuffer = new FramebufferBridge(chart, imageView, qualityController);
         
         //Create the menu
-        Stage menu = new Stage();
-        Scene menuScene = new Scene(new Menu(this, vectors));
-        menu.setScene(menuScene);
-        menu.show();
+        Stage menuStage = new Stage();
+        menu = new Menu(this, vectors);
+        Scene menuScene = new Scene(menu);
+        menuStage.setScene(menuScene);
+        menuStage.show();
 	    
         // JavaFX
         //Create the JavaFX portion of the graph
@@ -91,8 +205,91 @@ public class Graph extends Application
 
         factory.addSceneSizeChangedListener(chart, scene);
         
+        //Resizing gives the chart a new offscreen buffer, so the bridge moves over to it and the chart is drawn again
+        ChangeListener<Number> resized = new ChangeListener<Number>()
+        {
+        	@Override
+        	public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue)
+        	{
+        		framebuffer.attach();
+        		
+        		if (renderScheduler != null)
+        			renderScheduler.requestRender();
+        	}
+        };
+        scene.widthProperty().addListener(resized);
+        scene.heightProperty().addListener(resized);
+        
+        //Vectors can be hovered over and clicked on right in the chart
+        new Picker(this, chart, imageView, menu);
+        
         stage.setWidth(500);
         stage.setHeight(500);
+        
+        renderScheduler = new RenderScheduler(new Runnable()
+        {
+        	@Override
+        	public void run()
+        	{
+        		renderChart();
+        	}
+        });
+        renderScheduler.start();
+	}
+	
+	@Override
+	/**
+	 * Required by JavaFX. Stops rendering when the program closes
+	 */
+	public void stop() throws Exception
+	{
+		if (renderScheduler != null)
+			renderScheduler.stop();
+		
+		if (geometryWorker != null)
+			geometryWorker.shutdown();
+		
+		if (framebuffer != null)
+			framebuffer.detach();
+		
+		if (qualityController != null)
+			qualityController.detach();
+	}
+	
+	/**
+	 * @return What moves the camera when the chart is dragged or scrolled, or null before the graph has been shown
+	 */
+	public CameraController getCameraController()
+	{
+		return camera;
+	}
+	
+	/**
+	 * @return What sets the quality while the camera moves, or null before the graph has been shown
+	 */
+	public AdaptiveQualityController getQualityController()
+	{
+		return qualityController;
+	}
+	
+	/**
+	 * Redraws the chart on the next pulse without anything on it having changed, such as after the camera moves
+	 */
+	public void requestRender()
+	{
+		if (renderScheduler != null)
+			renderScheduler.requestRender();
+	}
+	
+	/**
+	 * @return The worker that builds geometry on background threads
+	 */
+	public synchronized GeometryWorker getGeometryWorker()
+	{
+		if (geometryWorker == null)
+			geometryWorker = new GeometryWorker();
+		
+		return geometryWorker;
 	}
 	
 	/**
@@ -110,22 +307,142 @@ public class Graph extends Application
 	    line.add(new Point(new Coord3d(0, 0, 0)));
 	    line.add(new Point(new Coord3d(1, 1, 1)));
 	    line.setWireframeColor(Color.BLACK);
-	        
-	    lines.add(line);
 	    
-        chart.getScene().getGraph().add(lines);
+        chart.getScene().getGraph().add(line);
         return chart;
     }
 	
 	/**
-	 * Updates the chart whenever we add a vector
+	 * Updates the chart whenever we add, remove, or change a vector.
+	 * The chart is only marked as dirty here, the changes are handed to it and rendered once on the next pulse by the render scheduler
 	 */
 	private void updateChart()
 	{
-		chart.getScene().getGraph().add(lines);
-		pane.getChildren().remove(imageView);
-		imageView = factory.bindImageView(chart);
-		pane.getChildren().add(imageView);
+		if (batchDepth > 0 || (pendingAdds.isEmpty() && pendingRemoves.isEmpty() && !batchDrawableDirty && !fieldDirty))
+			return;
+		
+		//Without a chart (the graph is being used headless) the geometry is still built, there is just nothing to draw it on
+		if (chart == null)
+		{
+			pendingRemoves.clear();
+			pendingAdds.clear();
+			batchDrawableDirty = false;
+			fieldDirty = false;
+			return;
+		}
+		
+		//Before start() has finished there is no scheduler yet, so draw straight away
+		if (renderScheduler == null)
+			renderChart();
+		else
+			renderScheduler.requestRender();
+	}
+	
+	/**
+	 * Hands the drawables that changed since the last render to the scene and renders the chart.
+	 * Only the changes are handed over and the image view bound in start() is kept, so the cost doesn't grow with the number of vectors
+	 */
+	private void renderChart()
+	{
+		//A batch is still open, endBatch() will ask again
+		if (batchDepth > 0)
+			return;
+		
+		//A render just for the camera doesn't change what is on the chart, so the bounds don't need working out again
+		boolean changed = !pendingAdds.isEmpty() || !pendingRemoves.isEmpty() || batchDrawableDirty || fieldDirty;
+		
+		org.jzy3d.plot3d.rendering.scene.Graph sceneGraph = chart.getScene().getGraph();
+		
+		for (AbstractDrawable drawable : pendingRemoves)
+			sceneGraph.remove(drawable, false);
+		
+		sceneGraph.add(pendingAdds, false);
+		
+		pendingRemoves.clear();
+		pendingAdds.clear();
+		
+		//Repacking is one pass over the store, so it is only done once however many vectors changed
+		if (batchDrawableDirty)
+		{
+			if (massRendering)
+				batchDrawable.update();
+			
+			batchDrawableDirty = false;
+		}
+		
+		if (fieldDirty)
+		{
+			if (fieldDrawable != null)
+				fieldDrawable.update();
+			
+			fieldDirty = false;
+		}
+		
+		//Bounds are only worked out once for the whole batch of changes, then the bridge hands the new frame to the image view
+		if (changed)
+			chart.getView().updateBounds();
+		
+		if (qualityController != null)
+			qualityController.attach();
+		
+		if (framebuffer != null)
+			framebuffer.attach();
+		
+		chart.render();
+	}
+	
+	/**
+	 * Starts a batch of changes. Until the matching {@link #endBatch()}, adding, removing, or changing vectors only queues the change and the chart isn't redrawn.
+	 * Batches can be nested, the chart is redrawn once when the outermost one ends
+	 */
+	public void beginBatch()
+	{
+		batchDepth++;
+	}
+	
+	/**
+	 * Ends a batch of changes started with {@link #beginBatch()}, redrawing the chart once if this was the outermost batch
+	 */
+	public void endBatch()
+	{
+		if (batchDepth == 0)
+			throw new IllegalStateException("endBatch() called without a matching beginBatch()");
+		
+		batchDepth--;
+		
+		updateChart();
+	}
+	
+	/**
+	 * Converts a colour packed as 0xRRGGBBAA into a chart colour
+	 * @param rgba The packed colour
+	 * @return The chart colour
+	 */
+	private static Color toChartColor(int rgba)
+	{
+		return new Color(rgba >>> 24, (rgba >>> 16) & 0xFF, (rgba >>> 8) & 0xFF, rgba & 0xFF);
+	}
+	
+	/**
+	 * Creates the line that draws a vector
+	 * @param ox The x coordinate of the start point
+	 * @param oy The y coordinate of the start point
+	 * @param oz The z coordinate of the start point
+	 * @param ex The x coordinate of the end point
+	 * @param ey The y coordinate of the end point
+	 * @param ez The z coordinate of the end point
+	 * @param color The colour of the line
+	 * @return The line
+	 */
+	private static CroppableLineStrip buildLine(double ox, double oy, double oz, double ex, double ey, double ez, Color color)
+	{
+		CroppableLineStrip line = new CroppableLineStrip();
+		line.add(new Point(new Coord3d(ox, oy, oz)));
+		line.add(new Point(new Coord3d(ex, ey, ez)));
+		
+		line.setWireframeColor(color);
+		
+		return line;
 	}
 	
 	/**
@@ -134,9 +451,9 @@ public class Graph extends Application
 	 */
 	public void add(Shape object)
 	{
-		chart.getScene().getGraph().add(object);
+		pendingAdds.add(object);
 		
-		//chart.open("test", 600, 500);
+		updateChart();
 	}
 	
 	/**
@@ -146,39 +463,616 @@ public class Graph extends Application
 	 */
 	public void addVector(int[] origin, int[] end)
 	{
-		CroppableLineStrip line = new CroppableLineStrip(); 
-	    line.add(new Point(new Coord3d(origin[0], origin[1], origin[2])));
-	    line.add(new Point(new Coord3d(end[0], end[1], end[2])));
-	    
 	    Color color = Color.color(vectors.size());
 	    
-	    line.setWireframeColor(color);
-	    
-	    lines.add(line);
-	    
-	    Vector vector = new Vector(Vector.intArrToDoubleArr(origin), Vector.intArrToDoubleArr(end), vectors.size(), color.a, color.r, color.g, color.b);
+	    vectors.add(origin[0], origin[1], origin[2], end[0] - origin[0], end[1] - origin[1], end[2] - origin[2], nextID++, VectorStore.packColor(color.a, color.r, color.g, color.b));
+	    indexAdded();
 	    
-	    vectors.add(vector);
+	    if (massRendering)
+	    	batchDrawableDirty = true;
+	    else
+	    	addLine(buildLine(origin[0], origin[1], origin[2], end[0], end[1], end[2], color));
 	    
 	    updateChart();
 	}
 	
 	/**
-	 * Adds a vector to the graph based on a vector object
+	 * Adds a vector to the graph based on a vector object. It is given the next free ID, since it is usually worked out from a vector already on the graph
 	 * @param v The vector to add to the graph
 	 */
 	public void addVector(Vector v)
 	{
-		CroppableLineStrip line = new CroppableLineStrip();
-		line.add(new Point(new Coord3d(0, 0, 0)));
-		line.add(new Point(new Coord3d(v.getComponents()[0], v.getComponents()[1], v.getComponents()[2])));
+		double[] c = v.getComponents();
+		
+		int index = vectors.add(v);
+		vectors.idArray()[index] = nextID++;
+		indexAdded();
 		
-		line.setWireframeColor(Color.BLACK);
+		if (massRendering)
+			batchDrawableDirty = true;
+		else
+			addLine(buildLine(0, 0, 0, c[0], c[1], c.length > 2 ? c[2] : 0, Color.BLACK));
 		
+		updateChart();
+	}
+	
+	/**
+	 * Adds the line for the vector at the end of the store
+	 * @param line The line to add
+	 */
+	private void addLine(CroppableLineStrip line)
+	{
 		lines.add(line);
+		pendingAdds.add(line);
+	}
+	
+	/**
+	 * Takes a line off of the chart
+	 * @param line The line to remove
+	 */
+	private void removeLine(CroppableLineStrip line)
+	{
+		//If the line never made it onto the chart, there is nothing to take off of it
+		if (!pendingAdds.remove(line))
+			pendingRemoves.add(line);
+	}
+	
+	/**
+	 * Builds the line for the vector at the given index of a source
+	 * @param source The vectors
+	 * @param i The index of the vector
+	 * @return The line
+	 */
+	private static CroppableLineStrip buildLine(VectorSource source, int i)
+	{
+		double ox = source.getOriginX(i);
+		double oy = source.getOriginY(i);
+		double oz = source.getOriginZ(i);
+		
+		return buildLine(ox, oy, oz, ox + source.getX(i), oy + source.getY(i), oz + source.getZ(i), toChartColor(source.getColor(i)));
+	}
+	
+	/**
+	 * Switches between drawing each vector as a line of its own and drawing them all as one batch.
+	 * Mass rendering keeps frames fast with hundreds of thousands of vectors, drawing only a sample of them when they cover little of the screen.
+	 * It is switched on automatically once a batch of additions takes the graph past {@link #MASS_RENDERING_THRESHOLD} vectors
+	 * @param on True to draw every vector as one batch
+	 */
+	public void setMassRendering(boolean on)
+	{
+		if (on == massRendering)
+			return;
 		
-		vectors.add(v);
+		beginBatch();
 		
+		try
+		{
+			if (on)
+			{
+				for (CroppableLineStrip line : lines)
+					removeLine(line);
+				
+				lines.clear();
+				
+				if (batchDrawable == null)
+					batchDrawable = new VectorBatchDrawable(vectors);
+				
+				pendingAdds.add(batchDrawable);
+				batchDrawableDirty = true;
+			}
+			else
+			{
+				if (!pendingAdds.remove(batchDrawable))
+					pendingRemoves.add(batchDrawable);
+				
+				for (int i = 0; i < vectors.size(); i++)
+					addLine(buildLine(vectors, i));
+			}
+			
+			massRendering = on;
+		}
+		finally
+		{
+			endBatch();
+		}
+	}
+	
+	/**
+	 * @return True if every vector is drawn as one batch rather than a line each
+	 */
+	public boolean isMassRendering()
+	{
+		return massRendering;
+	}
+	
+	/**
+	 * @return The drawable used while mass rendering, or null if mass rendering has never been switched on
+	 */
+	public VectorBatchDrawable getBatchDrawable()
+	{
+		return batchDrawable;
+	}
+	
+	/**
+	 * Shows the arrows of a sampled vector field, in place of any field shown before. The arrows aren't vectors of the graph, so they can't be selected or picked
+	 * @param samples The arrows, which must not change until another store is shown or the field is cleared
+	 */
+	public void showField(VectorStore samples)
+	{
+		if (fieldDrawable == null)
+		{
+			fieldDrawable = new VectorBatchDrawable(samples);
+			pendingAdds.add(fieldDrawable);
+		}
+		else
+			fieldDrawable.setStore(samples);
+		
+		fieldDirty = true;
+		updateChart();
+	}
+	
+	/**
+	 * Takes the vector field off the graph, if one is shown
+	 */
+	public void clearField()
+	{
+		if (fieldDrawable == null)
+			return;
+		
+		if (!pendingAdds.remove(fieldDrawable))
+			pendingRemoves.add(fieldDrawable);
+		
+		fieldDrawable = null;
+		fieldDirty = false;
 		updateChart();
 	}
+	
+	/**
+	 * A batch of vectors copied out of their source, with their lines already built, ready to be put on the graph with {@link Graph#publishVectors(PreparedVectors)}
+	 */
+	public static class PreparedVectors
+	{
+		/**
+		 * The vectors
+		 */
+		private VectorStore vectors;
+		
+		/**
+		 * The line for each vector, or null if the graph was mass rendering when they were prepared
+		 */
+		private ArrayList<CroppableLineStrip> lines;
+		
+		/**
+		 * The end point index over the vectors, or null if the graph already had vectors when they were prepared
+		 */
+		private Octree endPoints;
+		
+		/**
+		 * @param vectors The vectors
+		 * @param lines The line for each vector, or null if they weren't built
+		 * @param endPoints The end point index over the vectors, or null if it wasn't built
+		 */
+		private PreparedVectors(VectorStore vectors, ArrayList<CroppableLineStrip> lines, Octree endPoints)
+		{
+			this.vectors = vectors;
+			this.lines = lines;
+			this.endPoints = endPoints;
+		}
+	}
+	
+	/**
+	 * Copies a batch of vectors and builds all of their lines. This doesn't change the graph, so it can be run on any thread.
+	 * No lines are built if the graph is mass rendering, or if this batch will take it past {@link #MASS_RENDERING_THRESHOLD}, since they would never be drawn.
+	 * If the graph has no vectors yet, the end point index is built over the batch too, so a big first import is indexed here rather than on the JavaFX thread
+	 * @param source The vectors to prepare. Their tails, components, IDs and colours are copied, so the source can be reused as soon as this returns
+	 * @return The prepared vectors, to be handed to {@link #publishVectors(PreparedVectors)} on the JavaFX thread
+	 */
+	public PreparedVectors prepareVectors(VectorSource source)
+	{
+		int count = source.size();
+		
+		VectorStore copy = new VectorStore(count);
+		copy.addAll(source);
+		
+		//The size is read off the JavaFX thread, so this is only a guess. publishVectors() only uses the index if the graph really was empty
+		Octree endPoints = null;
+		
+		if (vectors.size() == 0)
+		{
+			endPoints = new Octree(copy, Octree.Points.endPoints);
+			endPoints.update();
+		}
+		
+		//publishVectors() builds the lines after all if the guess was wrong
+		if (massRendering || vectors.size() + count >= MASS_RENDERING_THRESHOLD)
+			return new PreparedVectors(copy, null, endPoints);
+		
+		ArrayList<CroppableLineStrip> built = new ArrayList<CroppableLineStrip>(count);
+		
+		for (int i = 0; i < count; i++)
+			built.add(buildLine(copy, i));
+		
+		return new PreparedVectors(copy, built, endPoints);
+	}
+	
+	/**
+	 * Puts prepared vectors on the graph in one step and redraws the chart once. Vectors without an ID are given the next free ones. Must be run on the JavaFX thread
+	 * @param prepared The vectors from {@link #prepareVectors(VectorSource)}
+	 */
+	public void publishVectors(PreparedVectors prepared)
+	{
+		beginBatch();
+		
+		try
+		{
+			int first = vectors.size();
+			
+			//The prepared copy is only ever published once, so its arrays can be handed straight over when the graph is empty
+			int count = prepared.vectors.size();
+			
+			vectors.takeAll(prepared.vectors);
+			assignIDs(first);
+			
+			//The index built alongside the batch is over the same vectors at the same indices, now that they are the graph's
+			if (first == 0 && prepared.endPoints != null)
+			{
+				endPointIndex = prepared.endPoints;
+				endPointIndex.setStore(vectors);
+			}
+			
+			indexAdded();
+			
+			if (vectors.size() >= MASS_RENDERING_THRESHOLD)
+				setMassRendering(true);
+			
+			if (massRendering)
+				batchDrawableDirty = true;
+			else if (prepared.lines != null)
+			{
+				lines.addAll(prepared.lines);
+				pendingAdds.addAll(prepared.lines);
+			}
+			else
+			{
+				for (int i = first; i < first + count; i++)
+					addLine(buildLine(vectors, i));
+			}
+		}
+		finally
+		{
+			endBatch();
+		}
+	}
+	
+	/**
+	 * Gives the next free ID to every vector from an index on which doesn't have one yet.
+	 * Vectors which came with an ID, such as from a file, keep it, and later IDs are handed out after it
+	 * @param from The index of the first vector to look at
+	 */
+	private void assignIDs(int from)
+	{
+		int[] ids = vectors.idArray();
+		
+		for (int i = from; i < vectors.size(); i++)
+		{
+			if (ids[i] == VectorStore.NO_ID)
+				ids[i] = nextID++;
+			else if (ids[i] >= nextID)
+				nextID = ids[i] + 1;
+		}
+	}
+	
+	/**
+	 * Adds a whole batch of vectors to the graph, building all of their lines at once and redrawing the chart a single time
+	 * @param source The vectors to add. Their tails, components, IDs and colours are copied
+	 */
+	public void addVectors(VectorSource source)
+	{
+		publishVectors(prepareVectors(source));
+	}
+	
+	/**
+	 * Adds a whole batch of vectors to the graph, building their lines on a background thread and then putting them on the graph in one step on the JavaFX thread
+	 * @param source The vectors to add. It must not change until the returned future completes
+	 * @return Completes once the vectors are on the graph
+	 */
+	public CompletableFuture<Void> addVectorsAsync(VectorSource source)
+	{
+		return addVectorsAsync(new Callable<PreparedVectors>()
+		{
+			@Override
+			public PreparedVectors call()
+			{
+				return prepareVectors(source);
+			}
+		});
+	}
+	
+	/**
+	 * Works out a batch of vectors on a background thread, then adds them to the graph in one step on the JavaFX thread
+	 * @param compute Works out the vectors, run on a background thread. It mustn't read anything the JavaFX thread might change meanwhile, such as this graph's vectors
+	 * @return Completes once the vectors are on the graph, or exceptionally if working them out failed
+	 */
+	public CompletableFuture<Void> computeVectorsAsync(Callable<? extends VectorSource> compute)
+	{
+		return addVectorsAsync(new Callable<PreparedVectors>()
+		{
+			@Override
+			public PreparedVectors call() throws Exception
+			{
+				return prepareVectors(compute.call());
+			}
+		});
+	}
+	
+	/**
+	 * Prepares a batch of vectors on the geometry worker, then puts them on the graph in one step on the JavaFX thread.
+	 * Every bulk addition goes through here, so the JavaFX thread only ever does the swap into the scene
+	 * @param prepare Reads or works out the vectors and hands them to {@link #prepareVectors(VectorSource)}, run on a background thread
+	 * @return Completes once the vectors are on the graph, or exceptionally if preparing them failed
+	 */
+	private CompletableFuture<Void> addVectorsAsync(Callable<PreparedVectors> prepare)
+	{
+		return getGeometryWorker().build(prepare, new Consumer<PreparedVectors>()
+		{
+			@Override
+			public void accept(PreparedVectors prepared)
+			{
+				publishVectors(prepared);
+			}
+		});
+	}
+	
+	/**
+	 * Builds a shape on a background thread, then adds it to the graph on the JavaFX thread
+	 * @param builder Builds the shape, run on a background thread
+	 * @return Completes once the shape is on the graph, or exceptionally if building it failed
+	 */
+	public CompletableFuture<Void> addAsync(Callable<Shape> builder)
+	{
+		return getGeometryWorker().build(builder, new Consumer<Shape>()
+		{
+			@Override
+			public void accept(Shape shape)
+			{
+				add(shape);
+			}
+		});
+	}
+	
+	/**
+	 * Adds a whole batch of vectors to the graph from their start and end points, redrawing the chart a single time.
+	 * Each vector gets the next ID and colour, the same as {@link #addVector(int[], int[])}
+	 * PRECONDITION: origins and ends have the same length, and every point has 3 coordinates
+	 * @param origins The start points of the vectors
+	 * @param ends The end points of the vectors
+	 */
+	public void addVectors(double[][] origins, double[][] ends)
+	{
+		VectorStore batch = new VectorStore(origins.length);
+		
+		for (int i = 0; i < origins.length; i++)
+		{
+			double[] o = origins[i];
+			double[] e = ends[i];
+			
+			Color color = Color.color(vectors.size() + i);
+			
+			batch.add(o[0], o[1], o[2], e[0] - o[0], e[1] - o[1], e[2] - o[2], VectorStore.NO_ID, VectorStore.packColor(color.a, color.r, color.g, color.b));
+		}
+		
+		addVectors(batch);
+	}
+	
+	/**
+	 * Adds every vector in a binary vector file to the graph. On the geometry worker the file is mapped into memory and its records are copied
+	 * straight out of the mapping into one store, without an object per vector, as the operating system pages them in. The mapping is closed once they are copied,
+	 * and the JavaFX thread only puts the finished store on the graph, so opening a file of millions of vectors doesn't hold up the UI
+	 * @param file The .vvec file to open
+	 * @return Completes once the vectors are on the graph, or exceptionally if the file can't be read or isn't a vector file
+	 */
+	public CompletableFuture<Void> openVectorFile(File file)
+	{
+		return addVectorsAsync(new Callable<PreparedVectors>()
+		{
+			@Override
+			public PreparedVectors call() throws IOException
+			{
+				try (MappedVectorFile mapped = VectorFile.open(file))
+				{
+					return prepareVectors(mapped);
+				}
+			}
+		});
+	}
+	
+	/**
+	 * Saves every vector on the graph to a binary vector file
+	 * @param file The .vvec file to write
+	 * @throws IOException If the file can't be written
+	 */
+	public void saveVectorFile(File file) throws IOException
+	{
+		VectorFile.write(file, vectors);
+	}
+	
+	/**
+	 * Removes the vector at the given index from the graph. Every vector after it moves down by one.
+	 * Anything holding views of the vectors has to be told, {@link Menu#removeVector(int)} does that for the vector list and the selection
+	 * @param index The index of the vector to remove
+	 */
+	public void removeVector(int index)
+	{
+		removeVectors(new int[] {index});
+	}
+	
+	/**
+	 * Removes many vectors from the graph at once. The store and the lines are each compacted in one pass and the chart is redrawn once,
+	 * so removing thousands of vectors costs about the same as removing one. Every vector after a removed one moves down by the number removed before it.
+	 * Anything holding views of the vectors has to be told, {@link Menu#removeVectors(int[])} does that for the vector list and the selection
+	 * @param sortedIndices The indices of the vectors to remove, smallest first and with no repeats
+	 * @throws IllegalArgumentException If the indices aren't sorted or repeat one
+	 */
+	public void removeVectors(int[] sortedIndices)
+	{
+		if (sortedIndices.length == 0)
+			return;
+		
+		beginBatch();
+		
+		try
+		{
+			//The store checks the indices before anything is changed
+			vectors.removeAll(sortedIndices);
+			indexRemoved(sortedIndices);
+			
+			if (massRendering)
+				batchDrawableDirty = true;
+			else
+			{
+				ArrayList<CroppableLineStrip> kept = new ArrayList<CroppableLineStrip>(lines.size() - sortedIndices.length);
+				
+				for (int i = 0, r = 0; i < lines.size(); i++)
+				{
+					if (r < sortedIndices.length && sortedIndices[r] == i)
+					{
+						removeLine(lines.get(i));
+						r++;
+					}
+					else
+						kept.add(lines.get(i));
+				}
+				
+				lines = kept;
+			}
+		}
+		finally
+		{
+			endBatch();
+		}
+	}
+	
+	/**
+	 * Moves the vector at the given index to a new start and end point, keeping its ID and colour.
+	 * {@link Menu#setVector(int, double[], double[])} also redraws the vector's rows in the menu
+	 * @param index The index of the vector to change
+	 * @param origin The new start point of the vector
+	 * @param end The new end point of the vector
+	 */
+	public void setVector(int index, double[] origin, double[] end)
+	{
+		int rgba = vectors.getColor(index);
+		
+		if (massRendering)
+			batchDrawableDirty = true;
+		else
+		{
+			CroppableLineStrip line = buildLine(origin[0], origin[1], origin[2], end[0], end[1], end[2], toChartColor(rgba));
+			
+			removeLine(lines.set(index, line));
+			pendingAdds.add(line);
+		}
+		
+		vectors.set(index, origin[0], origin[1], origin[2], end[0] - origin[0], end[1] - origin[1], end[2] - origin[2], vectors.getID(index), rgba);
+		indexMoved(index);
+		
+		updateChart();
+	}
+	
+	/**
+	 * Gets the index of the end points of the vectors on the graph, for finding vectors near a point, in a box, or under the mouse.
+	 * It is kept up to date as vectors are added, moved, and removed, so a query never has to rebuild it
+	 * @return The index over the end point of every vector
+	 */
+	public Octree getEndPointIndex()
+	{
+		return endPointIndex;
+	}
+	
+	/**
+	 * Gets the index of the directions of the vectors on the graph, for finding the vectors pointing most nearly a given way.
+	 * It is built by its first query and kept up to date from then on
+	 * @return The index over the unit vector of every vector
+	 */
+	public Octree getDirectionIndex()
+	{
+		if (directionIndex == null)
+			directionIndex = new Octree(vectors, Octree.Points.directions);
+		
+		return directionIndex;
+	}
+	
+	/**
+	 * Inserts vectors added to the end of the store into the spatial indices, so the next query doesn't have to
+	 */
+	private void indexAdded()
+	{
+		endPointIndex.update();
+		
+		if (directionIndex != null)
+			directionIndex.update();
+	}
+	
+	/**
+	 * Moves a changed vector in the spatial indices
+	 * @param index The index of the vector
+	 */
+	private void indexMoved(int index)
+	{
+		endPointIndex.moved(index);
+		
+		if (directionIndex != null)
+			directionIndex.moved(index);
+	}
+	
+	/**
+	 * Takes removed vectors out of the spatial indices and renumbers the rest
+	 * @param sortedIndices The indices the vectors were removed from, smallest first, as they were before any was removed
+	 */
+	private void indexRemoved(int[] sortedIndices)
+	{
+		endPointIndex.removed(sortedIndices);
+		
+		if (directionIndex != null)
+			directionIndex.removed(sortedIndices);
+	}
+	
+	/**
+	 * @return The width of the smaller side of the chart on screen in pixels, or 500 before it is shown
+	 */
+	public double getViewportSize()
+	{
+		if (imageView == null || imageView.getImage() == null)
+			return 500;
+		
+		return Math.min(imageView.getImage().getWidth(), imageView.getImage().getHeight());
+	}
+	
+	/**
+	 * Gets the range of coordinates the chart is currently showing, the same along every axis
+	 * @return The smallest and largest coordinate on any axis, or 0 and 10 if there is no chart
+	 */
+	public double[] getViewRange()
+	{
+		if (chart == null || chart.getView().getBounds() == null)
+			return new double[] {0, 10};
+		
+		BoundingBox3d bounds = chart.getView().getBounds();
+		
+		double min = Math.min(bounds.getXmin(), Math.min(bounds.getYmin(), bounds.getZmin()));
+		double max = Math.max(bounds.getXmax(), Math.max(bounds.getYmax(), bounds.getZmax()));
+		
+		if (!(max > min))
+			return new double[] {0, 10};
+		
+		return new double[] {min, max};
+	}
+	
+	/**
+	 * @return The vectors on the graph
+	 */
+	public VectorStore getVectors()
+	{
+		return vectors;
+	}
 }
@@ -1,13 +1,24 @@
 package vectorVisualizer.viewer;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 import org.jzy3d.colors.Color;
-import org.jzy3d.maths.Range;
-import org.jzy3d.plot3d.builder.Builder;
-import org.jzy3d.plot3d.builder.Mapper;
 import org.jzy3d.plot3d.primitives.Shape;
 
+import javafx.application.Platform;
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.concurrent.WorkerStateEvent;
 import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
 import javafx.geometry.Insets;
@@ -15,20 +26,31 @@ import javafx.geometry.Pos;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
 import javafx.scene.text.*;
+import javafx.stage.FileChooser;
+import javafx.util.Callback;
+import javafx.util.StringConverter;
 import vectorVisualizer.math.Functions;
+import vectorVisualizer.math.expr.Expression;
 import vectorVisualizer.vectors.Vector;
+import vectorVisualizer.vectors.VectorSource;
+import vectorVisualizer.vectors.VectorStore;
 
 public class Menu extends StackPane
 {
 	/**
-	 * The arraylist of vectors. All the vectors
+	 * The store of vectors. All the vectors
 	 */
-	private ArrayList<Vector> vectors;
+	private VectorStore vectors;
 	
 	/**
-	 * The arraylist of vectors currently selected by the user
+	 * The vectors currently selected by the user
 	 */
-	private ArrayList<Vector> selectedVectors;
+	private SelectionModel selection;
+	
+	/**
+	 * The selected vectors shown in the VectorInfo portion of the menu, in the order they were selected
+	 */
+	private ObservableList<Vector> selectedInfo;
 	
 	/**
 	 * The grid which everything in the menu if placed onto
@@ -45,6 +67,21 @@ public class Menu extends StackPane
 	 */
 	private VBox vectorList;
 	
+	/**
+	 * The list showing every vector
+	 */
+	private ListView<Vector> vectorListView;
+	
+	/**
+	 * The list of vectors shown by vectorListView
+	 */
+	private VectorListModel vectorListModel;
+	
+	/**
+	 * Builds the planes made by the Create Plane button, keeping the ones it has built
+	 */
+	private PlaneTessellator planes = new PlaneTessellator();
+	
 	/**
 	 * The vertical box for vectormath
 	 */
@@ -55,18 +92,53 @@ public class Menu extends StackPane
 	 */
 	private VBox vectorInfo;
 	
+	/**
+	 * The vertical box for the vector field
+	 */
+	private VBox vectorField;
+	
+	/**
+	 * Samples and shows the vector field, created once the menu is
+	 */
+	private VectorFieldLayer fieldLayer;
+	
+	/**
+	 * The math buttons, which are made once and enabled when enough vectors are selected
+	 */
+	private Button unitVector, angle, cProduct, dProduct, plane;
+	
+	/**
+	 * Where the results of the math are shown
+	 */
+	private Text output;
+	
+	/**
+	 * If more vectors than this change selection at once, the whole vector list is refreshed instead of row by row
+	 */
+	private static final int ROW_UPDATE_LIMIT = 64;
+	
 	/**
 	 * Creates a new Menu object with the given graph and list of vectors
 	 * @param graph The graph
-	 * @param v Arraylist of vectors
+	 * @param v Store of vectors
 	 */
-	public Menu(Graph graph, ArrayList<Vector> v)
+	public Menu(Graph graph, VectorStore v)
 	{
 		this.graph = graph;
 		vectors = v;
+		selection = new SelectionModel();
+		selectedInfo = FXCollections.observableArrayList();
+		
 		initMenu();
 		
-		selectedVectors = new ArrayList<Vector>();
+		selection.addListener(new SelectionModel.Listener()
+		{
+			@Override
+			public void selectionChanged(List<Vector> added, List<Vector> removed)
+			{
+				Menu.this.selectionChanged(added, removed);
+			}
+		});
 	}
 
 	/**
@@ -144,18 +216,188 @@ public class Menu extends StackPane
 				*/
 				public void handle(ActionEvent arg0)
 				{
-					if (vectors.size() < 10)
+					graph.addVector(new int[] {0, 0, 0}, new int[] {Integer.parseInt(xVal.getText()), Integer.parseInt(yVal.getText()), Integer.parseInt(zVal.getText())});
+					updateVectorList();
+					selection.clear();
+				}
+			
+			});
+			
+			//Move Button
+			Button moveButton = new Button("Move Selected Vector");
+			
+			moveButton.setOnAction(new EventHandler<ActionEvent>()
+			{
+				@Override
+				/**
+				* Moves the first selected vector so it points to the values in the text fields
+				*/
+				public void handle(ActionEvent arg0)
+				{
+					if (selection.size() == 0 || selection.get(0).getStore() != vectors)
+						return;
+					
+					double[] end = {Integer.parseInt(xVal.getText()), Integer.parseInt(yVal.getText()), Integer.parseInt(zVal.getText())};
+					
+					setVector(selection.get(0).getIndex(), new double[] {0, 0, 0}, end);
+				}
+			
+			});
+			
+			//Remove Button
+			Button removeButton = new Button("Remove Selected Vectors");
+			
+			removeButton.setOnAction(new EventHandler<ActionEvent>()
+			{
+				@Override
+				/**
+				* Removes every selected vector from the graph, redrawing it once
+				*/
+				public void handle(ActionEvent arg0)
+				{
+					List<Vector> selected = selection.toList();
+					int[] indices = new int[selected.size()];
+					int count = 0;
+					
+					for (Vector v : selected)
+					{
+						if (v.getStore() == vectors)
+							indices[count++] = v.getIndex();
+					}
+					
+					//All at once, so each step of removing them goes through the vectors a single time
+					indices = Arrays.copyOf(indices, count);
+					Arrays.sort(indices);
+					
+					removeVectors(indices);
+				}
+			
+			});
+			
+			//Import Button
+			Button importButton = new Button("Import Vectors");
+			ProgressBar importProgress = new ProgressBar(0);
+			Label importStatus = new Label();
+			
+			importButton.setOnAction(new EventHandler<ActionEvent>()
+			{
+				@Override
+				/**
+				* Asks for a vector file and adds its vectors to the graph. Binary files are copied out of a mapping on the geometry worker, CSV files are streamed in the background showing the progress as they go
+				*/
+				public void handle(ActionEvent arg0)
+				{
+					FileChooser chooser = new FileChooser();
+					chooser.setTitle("Import Vectors");
+					chooser.getExtensionFilters().addAll(new FileChooser.ExtensionFilter("Vector files", "*.csv", "*.vvec"), new FileChooser.ExtensionFilter("CSV files", "*.csv"), new FileChooser.ExtensionFilter("Binary vector files", "*.vvec"));
+					
+					File file = chooser.showOpenDialog(getScene().getWindow());
+					
+					if (file == null)
+						return;
+					
+					importStatus.textProperty().unbind();
+					
+					if (file.getName().toLowerCase().endsWith(".vvec"))
 					{
-						graph.addVector(new int[] {0, 0, 0}, new int[] {Integer.parseInt(xVal.getText()), Integer.parseInt(yVal.getText()), Integer.parseInt(zVal.getText())});
-						updateVectorList();
-						for (Vector v : selectedVectors)
-							removeSelectedVector(v);
+						importStatus.setText("Opening " + file.getName());
+						
+						//The file is read on the geometry worker, the list is only updated once its vectors are on the graph
+						graph.openVectorFile(file).thenRun(new Runnable()
+						{
+							@Override
+							public void run()
+							{
+								updateVectorList();
+								importStatus.setText("Opened " + file.getName());
+							}
+						}).exceptionally(new Function<Throwable, Void>()
+						{
+							@Override
+							public Void apply(Throwable e)
+							{
+								final Throwable cause = e.getCause() == null ? e : e.getCause();
+								
+								Platform.runLater(new Runnable()
+								{
+									@Override
+									public void run()
+									{
+										importStatus.setText("ERROR: " + cause.getMessage());
+									}
+								});
+								
+								return null;
+							}
+						});
+						
+						return;
 					}
+					
+					VectorImportTask task = new VectorImportTask(file, graph, new Runnable()
+					{
+						@Override
+						public void run()
+						{
+							updateVectorList();
+						}
+					});
+					
+					importProgress.progressProperty().bind(task.progressProperty());
+					importStatus.textProperty().bind(task.messageProperty());
+					importButton.disableProperty().bind(task.runningProperty());
+					
+					task.setOnFailed(new EventHandler<WorkerStateEvent>()
+					{
+						@Override
+						public void handle(WorkerStateEvent event)
+						{
+							importStatus.textProperty().unbind();
+							importStatus.setText("ERROR: " + task.getException().getMessage());
+						}
+					});
+					
+					Thread thread = new Thread(task, "Vector import");
+					thread.setDaemon(true);
+					thread.start();
 				}
+			});
+			
+			//Save Button
+			Button saveButton = new Button("Save Vectors");
 			
+			saveButton.setOnAction(new EventHandler<ActionEvent>()
+			{
+				@Override
+				/**
+				* Asks where to save and writes every vector on the graph out as a binary vector file
+				*/
+				public void handle(ActionEvent arg0)
+				{
+					FileChooser chooser = new FileChooser();
+					chooser.setTitle("Save Vectors");
+					chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Binary vector files", "*.vvec"));
+					
+					File file = chooser.showSaveDialog(getScene().getWindow());
+					
+					if (file == null)
+						return;
+					
+					importStatus.textProperty().unbind();
+					
+					try
+					{
+						graph.saveVectorFile(file);
+						importStatus.setText("Saved " + file.getName());
+					}
+					catch (IOException e)
+					{
+						importStatus.setText("ERROR: " + e.getMessage());
+					}
+				}
 			});
 			
-		addVector.getChildren().addAll(xValBox, yValBox, zValBox, addButton);
+		addVector.getChildren().addAll(xValBox, yValBox, zValBox, addButton, moveButton, removeButton, importButton, saveButton, importProgress, importStatus);
 		
 		//Vector List
 		vectorList = new VBox();
@@ -164,8 +406,20 @@ public class Menu extends StackPane
 		vectorListText.setFont(Font.font("Arial", FontWeight.SEMI_BOLD, 14));
 		vectorList.getChildren().add(vectorListText);
 		
-		for (Vector v : vectors)
-			vectorList.getChildren().add(v.display(this));
+		//Only the rows on screen get nodes, so the list stays quick however many vectors there are
+		vectorListModel = new VectorListModel(vectors);
+		vectorListView = new ListView<Vector>(vectorListModel);
+		vectorListView.setFixedCellSize(32);
+		vectorListView.setCellFactory(new Callback<ListView<Vector>, ListCell<Vector>>()
+		{
+			@Override
+			public ListCell<Vector> call(ListView<Vector> list)
+			{
+				return new VectorCell(Menu.this);
+			}
+		});
+		
+		vectorList.getChildren().add(vectorListView);
 		
 		//Vector Math
 		vectorMath = new VBox();
@@ -174,6 +428,8 @@ public class Menu extends StackPane
 		vectorMathText.setFont(Font.font("Arial", FontWeight.SEMI_BOLD, 14));
 		vectorMath.getChildren().add(vectorMathText);
 		
+		populateVectorMath();
+		
 		//Vector Info
 		vectorInfo = new VBox();
 		
@@ -181,36 +437,186 @@ public class Menu extends StackPane
 		vectorInfoText.setFont(Font.font("Arial", FontWeight.SEMI_BOLD, 14));
 		vectorInfo.getChildren().add(vectorInfoText);
 		
+		//Like the vector list, only the selected vectors on screen get nodes
+		ListView<Vector> vectorInfoView = new ListView<Vector>(selectedInfo);
+		vectorInfoView.setCellFactory(new Callback<ListView<Vector>, ListCell<Vector>>()
+		{
+			@Override
+			public ListCell<Vector> call(ListView<Vector> list)
+			{
+				return new SelectedVectorCell();
+			}
+		});
+		
+		vectorInfo.getChildren().add(vectorInfoView);
+		
 		grid.add(addVector, 0, 0);
 		grid.add(vectorList, 0, 1);
 		grid.add(vectorMath, 1, 0);
 		grid.add(vectorInfo, 1, 1);
+		
+		//Vector Field
+		vectorField = new VBox();
+		
+		Text vectorFieldText = new Text("Vector Field");
+		vectorFieldText.setFont(Font.font("Arial", FontWeight.SEMI_BOLD, 14));
+		vectorField.getChildren().add(vectorFieldText);
+		
+		populateVectorField();
+		
+		grid.add(vectorField, 2, 0);
 	}
 	
 	/**
-	 * Creates and fills all the buttons and placeholders for the VectorMath portion of the menu
+	 * Creates the controls for the VectorField portion of the menu. The field is a vector expression of the position p, sampled over a cube of points
 	 */
-	private void populateVectorMath()
+	private void populateVectorField()
 	{
-		vectorMath.getChildren().remove(0, vectorMath.getChildren().size());
+		fieldLayer = new VectorFieldLayer(graph, new Consumer<String>()
+		{
+			@Override
+			public void accept(String report)
+			{
+				output.setText(report);
+			}
+		});
 		
-		Text output = new Text("");
+		TextField field = new TextField();
+		field.setPromptText("<-y(p), x(p), 0>");
 		
-		//Unit Vector
-		Button unitVector = new Button("unitVector");
+		TextField min = new TextField("-5");
+		min.setPrefColumnCount(4);
 		
-		if (selectedVectors.size() < 1)
-			unitVector.setDisable(true);
-		else
-			unitVector.setDisable(false);
+		TextField max = new TextField("5");
+		max.setPrefColumnCount(4);
+		
+		HBox rangeBox = new HBox();
+		rangeBox.getChildren().addAll(new Text("From "), min, new Text(" to "), max);
+		
+		//The slider picks a level rather than any number of points. Level k has 2^k + 1 points along each side, so the points of each level are every other point of the next one.
+		//A step down reuses every sample and a step up reuses one in eight, anything else along the way would share almost none
+		Slider density = new Slider(1, 6, 3);
+		density.setMajorTickUnit(1);
+		density.setMinorTickCount(0);
+		density.setSnapToTicks(true);
+		density.setShowTickMarks(true);
+		density.setShowTickLabels(true);
+		density.setLabelFormatter(new StringConverter<Double>()
+		{
+			@Override
+			public String toString(Double level)
+			{
+				return "" + pointsPerSide(level);
+			}
+			
+			@Override
+			public Double fromString(String string)
+			{
+				return null;
+			}
+		});
+		
+		Text densityText = new Text(pointsPerSide(density.getValue()) + " per side");
+		
+		HBox densityBox = new HBox();
+		densityBox.getChildren().addAll(density, densityText);
+		
+		//Showing again only evaluates the points that weren't on the last grid, so the slider resamples as it is dragged through the levels
+		final boolean[] shown = { false };
+		
+		final Runnable showField = new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				try
+				{
+					Expression e = Expression.compile(field.getText());
+					double low = Double.parseDouble(min.getText().trim());
+					double high = Double.parseDouble(max.getText().trim());
+					int n = pointsPerSide(density.getValue());
+					
+					fieldLayer.show(e, new double[] { low, low, low }, new double[] { high, high, high }, new int[] { n, n, n });
+					shown[0] = true;
+				}
+				catch (NumberFormatException e)
+				{
+					output.setText("ERROR: The range has to be two numbers");
+				}
+				catch (IllegalArgumentException e)
+				{
+					output.setText("ERROR: " + e.getMessage());
+				}
+			}
+		};
+		
+		density.valueProperty().addListener(new ChangeListener<Number>()
+		{
+			@Override
+			public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue)
+			{
+				int n = pointsPerSide(newValue.doubleValue());
+				
+				if (n == pointsPerSide(oldValue.doubleValue()))
+					return;
+				
+				densityText.setText(n + " per side");
+				
+				if (shown[0])
+					showField.run();
+			}
+		});
+		
+		Button show = new Button("Show Field");
+		
+		show.setOnAction(new EventHandler<ActionEvent>() {
+			
+			@Override
+			public void handle(ActionEvent event)
+			{
+				showField.run();
+			}
+		
+		});
+		
+		Button clear = new Button("Clear Field");
+		
+		clear.setOnAction(new EventHandler<ActionEvent>() {
+			
+			@Override
+			public void handle(ActionEvent event)
+			{
+				shown[0] = false;
+				fieldLayer.clear();
+			}
+		
+		});
+		
+		HBox buttonBox = new HBox();
+		buttonBox.getChildren().addAll(show, clear);
+		
+		vectorField.getChildren().addAll(field, rangeBox, densityBox, buttonBox);
+	}
+	
+	/**
+	 * Creates and fills all the buttons and placeholders for the VectorMath portion of the menu. This is only done once, the buttons are enabled and disabled as the selection changes
+	 */
+	private void populateVectorMath()
+	{
+		output = new Text("");
+		
+		//Unit Vector
+		unitVector = new Button("unitVector");
 		
 		unitVector.setOnAction(new EventHandler<ActionEvent>() {
 
 			@Override
 			public void handle(ActionEvent event) {
-				graph.addVector(selectedVectors.get(0).getUnitVector());
+				Vector v = selection.get(0);
+				
+				graph.addVector(v.getUnitVector());
 				updateVectorList();
-				removeSelectedVector(selectedVectors.get(0));
+				selection.deselect(v);
 				
 				System.out.println("Added vector");
 			}
@@ -218,96 +624,204 @@ public class Menu extends StackPane
 		});
 		
 		//Angle Between Two Vectors
-		Button angle = new Button("Angle between vectors");
-		
-		if (selectedVectors.size() < 2)
-			angle.setDisable(true);
-		else
-			angle.setDisable(false);
+		angle = new Button("Angle between vectors");
 		
 		angle.setOnAction(new EventHandler<ActionEvent>() {
 
 			@Override
 			public void handle(ActionEvent event) {
-				output.setText("" + Vector.angleBetweenVectors(selectedVectors.get(0), selectedVectors.get(1)));
+				output.setText("" + Vector.angleBetweenVectors(selection.get(0), selection.get(1)));
 			}
 			
 		});
 		
 		//Cross-product
-		Button cProduct = new Button("Cross-Product");
-		
-		if (selectedVectors.size() < 2)
-			cProduct.setDisable(true);
-		else
-			cProduct.setDisable(false);
+		cProduct = new Button("Cross-Product");
 		
 		cProduct.setOnAction(new EventHandler<ActionEvent>() {
 
 			@Override
 			public void handle(ActionEvent event) {
-				output.setText("" + Functions.cProduct(selectedVectors.get(0), selectedVectors.get(1)));
+				output.setText("" + Functions.cProduct(selection.get(0), selection.get(1)));
 			}
 			
 		});
 		
 		//Dot product
-		Button dProduct = new Button("Dot-Product");
-		
-		if (selectedVectors.size() < 2)
-			dProduct.setDisable(true);
-		else
-			dProduct.setDisable(false);
+		dProduct = new Button("Dot-Product");
 		
 		dProduct.setOnAction(new EventHandler<ActionEvent>() {
 
 			@Override
 			public void handle(ActionEvent event) {
-				output.setText("" + Functions.dProduct(selectedVectors));
+				output.setText("" + Functions.dProduct(selection.toList()));
 			}
 			
 		});
 		
-		Button plane = new Button("Create Plane");
-		
-		if (selectedVectors.size() < 2)
-			plane.setDisable(true);
-		else
-			plane.setDisable(false);
+		plane = new Button("Create Plane");
 		
 		plane.setOnAction(new EventHandler<ActionEvent>() {
 
 			@Override
 			public void handle(ActionEvent event) 
 			{
-				Vector crossProduct = Functions.cProduct(selectedVectors.get(0), selectedVectors.get(1));
+				double[] normal = Functions.cProduct(selection.get(0), selection.get(1)).getComponents();
 				
-				if (crossProduct.getComponents()[2] == 0)
-					output.setText("ERROR: Vertical planes are not supported");
+				if (normal[0] == 0 && normal[1] == 0 && normal[2] == 0)
+					output.setText("ERROR: The vectors are parallel, so they don't make a plane");
 				else
 				{
-					Mapper mapper = new Mapper() {
-						/**
-						 * Returns the equation of a plane using the cross-product of the vectors selected
-						 */
-						public double f(double x, double y)
+					//Cover what the chart is showing, with cells about the same size on screen however big it is
+					double[] range = graph.getViewRange();
+					int steps = PlaneTessellator.stepsFor(graph.getViewportSize());
+					
+					//Tessellating the plane can take a while, so build it in the background and add it once it's done
+					graph.addAsync(new Callable<Shape>()
+					{
+						@Override
+						public Shape call()
+						{
+							//The shape and its polygons are new and not on the chart yet, so styling them here doesn't touch anything being drawn
+							Shape testSurface = planes.build(normal, range[0], range[1], steps);
+							
+							testSurface.setColor(Color.RED);
+							testSurface.setFaceDisplayed(true);
+							testSurface.setWireframeDisplayed(true);
+							
+							return testSurface;
+						}
+					}).exceptionally(new Function<Throwable, Void>()
+					{
+						@Override
+						public Void apply(Throwable e)
 						{
-							return -(crossProduct.getComponents()[0]/crossProduct.getComponents()[2])*x - (crossProduct.getComponents()[1]/crossProduct.getComponents()[2])*y;
+							final Throwable cause = e.getCause() == null ? e : e.getCause();
+							
+							Platform.runLater(new Runnable()
+							{
+								@Override
+								public void run()
+								{
+									output.setText("ERROR: The plane couldn't be built: " + cause.getMessage());
+								}
+							});
+							
+							return null;
 						}
-					};
+					});
+				}
+			}
+			
+		});
+		
+		//Expression
+		//The selected vectors are a, b, c... in the order they were selected
+		TextField expression = new TextField();
+		expression.setPromptText("proj(a, b) + cross(a, b) * 2");
+		
+		Button evaluate = new Button("Evaluate");
+		
+		evaluate.setOnAction(new EventHandler<ActionEvent>() {
+			
+			@Override
+			public void handle(ActionEvent event)
+			{
+				try
+				{
+					Expression e = Expression.compile(expression.getText());
 					
-					Shape testSurface = Builder.buildOrthonormal(mapper, new Range(0, 10), 10);
+					double[] x = new double[1], y = new double[1], z = new double[1];
+					e.evaluateColumns(bindVariables(e, false), x, y, z);
 					
-					testSurface.setColor(Color.RED);
-					testSurface.setFaceDisplayed(true);
-					testSurface.setWireframeDisplayed(true);
-				
-					graph.add(testSurface);
+					output.setText(e.isVector() ? "<" + x[0] + ", " + y[0] + ", " + z[0] + ">" : "" + x[0]);
+				}
+				catch (IllegalArgumentException e)
+				{
+					output.setText("ERROR: " + e.getMessage());
+				}
+			}
+			
+		});
+		
+		//Runs the expression over the whole store at once with v as each vector on the geometry worker, adding every result to the graph
+		Button applyAll = new Button("Apply to every vector (v)");
+		
+		applyAll.setOnAction(new EventHandler<ActionEvent>() {
+			
+			@Override
+			public void handle(ActionEvent event)
+			{
+				try
+				{
+					Expression e = Expression.compile(expression.getText());
+					
+					if (!e.isVector())
+					{
+						output.setText("ERROR: The expression has to give a vector to add to the graph");
+						return;
+					}
+					
+					//v is bound to a copy, since the graph's vectors can change while the worker reads them
+					final VectorSource[] sources = bindVariables(e, true);
+					final int[] added = new int[1];
+					
+					//An expression without v is only worked out once, whatever the number of vectors
+					final int rows = Expression.rows(sources);
+					
+					output.setText("Evaluating " + rows + (rows == 1 ? " row" : " rows"));
+					
+					graph.computeVectorsAsync(new Callable<VectorStore>()
+					{
+						@Override
+						public VectorStore call()
+						{
+							VectorStore results = new VectorStore(rows);
+							added[0] = e.evaluateInto(sources, results, 0x000000FF);
+							
+							return results;
+						}
+					}).thenRun(new Runnable()
+					{
+						@Override
+						public void run()
+						{
+							updateVectorList();
+							
+							int skipped = rows - added[0];
+							output.setText("Added " + added[0] + " vectors" + (skipped > 0 ? ", skipped " + skipped + " that had no finite result" : ""));
+						}
+					}).exceptionally(new Function<Throwable, Void>()
+					{
+						@Override
+						public Void apply(Throwable t)
+						{
+							final Throwable cause = t.getCause() == null ? t : t.getCause();
+							
+							Platform.runLater(new Runnable()
+							{
+								@Override
+								public void run()
+								{
+									output.setText("ERROR: " + cause.getMessage());
+								}
+							});
+							
+							return null;
+						}
+					});
+				}
+				catch (IllegalArgumentException e)
+				{
+					output.setText("ERROR: " + e.getMessage());
 				}
 			}
 			
 		});
 		
+		HBox expressionBox = new HBox();
+		expressionBox.getChildren().addAll(expression, evaluate);
+		
 		//extra
 		//Output Box
 		HBox outputHBox = new HBox();
@@ -315,70 +829,174 @@ public class Menu extends StackPane
 		
 		outputHBox.getChildren().addAll(outputText, output);
 		
-		vectorMath.getChildren().addAll(unitVector, angle, cProduct, dProduct, plane, outputHBox);
+		vectorMath.getChildren().addAll(unitVector, angle, cProduct, dProduct, plane, expressionBox, applyAll, outputHBox);
+		
+		updateMathButtons();
 	}
 	
 	/**
-	 * Updates the list of the vectors
+	 * @param level A level of the field density slider, rounded to the nearest whole one
+	 * @return The number of points along each side of the field's grid at that level, 2^level + 1
 	 */
-	private void updateVectorList()
+	private static int pointsPerSide(double level)
 	{
-		vectorList.getChildren().remove(0, vectorList.getChildren().size());
-		
-		Text vectorListText = new Text("Vectors");
-		vectorListText.setFont(Font.font("Arial", FontWeight.SEMI_BOLD, 14));
-		vectorList.getChildren().add(vectorListText);
-		
-		for (Vector v : vectors)
-			vectorList.getChildren().add(v.display(this));
+		return (1 << (int) Math.round(level)) + 1;
 	}
 	
 	/**
-	 * Updated the VectorInfo portion of the menu with the selected vector's info
+	 * Works out which vectors an expression's variables stand for. a is the first selected vector, b the second, and so on
+	 * @param e The expression
+	 * @param everyVector True if v stands for a copy of every vector on the graph, one row each
+	 * @return The vectors for each variable, in the order of {@link Expression#getVariables()}
+	 * @throws IllegalArgumentException If a variable doesn't stand for anything
 	 */
-	private void updateVectorInfo()
+	private VectorSource[] bindVariables(Expression e, boolean everyVector)
 	{
-		//VBox vectorInfo = new VBox();
-		
-		vectorInfo.getChildren().remove(0, vectorInfo.getChildren().size());
+		List<String> names = e.getVariables();
+		VectorSource[] sources = new VectorSource[names.size()];
 		
-		for (int i = 0; i < selectedVectors.size(); i++)
+		for (int i = 0; i < sources.length; i++)
 		{
-			GridPane mag = new GridPane();
-			GridPane dir = new GridPane();
-			
-			//Magnitude
-			mag.setGridLinesVisible(true);
-			
-			Text magText = new Text("Vector " + i + " Magnitude");
-			magText.setFont(Font.font("Arial", FontWeight.SEMI_BOLD, 14));
-			
-			Text magVal = new Text("" + selectedVectors.get(i).getMagnitude());
-			magVal.setFont(Font.font("Arial", FontWeight.NORMAL, 14));
+			String name = names.get(i);
 			
-			mag.add(magText, 0, 0);
-			mag.add(magVal, 1, 0);
-			
-			mag.setBackground(new Background(new BackgroundFill[] {new BackgroundFill(selectedVectors.get(i).getColor(), null, null)}));
-			
-			//Direction
-			
-			dir.setGridLinesVisible(true);
+			if (everyVector && name.equals("v"))
+			{
+				VectorStore copy = new VectorStore(vectors.size());
+				copy.addAll(vectors);
+				sources[i] = copy;
+				continue;
+			}
 			
-			Text dirText = new Text("Vector " + i + " Direction");
-			dirText.setFont(Font.font("Arial", FontWeight.SEMI_BOLD, 14));
+			int n = name.length() == 1 ? name.charAt(0) - 'a' : -1;
 			
-			Text dirVal = new Text("x-direction: " + selectedVectors.get(i).getDirection()[0] + "\ny-direction" + selectedVectors.get(i).getDirection()[1] + "\nz-direction" + selectedVectors.get(i).getDirection()[2]);
-			dirVal.setFont(Font.font("Arial", FontWeight.NORMAL, 14));
+			if (n < 0 || n >= 26)
+				throw new IllegalArgumentException("Unknown variable " + name + ", use a, b, c... for the selected vectors");
 			
-			dir.add(dirText, 0, 0);
-			dir.add(dirVal, 1, 0);
+			if (n >= selection.size())
+				throw new IllegalArgumentException(name + " needs at least " + (n + 1) + " vectors to be selected");
 			
-			dir.setBackground(new Background(new BackgroundFill[] {new BackgroundFill(selectedVectors.get(i).getColor(), null, null)}));
+			VectorStore single = new VectorStore(1);
+			single.add(selection.get(n));
+			sources[i] = single;
+		}
+		
+		return sources;
+	}
+	
+	/**
+	 * Enables the math buttons which have enough vectors selected to work with, and disables the rest
+	 */
+	private void updateMathButtons()
+	{
+		int count = selection.size();
+		
+		unitVector.setDisable(count < 1);
+		angle.setDisable(count < 2);
+		cProduct.setDisable(count < 2);
+		dProduct.setDisable(count < 2);
+		plane.setDisable(count < 2);
+	}
+	
+	/**
+	 * Updates the list of the vectors with any added to or removed from the end of the store. Only the new rows are reported to the list
+	 */
+	void updateVectorList()
+	{
+		vectorListModel.refresh();
+	}
+	
+	/**
+	 * Removes a vector from the graph. The vector list drops its row, and the selection is moved along so it still points at the same vectors
+	 * @param index The index of the vector in the store
+	 */
+	public void removeVector(int index)
+	{
+		removeVectors(new int[] {index});
+	}
+	
+	/**
+	 * Removes many vectors from the graph at once. The store, the vector list, and the selection are each brought up to date in one go
+	 * @param sortedIndices The indices of the vectors in the store, smallest first and with no repeats
+	 */
+	public void removeVectors(int[] sortedIndices)
+	{
+		if (sortedIndices.length == 0)
+			return;
+		
+		//The list has to know about every vector before any can be taken out of it
+		vectorListModel.refresh();
+		
+		graph.removeVectors(sortedIndices);
+		vectorListModel.removed(sortedIndices);
+		selection.removedFromStore(vectors, sortedIndices);
+	}
+	
+	/**
+	 * Moves a vector on the graph to a new start and end point, redrawing its row in the vector list and its info if it is selected
+	 * @param index The index of the vector in the store
+	 * @param origin The new start point of the vector
+	 * @param end The new end point of the vector
+	 */
+	public void setVector(int index, double[] origin, double[] end)
+	{
+		graph.setVector(index, origin, end);
+		
+		Vector v = vectors.get(index);
+		
+		if (index < vectorListModel.size())
+			vectorListModel.updated(index);
+		
+		int row = selectedInfo.indexOf(v);
+		
+		if (row >= 0)
+			selectedInfo.set(row, v);
+	}
+	
+	/**
+	 * Brings the menu up to date with a change to the selection. Only the info rows and list rows of the vectors which changed are touched, and the math buttons are just enabled or disabled
+	 * @param added The vectors that were selected
+	 * @param removed The vectors that were deselected
+	 */
+	private void selectionChanged(List<Vector> added, List<Vector> removed)
+	{
+		//Views swapped for others, as when the vectors after a removed one move down, are listed again so the order is kept
+		if (!added.isEmpty() && !removed.isEmpty())
+			selectedInfo.setAll(selection.toList());
+		else
+		{
+			//Removing a list of many vectors would search it once per row, a set keeps that quick
+			if (selection.size() == 0)
+				selectedInfo.clear();
+			else if (!removed.isEmpty())
+				selectedInfo.removeAll(removed.size() == 1 ? removed : new HashSet<Vector>(removed));
 			
-			vectorInfo.getChildren().addAll(mag, dir);
+			selectedInfo.addAll(added);
 		}
 		
+		updateMathButtons();
+		
+		//Checkboxes in the vector list have to follow the selection however it was changed
+		if (added.size() + removed.size() > ROW_UPDATE_LIMIT)
+		{
+			vectorListView.refresh();
+			return;
+		}
+		
+		for (Vector v : added)
+			updateRow(v);
+		
+		for (Vector v : removed)
+			updateRow(v);
+	}
+	
+	/**
+	 * Tells the vector list that a vector's row needs drawing again
+	 * @param v The vector
+	 */
+	private void updateRow(Vector v)
+	{
+		if (v.getStore() == vectors && v.getIndex() < vectorListModel.size())
+			vectorListModel.updated(v.getIndex());
 	}
 	
 	/**
@@ -386,10 +1004,46 @@ public class Menu extends StackPane
 	 */
 	public void addSelectedVector(Vector v)
 	{
-		selectedVectors.add(v);		
+		selection.select(v);
+	}
+	
+	/**
+	 * Selects many vectors at once, such as every vector found in a box by {@link vectorVisualizer.spatial.Octree#inBox}. The menu is updated once for all of them
+	 * @param indices The indices of the vectors in the store
+	 */
+	public void selectVectors(int[] indices)
+	{
+		ArrayList<Vector> picked = new ArrayList<Vector>(indices.length);
 		
-		updateVectorInfo();
-		populateVectorMath();
+		for (int index : indices)
+			picked.add(vectors.get(index));
+		
+		selection.selectAll(picked);
+	}
+	
+	/**
+	 * @param v The vector to check
+	 * @return True if the vector is selected
+	 */
+	boolean isSelected(Vector v)
+	{
+		return selection.isSelected(v);
+	}
+	
+	/**
+	 * Selects the vector at the given index if it isn't selected, and deselects it if it is. Used when a vector is picked off of the chart
+	 * @param index The index of the vector in the store
+	 */
+	public void toggleSelectedVector(int index)
+	{
+		Vector v = vectors.get(index);
+		
+		if (isSelected(v))
+			removeSelectedVector(v);
+		else
+			addSelectedVector(v);
+		
+		vectorListView.scrollTo(index);
 	}
 	
 	/**
@@ -398,9 +1052,6 @@ public class Menu extends StackPane
 	 */
 	public void removeSelectedVector(Vector v)
 	{
-		selectedVectors.remove(v);
-		
-		updateVectorInfo();
-		populateVectorMath();
+		selection.deselect(v);
 	}
 }
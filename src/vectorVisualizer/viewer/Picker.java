@@ -0,0 +1,207 @@
+package vectorVisualizer.viewer;
+
+import org.jzy3d.chart.AWTChart;
+import org.jzy3d.maths.BoundingBox3d;
+import org.jzy3d.maths.Coord3d;
+import org.jzy3d.plot3d.rendering.view.Camera;
+import org.jzy3d.plot3d.rendering.view.View;
+
+import com.jogamp.opengl.GL;
+import com.jogamp.opengl.glu.GLU;
+
+import javafx.event.EventHandler;
+import javafx.scene.Cursor;
+import javafx.scene.control.Tooltip;
+import javafx.scene.image.ImageView;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+
+import vectorVisualizer.vectors.VectorStore;
+
+/**
+ * Lets vectors be picked straight off of the chart. The mouse position is turned into a ray through the scene,
+ * and the vector whose end point is nearest that ray is found with the graph's octree, so each mouse move costs about log n however many vectors there are.
+ * Hovering over a vector shows what it is, and clicking it selects or deselects it in the menu
+ * @author Robert "Drew" Weimer
+ */
+public class Picker
+{
+	/**
+	 * How close the ray has to pass to a vector's end point to pick it, as a fraction of the size of the view
+	 */
+	private static final double TOLERANCE = 0.03;
+	
+	/**
+	 * The graph the vectors are on
+	 */
+	private Graph graph;
+	
+	/**
+	 * The chart the vectors are drawn on
+	 */
+	private AWTChart chart;
+	
+	/**
+	 * The image view the chart is shown in
+	 */
+	private ImageView imageView;
+	
+	/**
+	 * The menu picked vectors are selected in
+	 */
+	private Menu menu;
+	
+	/**
+	 * Shows the vector under the mouse
+	 */
+	private Tooltip tooltip = new Tooltip();
+	
+	/**
+	 * Turns screen points into model points
+	 */
+	private GLU glu = new GLU();
+	
+	/**
+	 * The index of the vector under the mouse, or -1 if there isn't one
+	 */
+	private int hovered = -1;
+	
+	/**
+	 * Starts picking vectors in the given image view
+	 * @param graph The graph the vectors are on
+	 * @param chart The chart the vectors are drawn on
+	 * @param imageView The image view the chart is shown in
+	 * @param menu The menu picked vectors are selected in
+	 */
+	public Picker(Graph graph, AWTChart chart, ImageView imageView, Menu menu)
+	{
+		this.graph = graph;
+		this.chart = chart;
+		this.imageView = imageView;
+		this.menu = menu;
+		
+		imageView.addEventHandler(MouseEvent.MOUSE_MOVED, new EventHandler<MouseEvent>()
+		{
+			@Override
+			public void handle(MouseEvent event)
+			{
+				hover(pick(event.getX(), event.getY()));
+			}
+		});
+		
+		imageView.addEventHandler(MouseEvent.MOUSE_EXITED, new EventHandler<MouseEvent>()
+		{
+			@Override
+			public void handle(MouseEvent event)
+			{
+				hover(-1);
+			}
+		});
+		
+		imageView.addEventHandler(MouseEvent.MOUSE_CLICKED, new EventHandler<MouseEvent>()
+		{
+			@Override
+			public void handle(MouseEvent event)
+			{
+				//A drag turns the camera, see CameraController, so only a still click picks
+				if (event.getButton() != MouseButton.PRIMARY || !event.isStillSincePress())
+					return;
+				
+				int index = pick(event.getX(), event.getY());
+				
+				if (index >= 0)
+					menu.toggleSelectedVector(index);
+			}
+		});
+	}
+	
+	/**
+	 * Finds the vector under a point of the image view
+	 * @param x The x coordinate in the image view
+	 * @param y The y coordinate in the image view, which counts up from the bottom since the view is flipped
+	 * @return The index of the vector, or -1 if none are close enough
+	 */
+	public int pick(double x, double y)
+	{
+		if (graph.getVectors().isEmpty() || imageView.getImage() == null)
+			return -1;
+		
+		//The image can be drawn at a different size than it was rendered at
+		double width = imageView.getImage().getWidth();
+		double height = imageView.getImage().getHeight();
+		
+		//The image view is flipped to show the frame as OpenGL reads it, so its own y already counts up from the bottom like the screen coordinates the camera takes
+		double sx = x * width / imageView.getBoundsInLocal().getWidth();
+		double sy = y * height / imageView.getBoundsInLocal().getHeight();
+		
+		View view = chart.getView();
+		Camera camera = view.getCamera();
+		
+		Coord3d near, far;
+		
+		//Unprojecting needs the chart's GL context, which has to be let go of afterwards
+		GL gl = view.getCurrentGL();
+		
+		try
+		{
+			near = camera.screenToModel(gl, glu, new Coord3d(sx, sy, 0));
+			far = camera.screenToModel(gl, glu, new Coord3d(sx, sy, 1));
+		}
+		finally
+		{
+			view.getCurrentContext().release();
+		}
+		
+		if (near == null || far == null)
+			return -1;
+		
+		//The view squashes the axes to fit, so undo that to get back to the vectors' own coordinates
+		Coord3d scaling = view.getLastViewScaling();
+		double scaleX = scaling == null || scaling.x == 0 ? 1 : scaling.x;
+		double scaleY = scaling == null || scaling.y == 0 ? 1 : scaling.y;
+		double scaleZ = scaling == null || scaling.z == 0 ? 1 : scaling.z;
+		
+		double ox = near.x / scaleX, oy = near.y / scaleY, oz = near.z / scaleZ;
+		double dx = far.x / scaleX - ox, dy = far.y / scaleY - oy, dz = far.z / scaleZ - oz;
+		
+		return graph.getEndPointIndex().nearestToRay(ox, oy, oz, dx, dy, dz, tolerance(view));
+	}
+	
+	/**
+	 * @return How close the ray has to pass to a vector's end point to pick it
+	 */
+	private static double tolerance(View view)
+	{
+		BoundingBox3d bounds = view.getBounds();
+		
+		if (bounds == null || bounds.getRadius() <= 0)
+			return TOLERANCE;
+		
+		return bounds.getRadius() * 2 * TOLERANCE;
+	}
+	
+	/**
+	 * Shows which vector is under the mouse, if it changed
+	 * @param index The index of the vector under the mouse, or -1 if there isn't one
+	 */
+	private void hover(int index)
+	{
+		if (index == hovered)
+			return;
+		
+		hovered = index;
+		
+		if (index < 0)
+		{
+			imageView.setCursor(Cursor.DEFAULT);
+			Tooltip.uninstall(imageView, tooltip);
+			return;
+		}
+		
+		VectorStore vectors = graph.getVectors();
+		
+		imageView.setCursor(Cursor.HAND);
+		tooltip.setText("Vector " + vectors.getID(index) + ": " + vectors.get(index));
+		Tooltip.install(imageView, tooltip);
+	}
+}
@@ -0,0 +1,345 @@
+package vectorVisualizer.viewer;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jzy3d.maths.Coord3d;
+import org.jzy3d.plot3d.primitives.Point;
+import org.jzy3d.plot3d.primitives.Polygon;
+import org.jzy3d.plot3d.primitives.Shape;
+
+/**
+ * Builds the mesh of a plane through the origin from its normal, and keeps the vertices it has worked out so the same plane isn't tessellated twice.
+ * Every plane is built parametrically from two directions that lie in it, so vertical planes work the same as any other.
+ * The grid of a plane only depends on its normal and resolution, so when just the range changes the grid is scaled and moved rather than worked out again.
+ * Only numbers are cached. Each shape gets polygons of its own, since jzy3d polygons can't be shared between shapes in the scene
+ * @author Robert "Drew" Weimer
+ */
+public class PlaneTessellator
+{
+	/**
+	 * The fewest cells along each side of a plane
+	 */
+	public static final int MIN_STEPS = 4;
+	
+	/**
+	 * The most cells along each side of a plane
+	 */
+	public static final int MAX_STEPS = 64;
+	
+	/**
+	 * Roughly how many pixels wide each cell should be on screen
+	 */
+	private static final double PIXELS_PER_CELL = 24;
+	
+	/**
+	 * How many meshes and grids are kept before the least recently used are dropped
+	 */
+	private static final int CACHE_SIZE = 32;
+	
+	/**
+	 * Normals are rounded to this many parts in one before being compared, so tiny rounding differences still hit the cache
+	 */
+	private static final double NORMAL_PRECISION = 1e9;
+	
+	/**
+	 * Ranges are widened out to multiples of this fraction of a power of two around their length, so a view that was panned or zoomed a little uses the same mesh
+	 */
+	private static final int RANGE_DIVISIONS = 8;
+	
+	/**
+	 * The x, y, and z of every vertex of the finished meshes, row by row, by normal, range, and resolution
+	 */
+	private Map<Key, float[]> meshes = new Cache<float[]>();
+	
+	/**
+	 * The grids of each plane over a range of 0 to 1, by normal and resolution
+	 */
+	private Map<Key, Grid> grids = new Cache<Grid>();
+	
+	/**
+	 * A map that forgets the least recently used entry once it holds more than {@link PlaneTessellator#CACHE_SIZE}
+	 */
+	private static class Cache<V> extends LinkedHashMap<Key, V>
+	{
+		private static final long serialVersionUID = 1L;
+		
+		private Cache()
+		{
+			super(16, 0.75f, true);
+		}
+		
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Key, V> eldest)
+		{
+			return size() > CACHE_SIZE;
+		}
+	}
+	
+	/**
+	 * What a mesh or grid is cached under
+	 */
+	private static class Key
+	{
+		private final double nx, ny, nz, min, max;
+		private final int steps;
+		
+		private Key(double[] normal, double min, double max, int steps)
+		{
+			nx = normal[0];
+			ny = normal[1];
+			nz = normal[2];
+			this.min = min;
+			this.max = max;
+			this.steps = steps;
+		}
+		
+		@Override
+		public boolean equals(Object o)
+		{
+			if (!(o instanceof Key))
+				return false;
+			
+			Key other = (Key) o;
+			return nx == other.nx && ny == other.ny && nz == other.nz && min == other.min && max == other.max && steps == other.steps;
+		}
+		
+		@Override
+		public int hashCode()
+		{
+			int hash = Double.hashCode(nx);
+			hash = hash * 31 + Double.hashCode(ny);
+			hash = hash * 31 + Double.hashCode(nz);
+			hash = hash * 31 + Double.hashCode(min);
+			hash = hash * 31 + Double.hashCode(max);
+			return hash * 31 + steps;
+		}
+	}
+	
+	/**
+	 * The points of a plane's grid over a range of 0 to 1 along both of its directions
+	 */
+	private static class Grid
+	{
+		/**
+		 * The x, y, and z of every point, row by row
+		 */
+		private final float[] points;
+		
+		/**
+		 * The sum of the two directions. A point over the range min to max is min times this plus (max - min) times the point over 0 to 1
+		 */
+		private final double[] corner;
+		
+		private Grid(float[] points, double[] corner)
+		{
+			this.points = points;
+			this.corner = corner;
+		}
+	}
+	
+	/**
+	 * Picks how many cells to put along each side of a plane so that each is about the same size on screen
+	 * @param viewportPixels The width of the smaller side of the view in pixels
+	 * @return The number of cells along each side
+	 */
+	public static int stepsFor(double viewportPixels)
+	{
+		int steps = (int) Math.round(viewportPixels / PIXELS_PER_CELL);
+		
+		return Math.max(MIN_STEPS, Math.min(MAX_STEPS, steps));
+	}
+	
+	/**
+	 * Builds the plane through the origin with the given normal.
+	 * Planes steeper than 45 degrees are laid out across the horizontal and up the z axis, the rest across x and y, so no plane is stretched to infinity.
+	 * The range is widened a little to a rounded one, so it may cover slightly more than asked
+	 * @param normal The normal of the plane, typically the cross product of two vectors in it
+	 * @param min The start of the range covered along both directions of the plane
+	 * @param max The end of the range
+	 * @param steps The number of cells along each side
+	 * @return A new shape with polygons of its own, which nothing else holds, so it can be styled on any thread until it is added to the chart
+	 * @throws IllegalArgumentException If the normal has no length, so there is no plane
+	 */
+	public Shape build(double[] normal, double min, double max, int steps)
+	{
+		float[] vertices;
+		
+		synchronized (this)
+		{
+			double[] n = canonicalNormal(normal);
+			double[] range = roundRange(min, max);
+			
+			Key key = new Key(n, range[0], range[1], steps);
+			vertices = meshes.get(key);
+			
+			if (vertices == null)
+			{
+				vertices = place(grid(n, steps), range[0], range[1]);
+				meshes.put(key, vertices);
+			}
+		}
+		
+		return new Shape(tessellate(vertices, steps));
+	}
+	
+	/**
+	 * Widens a range out to multiples of an eighth of the power of two just under its length
+	 * @param min The start of the range
+	 * @param max The end of the range
+	 * @return The rounded start and end
+	 */
+	private static double[] roundRange(double min, double max)
+	{
+		double length = max - min;
+		
+		if (!(length > 0) || Double.isInfinite(length))
+			return new double[] {min, max};
+		
+		double unit = Math.scalb(1.0, Math.getExponent(length)) / RANGE_DIVISIONS;
+		
+		return new double[] {Math.floor(min / unit) * unit, Math.ceil(max / unit) * unit};
+	}
+	
+	/**
+	 * Scales the unit length of a normal, points it into the same half of space as every other normal of the same plane, and rounds it
+	 * @param normal The normal to tidy up
+	 * @return The normal used to look up and build the plane
+	 */
+	private static double[] canonicalNormal(double[] normal)
+	{
+		double length = Math.sqrt(normal[0] * normal[0] + normal[1] * normal[1] + normal[2] * normal[2]);
+		
+		if (length == 0 || Double.isNaN(length))
+			throw new IllegalArgumentException("The normal has no length, so there is no plane");
+		
+		double[] n = new double[3];
+		
+		for (int i = 0; i < 3; i++)
+			n[i] = Math.rint(normal[i] / length * NORMAL_PRECISION) / NORMAL_PRECISION;
+		
+		//n and -n are the same plane
+		if (n[2] < 0 || (n[2] == 0 && (n[1] < 0 || (n[1] == 0 && n[0] < 0))))
+		{
+			for (int i = 0; i < 3; i++)
+				n[i] = -n[i] + 0.0;
+		}
+		
+		return n;
+	}
+	
+	/**
+	 * Gets the grid of a plane over a range of 0 to 1, working it out if it isn't cached
+	 * @param n The canonical normal of the plane
+	 * @param steps The number of cells along each side
+	 * @return The grid
+	 */
+	private Grid grid(double[] n, int steps)
+	{
+		Key key = new Key(n, 0, 1, steps);
+		Grid grid = grids.get(key);
+		
+		if (grid != null)
+			return grid;
+		
+		double[] a, b;
+		
+		if (n[2] >= Math.sqrt(0.5))
+		{
+			//Shallow planes go across x and y, with z = -(nx * x + ny * y) / nz
+			a = new double[] {1, 0, -n[0] / n[2]};
+			b = new double[] {0, 1, -n[1] / n[2]};
+		}
+		else
+		{
+			//Steep and vertical planes go along the horizontal line in the plane, and up so that z rises by 1 each step
+			double horizontal = Math.sqrt(n[0] * n[0] + n[1] * n[1]);
+			double flat = n[0] * n[0] + n[1] * n[1];
+			
+			a = new double[] {-n[1] / horizontal, n[0] / horizontal, 0};
+			b = new double[] {-n[2] * n[0] / flat, -n[2] * n[1] / flat, 1};
+		}
+		
+		int side = steps + 1;
+		float[] points = new float[side * side * 3];
+		
+		for (int i = 0, p = 0; i < side; i++)
+		{
+			double s = (double) i / steps;
+			
+			for (int j = 0; j < side; j++, p += 3)
+			{
+				double t = (double) j / steps;
+				
+				points[p] = (float) (s * a[0] + t * b[0]);
+				points[p + 1] = (float) (s * a[1] + t * b[1]);
+				points[p + 2] = (float) (s * a[2] + t * b[2]);
+			}
+		}
+		
+		grid = new Grid(points, new double[] {a[0] + b[0], a[1] + b[1], a[2] + b[2]});
+		grids.put(key, grid);
+		
+		return grid;
+	}
+	
+	/**
+	 * Moves a grid over a range
+	 * @param grid The grid over a range of 0 to 1
+	 * @param min The start of the range
+	 * @param max The end of the range
+	 * @return The x, y, and z of every vertex, row by row
+	 */
+	private static float[] place(Grid grid, double min, double max)
+	{
+		double scale = max - min;
+		float[] vertices = new float[grid.points.length];
+		
+		for (int p = 0; p < vertices.length; p += 3)
+		{
+			vertices[p] = (float) (min * grid.corner[0] + scale * grid.points[p]);
+			vertices[p + 1] = (float) (min * grid.corner[1] + scale * grid.points[p + 1]);
+			vertices[p + 2] = (float) (min * grid.corner[2] + scale * grid.points[p + 2]);
+		}
+		
+		return vertices;
+	}
+	
+	/**
+	 * Builds a new polygon for each cell of a mesh
+	 * @param vertices The x, y, and z of every vertex, row by row
+	 * @param steps The number of cells along each side
+	 * @return The polygons of the mesh
+	 */
+	private static List<Polygon> tessellate(float[] vertices, int steps)
+	{
+		int side = steps + 1;
+		
+		Coord3d[] coords = new Coord3d[side * side];
+		
+		for (int c = 0, p = 0; c < coords.length; c++, p += 3)
+			coords[c] = new Coord3d(vertices[p], vertices[p + 1], vertices[p + 2]);
+		
+		List<Polygon> mesh = new ArrayList<Polygon>(steps * steps);
+		
+		for (int i = 0; i < steps; i++)
+		{
+			for (int j = 0; j < steps; j++)
+			{
+				int corner = i * side + j;
+				
+				Polygon cell = new Polygon();
+				cell.add(new Point(coords[corner]));
+				cell.add(new Point(coords[corner + side]));
+				cell.add(new Point(coords[corner + side + 1]));
+				cell.add(new Point(coords[corner + 1]));
+				
+				mesh.add(cell);
+			}
+		}
+		
+		return mesh;
+	}
+}
@@ -0,0 +1,50 @@
+package vectorVisualizer.viewer;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javafx.animation.AnimationTimer;
+
+/**
+ * Renders the chart on demand. Changes only mark the chart as dirty, and on each JavaFX pulse the chart is rendered once if anything was marked.
+ * A burst of changes between two pulses costs a single render, and a pulse with no changes costs nothing
+ * @author Robert "Drew" Weimer
+ */
+public class RenderScheduler extends AnimationTimer
+{
+	/**
+	 * True if something changed since the last render
+	 */
+	private AtomicBoolean dirty = new AtomicBoolean();
+	
+	/**
+	 * Does the actual render, run on the JavaFX thread
+	 */
+	private Runnable render;
+	
+	/**
+	 * Creates a scheduler. It does nothing until {@link #start()} is called
+	 * @param render Applies the pending changes and renders the chart, run on the JavaFX thread at most once per pulse
+	 */
+	public RenderScheduler(Runnable render)
+	{
+		this.render = render;
+	}
+	
+	/**
+	 * Marks the chart as needing a render on the next pulse. Safe to call from any thread
+	 */
+	public void requestRender()
+	{
+		dirty.set(true);
+	}
+	
+	@Override
+	/**
+	 * Renders if anything was marked since the last pulse
+	 */
+	public void handle(long now)
+	{
+		if (dirty.getAndSet(false))
+			render.run();
+	}
+}
@@ -0,0 +1,117 @@
+package vectorVisualizer.viewer;
+
+import javafx.scene.control.ListCell;
+import javafx.scene.layout.Background;
+import javafx.scene.layout.BackgroundFill;
+import javafx.scene.layout.GridPane;
+import javafx.scene.layout.VBox;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+import javafx.scene.text.Text;
+
+import vectorVisualizer.vectors.Vector;
+
+/**
+ * One row of the selected vector info, showing the magnitude and direction of a vector. Like {@link VectorCell} the nodes are built once and only filled in as the row is reused
+ * @author Robert "Drew" Weimer
+ */
+public class SelectedVectorCell extends ListCell<Vector>
+{
+	/**
+	 * Holds the magnitude and direction grids
+	 */
+	private VBox info;
+	
+	/**
+	 * The grid showing the magnitude
+	 */
+	private GridPane mag;
+	
+	/**
+	 * The grid showing the direction
+	 */
+	private GridPane dir;
+	
+	/**
+	 * The magnitude heading
+	 */
+	private Text magText;
+	
+	/**
+	 * The magnitude of the vector
+	 */
+	private Text magVal;
+	
+	/**
+	 * The direction heading
+	 */
+	private Text dirText;
+	
+	/**
+	 * The direction of the vector
+	 */
+	private Text dirVal;
+	
+	/**
+	 * Creates an empty row
+	 */
+	public SelectedVectorCell()
+	{
+		//Magnitude
+		mag = new GridPane();
+		mag.setGridLinesVisible(true);
+		
+		magText = new Text();
+		magText.setFont(Font.font("Arial", FontWeight.SEMI_BOLD, 14));
+		
+		magVal = new Text();
+		magVal.setFont(Font.font("Arial", FontWeight.NORMAL, 14));
+		
+		mag.add(magText, 0, 0);
+		mag.add(magVal, 1, 0);
+		
+		//Direction
+		dir = new GridPane();
+		dir.setGridLinesVisible(true);
+		
+		dirText = new Text();
+		dirText.setFont(Font.font("Arial", FontWeight.SEMI_BOLD, 14));
+		
+		dirVal = new Text();
+		dirVal.setFont(Font.font("Arial", FontWeight.NORMAL, 14));
+		
+		dir.add(dirText, 0, 0);
+		dir.add(dirVal, 1, 0);
+		
+		info = new VBox(mag, dir);
+	}
+	
+	@Override
+	/**
+	 * Fills the row in with the given vector, or clears it if the row is empty
+	 */
+	protected void updateItem(Vector vector, boolean empty)
+	{
+		super.updateItem(vector, empty);
+		
+		if (empty || vector == null)
+		{
+			setGraphic(null);
+			return;
+		}
+		
+		double[] direction = vector.getDirection();
+		
+		magText.setText("Vector " + vector.getID() + " Magnitude");
+		magVal.setText("" + vector.getMagnitude());
+		
+		dirText.setText("Vector " + vector.getID() + " Direction");
+		dirVal.setText("x-direction: " + direction[0] + "\ny-direction" + direction[1] + "\nz-direction" + direction[2]);
+		
+		Background background = new Background(new BackgroundFill[] {new BackgroundFill(vector.getColor(), null, null)});
+		mag.setBackground(background);
+		dir.setBackground(background);
+		
+		setGraphic(info);
+	}
+}
@@ -0,0 +1,219 @@
+package vectorVisualizer.viewer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import vectorVisualizer.vectors.Vector;
+import vectorVisualizer.vectors.VectorStore;
+
+/**
+ * The vectors the user has selected. Membership is a hash lookup, and the order they were selected in is kept since the math uses the first ones.
+ * Anything showing the selection listens for changes and is told exactly which vectors were added and removed, once per change however many vectors it covered
+ * @author Robert "Drew" Weimer
+ */
+public class SelectionModel
+{
+	/**
+	 * Told whenever the selection changes
+	 */
+	public interface Listener
+	{
+		/**
+		 * Called after the selection has changed
+		 * @param added The vectors that were selected, in the order they were selected
+		 * @param removed The vectors that were deselected
+		 */
+		void selectionChanged(List<Vector> added, List<Vector> removed);
+	}
+	
+	/**
+	 * The selected vectors, in the order they were selected
+	 */
+	private LinkedHashSet<Vector> selected = new LinkedHashSet<Vector>();
+	
+	/**
+	 * Everything listening for changes
+	 */
+	private ArrayList<Listener> listeners = new ArrayList<Listener>();
+	
+	/**
+	 * @param listener Told whenever the selection changes
+	 */
+	public void addListener(Listener listener)
+	{
+		listeners.add(listener);
+	}
+	
+	/**
+	 * @param listener No longer told about changes
+	 */
+	public void removeListener(Listener listener)
+	{
+		listeners.remove(listener);
+	}
+	
+	/**
+	 * Tells every listener about a change, if anything actually changed
+	 */
+	private void fire(List<Vector> added, List<Vector> removed)
+	{
+		if (added.isEmpty() && removed.isEmpty())
+			return;
+		
+		for (Listener listener : listeners)
+			listener.selectionChanged(added, removed);
+	}
+	
+	/**
+	 * Selects a vector
+	 * @param v The vector to select
+	 */
+	public void select(Vector v)
+	{
+		if (selected.add(v))
+			fire(Collections.singletonList(v), Collections.<Vector>emptyList());
+	}
+	
+	/**
+	 * Selects many vectors as one change
+	 * @param vectors The vectors to select
+	 */
+	public void selectAll(Collection<Vector> vectors)
+	{
+		ArrayList<Vector> added = new ArrayList<Vector>();
+		
+		for (Vector v : vectors)
+		{
+			if (selected.add(v))
+				added.add(v);
+		}
+		
+		fire(added, Collections.<Vector>emptyList());
+	}
+	
+	/**
+	 * Deselects a vector
+	 * @param v The vector to deselect
+	 */
+	public void deselect(Vector v)
+	{
+		if (selected.remove(v))
+			fire(Collections.<Vector>emptyList(), Collections.singletonList(v));
+	}
+	
+	/**
+	 * Deselects every vector as one change
+	 */
+	public void clear()
+	{
+		if (selected.isEmpty())
+			return;
+		
+		ArrayList<Vector> removed = new ArrayList<Vector>(selected);
+		selected.clear();
+		
+		fire(Collections.<Vector>emptyList(), removed);
+	}
+	
+	/**
+	 * Brings the selection up to date after a vector was removed from a store. The removed vector is deselected,
+	 * and the views of the vectors after it, which would now show the next vector along, are swapped for views of the same vectors at their new indices.
+	 * Reported as one change, with the swapped views both removed and added
+	 * @param store The store the vector was removed from
+	 * @param index The index it was removed from
+	 */
+	public void removedFromStore(VectorStore store, int index)
+	{
+		removedFromStore(store, new int[] {index});
+	}
+	
+	/**
+	 * Brings the selection up to date after many vectors were removed from a store, going through the selection once.
+	 * The removed vectors are deselected, and the views of the vectors after them are swapped for views of the same vectors at their new indices.
+	 * Reported as one change, with the swapped views both removed and added
+	 * @param store The store the vectors were removed from
+	 * @param sortedIndices The indices they were removed from, smallest first and with no repeats, as they were before any was removed
+	 */
+	public void removedFromStore(VectorStore store, int[] sortedIndices)
+	{
+		if (sortedIndices.length == 0)
+			return;
+		
+		ArrayList<Vector> added = new ArrayList<Vector>();
+		ArrayList<Vector> removed = new ArrayList<Vector>();
+		LinkedHashSet<Vector> kept = new LinkedHashSet<Vector>();
+		
+		for (Vector v : selected)
+		{
+			if (v.getStore() != store || v.getIndex() < sortedIndices[0])
+			{
+				kept.add(v);
+				continue;
+			}
+			
+			removed.add(v);
+			
+			//A kept vector moves down by the number removed before it, which is where it would be inserted into the removed indices
+			int found = Arrays.binarySearch(sortedIndices, v.getIndex());
+			
+			if (found < 0)
+			{
+				Vector moved = store.get(v.getIndex() + found + 1);
+				
+				kept.add(moved);
+				added.add(moved);
+			}
+		}
+		
+		selected = kept;
+		
+		fire(added, removed);
+	}
+	
+	/**
+	 * @param v The vector to check
+	 * @return True if the vector is selected
+	 */
+	public boolean isSelected(Vector v)
+	{
+		return selected.contains(v);
+	}
+	
+	/**
+	 * @return The number of selected vectors
+	 */
+	public int size()
+	{
+		return selected.size();
+	}
+	
+	/**
+	 * @param n Which selected vector to get, in the order they were selected
+	 * @return The vector
+	 */
+	public Vector get(int n)
+	{
+		if (n < 0 || n >= selected.size())
+			throw new IndexOutOfBoundsException("Index: " + n + ", Size: " + selected.size());
+		
+		Iterator<Vector> it = selected.iterator();
+		
+		for (int i = 0; i < n; i++)
+			it.next();
+		
+		return it.next();
+	}
+	
+	/**
+	 * @return A copy of the selected vectors, in the order they were selected
+	 */
+	public ArrayList<Vector> toList()
+	{
+		return new ArrayList<Vector>(selected);
+	}
+}
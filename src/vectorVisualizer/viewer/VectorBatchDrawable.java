@@ -0,0 +1,292 @@
+package vectorVisualizer.viewer;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Random;
+
+import org.jzy3d.maths.BoundingBox3d;
+import org.jzy3d.plot3d.primitives.AbstractDrawable;
+import org.jzy3d.plot3d.rendering.view.Camera;
+import org.jzy3d.plot3d.transform.Transform;
+
+import com.jogamp.opengl.GL;
+import com.jogamp.opengl.GL2;
+import com.jogamp.opengl.glu.GLU;
+
+import vectorVisualizer.vectors.VectorStore;
+
+/**
+ * Draws every vector of a store as one batch of line segments, instead of one line object per vector.
+ * The segments are packed into a single vertex array in a shuffled order, so drawing only the first part of it gives an even sample of the whole set.
+ * That is how the level of detail works: when the vectors only cover a small part of the screen, or the detail has been turned down, fewer of them are drawn
+ * @author Robert "Drew" Weimer
+ */
+public class VectorBatchDrawable extends AbstractDrawable
+{
+	/**
+	 * The most segments drawn in one frame at full detail
+	 */
+	public static final int DEFAULT_MAX_SEGMENTS = 1 << 20;
+	
+	/**
+	 * The fewest segments drawn however far out we are zoomed, so the shape of the set can still be seen
+	 */
+	private static final int MIN_SEGMENTS = 1 << 14;
+	
+	/**
+	 * The shuffle always uses the same seed so the sample doesn't flicker between rebuilds
+	 */
+	private static final long SHUFFLE_SEED = 0x5EEDL;
+	
+	/**
+	 * The vectors to draw
+	 */
+	private VectorStore store;
+	
+	/**
+	 * The start and end point of every segment, 6 floats per vector
+	 */
+	private FloatBuffer vertices;
+	
+	/**
+	 * The colour of every vertex as 4 bytes, 8 bytes per vector
+	 */
+	private ByteBuffer colors;
+	
+	/**
+	 * The order the vectors are packed in
+	 */
+	private int[] order = new int[0];
+	
+	/**
+	 * The number of vectors packed into the buffers
+	 */
+	private int count;
+	
+	/**
+	 * The most segments drawn in one frame
+	 */
+	private int maxSegments = DEFAULT_MAX_SEGMENTS;
+	
+	/**
+	 * How much of the budget to use, between 0 and 1. Turned down while the user is moving the camera
+	 */
+	private float detail = 1f;
+	
+	/**
+	 * The width of the lines in pixels
+	 */
+	private float lineWidth = 1f;
+	
+	/**
+	 * Creates a drawable for the vectors of a store. Call {@link #update()} after the store changes
+	 * @param store The vectors to draw
+	 */
+	public VectorBatchDrawable(VectorStore store)
+	{
+		this.store = store;
+		bbox = new BoundingBox3d();
+	}
+	
+	/**
+	 * Repacks the vectors of the store into the vertex arrays and works out their bounds.
+	 * This reads the store, so it has to be called on the thread that changes it
+	 */
+	public void update()
+	{
+		count = store.size();
+		
+		if (vertices == null || vertices.capacity() < count * 6)
+		{
+			//Grow by half again so adding a few vectors at a time doesn't reallocate every time
+			int capacity = Math.max(count, 1) + (count >> 1);
+			
+			vertices = ByteBuffer.allocateDirect(capacity * 6 * 4).order(ByteOrder.nativeOrder()).asFloatBuffer();
+			colors = ByteBuffer.allocateDirect(capacity * 8).order(ByteOrder.nativeOrder());
+		}
+		
+		shuffle();
+		
+		double[] ox = store.originXArray();
+		double[] oy = store.originYArray();
+		double[] oz = store.originZArray();
+		double[] x = store.xArray();
+		double[] y = store.yArray();
+		double[] z = store.zArray();
+		
+		vertices.clear();
+		colors.clear();
+		bbox.reset();
+		
+		for (int n = 0; n < count; n++)
+		{
+			int i = order[n];
+			
+			float sx = (float) ox[i];
+			float sy = (float) oy[i];
+			float sz = (float) oz[i];
+			float ex = (float) (ox[i] + x[i]);
+			float ey = (float) (oy[i] + y[i]);
+			float ez = (float) (oz[i] + z[i]);
+			
+			vertices.put(sx).put(sy).put(sz).put(ex).put(ey).put(ez);
+			
+			bbox.add(sx, sy, sz);
+			bbox.add(ex, ey, ez);
+			
+			//0xRRGGBBAA written high byte first is r, g, b, a in memory, which is what GL_UNSIGNED_BYTE colours expect
+			int rgba = store.getColor(i);
+			
+			for (int v = 0; v < 2; v++)
+				colors.put((byte) (rgba >>> 24)).put((byte) (rgba >>> 16)).put((byte) (rgba >>> 8)).put((byte) rgba);
+		}
+		
+		vertices.flip();
+		colors.flip();
+	}
+	
+	/**
+	 * Works out a new order to pack the vectors in, a shuffle so any prefix of it is an even sample
+	 */
+	private void shuffle()
+	{
+		if (order.length < count)
+			order = new int[count + (count >> 1)];
+		
+		for (int i = 0; i < count; i++)
+			order[i] = i;
+		
+		Random random = new Random(SHUFFLE_SEED);
+		
+		for (int i = count - 1; i > 0; i--)
+		{
+			int j = random.nextInt(i + 1);
+			
+			int swap = order[i];
+			order[i] = order[j];
+			order[j] = swap;
+		}
+	}
+	
+	/**
+	 * Works out how many segments to draw this frame.
+	 * The camera frames the whole view, so the part of the screen the vectors cover goes with the square of their radius over the view's radius
+	 * @param cam The camera the vectors are drawn with
+	 * @return The number of segments to draw
+	 */
+	private int segmentsToDraw(Camera cam)
+	{
+		float coverage = 1f;
+		float viewRadius = cam.getRenderingSphereRadius();
+		
+		if (viewRadius > 0)
+		{
+			float ratio = Math.min(1f, bbox.getRadius() / viewRadius);
+			coverage = ratio * ratio;
+		}
+		
+		int budget = Math.max(MIN_SEGMENTS, (int) (maxSegments * coverage * detail));
+		
+		return Math.min(count, budget);
+	}
+	
+	@Override
+	public void draw(GL gl, GLU glu, Camera cam)
+	{
+		doTransform(gl, glu, cam);
+		
+		int segments = segmentsToDraw(cam);
+		
+		if (segments == 0)
+			return;
+		
+		GL2 gl2 = gl.getGL2();
+		
+		gl2.glLineWidth(lineWidth);
+		
+		gl2.glEnableClientState(GL2.GL_VERTEX_ARRAY);
+		gl2.glEnableClientState(GL2.GL_COLOR_ARRAY);
+		
+		gl2.glVertexPointer(3, GL.GL_FLOAT, 0, vertices);
+		gl2.glColorPointer(4, GL.GL_UNSIGNED_BYTE, 0, colors);
+		
+		gl2.glDrawArrays(GL.GL_LINES, 0, segments * 2);
+		
+		gl2.glDisableClientState(GL2.GL_COLOR_ARRAY);
+		gl2.glDisableClientState(GL2.GL_VERTEX_ARRAY);
+	}
+	
+	/**
+	 * The vectors are read from the store, so their coordinates are left alone. Change the store and call {@link #update()} instead
+	 */
+	@Override
+	public void applyGeometryTransform(Transform transform)
+	{
+	}
+	
+	/**
+	 * The bounds are worked out by {@link #update()} while the vectors are packed
+	 */
+	@Override
+	public void updateBounds()
+	{
+	}
+	
+	/**
+	 * Switches to drawing the vectors of another store. Call {@link #update()} afterwards to pack them
+	 * @param store The vectors to draw
+	 */
+	public void setStore(VectorStore store)
+	{
+		this.store = store;
+	}
+	
+	/**
+	 * @return The number of vectors packed into the buffers
+	 */
+	public int getCount()
+	{
+		return count;
+	}
+	
+	/**
+	 * @param maxSegments The most segments to draw in one frame
+	 */
+	public void setMaxSegments(int maxSegments)
+	{
+		this.maxSegments = Math.max(1, maxSegments);
+	}
+	
+	/**
+	 * @return The most segments drawn in one frame
+	 */
+	public int getMaxSegments()
+	{
+		return maxSegments;
+	}
+	
+	/**
+	 * @param detail How much of the segment budget to use, between 0 and 1
+	 */
+	public void setDetail(float detail)
+	{
+		this.detail = Math.max(0f, Math.min(1f, detail));
+	}
+	
+	/**
+	 * @return How much of the segment budget is used, between 0 and 1
+	 */
+	public float getDetail()
+	{
+		return detail;
+	}
+	
+	/**
+	 * @param lineWidth The width of the lines in pixels
+	 */
+	public void setLineWidth(float lineWidth)
+	{
+		this.lineWidth = lineWidth;
+	}
+}
@@ -0,0 +1,105 @@
+package vectorVisualizer.viewer;
+
+import javafx.event.ActionEvent;
+import javafx.event.EventHandler;
+import javafx.scene.control.CheckBox;
+import javafx.scene.control.ListCell;
+import javafx.scene.layout.Background;
+import javafx.scene.layout.BackgroundFill;
+import javafx.scene.layout.GridPane;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+import javafx.scene.text.Text;
+
+import vectorVisualizer.vectors.Vector;
+
+/**
+ * One row of the vector list. A ListView only creates enough of these to fill the screen and reuses them as it scrolls, so the nodes are built once here and only filled in by {@link #updateItem(Vector, boolean)}
+ * @author Robert "Drew" Weimer
+ */
+public class VectorCell extends ListCell<Vector>
+{
+	/**
+	 * The menu the list is in
+	 */
+	private Menu menu;
+	
+	/**
+	 * The grid holding the name and checkbox
+	 */
+	private GridPane info;
+	
+	/**
+	 * The name and ID of the vector
+	 */
+	private Text name;
+	
+	/**
+	 * The checkbox to select the vector when viewing its info or doing math
+	 */
+	private CheckBox select;
+	
+	/**
+	 * Creates an empty row
+	 * @param menu The menu the list is in
+	 */
+	public VectorCell(Menu menu)
+	{
+		this.menu = menu;
+		
+		info = new GridPane();
+		info.setGridLinesVisible(true);
+		
+		name = new Text();
+		name.setFont(Font.font("Arial", FontWeight.SEMI_BOLD, 20));
+		
+		select = new CheckBox();
+		
+		//When we select the vector, make it selected. Simple as that.
+		select.setOnAction(new EventHandler<ActionEvent>()
+		{
+			@Override
+			/**
+			 * Sets the vector as selected depending on the state of the checkbox
+			 */
+			public void handle(ActionEvent arg0)
+			{
+				Vector vector = getItem();
+				
+				if (vector == null)
+					return;
+				
+				if (select.isSelected())
+					menu.addSelectedVector(vector);
+				else
+					menu.removeSelectedVector(vector);
+			}
+		});
+		
+		info.add(name, 0, 0);
+		info.add(select, 1, 0);
+	}
+	
+	@Override
+	/**
+	 * Fills the row in with the given vector, or clears it if the row is empty
+	 */
+	protected void updateItem(Vector vector, boolean empty)
+	{
+		super.updateItem(vector, empty);
+		
+		if (empty || vector == null)
+		{
+			setGraphic(null);
+			return;
+		}
+		
+		name.setText("Vector" + vector.getID());
+		select.setSelected(menu.isSelected(vector));
+		
+		//Make the background of our vector object the same colour as it is on the graph.
+		info.setBackground(new Background(new BackgroundFill[] {new BackgroundFill(vector.getColor(), null, null)}));
+		
+		setGraphic(info);
+	}
+}
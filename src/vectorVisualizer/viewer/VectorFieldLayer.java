@@ -0,0 +1,193 @@
+package vectorVisualizer.viewer;
+
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import javafx.application.Platform;
+import vectorVisualizer.math.FieldSampler;
+import vectorVisualizer.math.expr.Expression;
+import vectorVisualizer.vectors.VectorStore;
+
+/**
+ * Shows a vector field on a graph as a grid of arrows, sampling it on the graph's geometry worker so the JavaFX thread never waits on it.
+ * Only one sampling runs at a time. Asking again while one runs, such as while a density slider is dragged, replaces whatever was waiting,
+ * so the field catches up to the latest grid without working through every one in between.
+ * The arrows are sampled into one of two stores while the other is on screen, then the two are swapped
+ * @author Robert "Drew" Weimer
+ */
+public class VectorFieldLayer
+{
+	/**
+	 * A field over a grid waiting to be sampled
+	 */
+	private static class Request
+	{
+		Expression field;
+		double[] min, max;
+		int[] counts;
+		
+		Request(Expression field, double[] min, double[] max, int[] counts)
+		{
+			this.field = field;
+			this.min = min;
+			this.max = max;
+			this.counts = counts;
+		}
+	}
+	
+	/**
+	 * The graph the field is shown on
+	 */
+	private Graph graph;
+	
+	/**
+	 * Told how each sampling went, on the JavaFX thread
+	 */
+	private Consumer<String> status;
+	
+	/**
+	 * Samples the field, keeping the last grid's samples for the next. Only used by the one sampling running
+	 */
+	private FieldSampler sampler;
+	
+	/**
+	 * The arrows on screen and the arrows being sampled
+	 */
+	private VectorStore[] stores = { new VectorStore(), new VectorStore() };
+	
+	/**
+	 * The store the next sampling fills
+	 */
+	private int next;
+	
+	/**
+	 * True while a sampling runs
+	 */
+	private boolean running;
+	
+	/**
+	 * The latest field and grid asked for since the running sampling started, or null if there isn't one
+	 */
+	private Request pending;
+	
+	/**
+	 * Counts up each time the field is cleared, so a sampling which was running when it was cleared isn't shown
+	 */
+	private int generation;
+	
+	/**
+	 * @param graph The graph to show the field on
+	 * @param status Told how each sampling went, or what went wrong, on the JavaFX thread
+	 */
+	public VectorFieldLayer(Graph graph, Consumer<String> status)
+	{
+		this.graph = graph;
+		this.status = status;
+	}
+	
+	/**
+	 * Samples a field over a grid and shows it, in place of any field shown before. Has to be called on the JavaFX thread
+	 * @param field The field, a vector expression of p
+	 * @param min The lowest x, y, and z of the grid
+	 * @param max The highest x, y, and z of the grid
+	 * @param counts The number of points along x, y, and z
+	 * @throws IllegalArgumentException If the expression isn't a field
+	 */
+	public void show(Expression field, double[] min, double[] max, int[] counts)
+	{
+		FieldSampler.check(field);
+		
+		pending = new Request(field, min.clone(), max.clone(), counts.clone());
+		
+		if (!running)
+			sampleNext();
+	}
+	
+	/**
+	 * Takes the field off the graph. A sampling which is running is left to finish but not shown
+	 */
+	public void clear()
+	{
+		generation++;
+		pending = null;
+		graph.clearField();
+	}
+	
+	/**
+	 * Starts sampling the request that is waiting on the geometry worker
+	 */
+	private void sampleNext()
+	{
+		final Request request = pending;
+		final VectorStore target = stores[next];
+		final int started = generation;
+		
+		pending = null;
+		running = true;
+		
+		graph.getGeometryWorker().build(new Callable<String>()
+		{
+			@Override
+			public String call()
+			{
+				long start = System.nanoTime();
+				
+				//A new field can't reuse anything, the same field reuses whatever of the last grid is on the new one
+				if (sampler == null)
+					sampler = new FieldSampler(request.field);
+				else if (!sampler.getField().toString().equals(request.field.toString()))
+					sampler.setField(request.field);
+				
+				sampler.sample(request.min, request.max, request.counts, target);
+				
+				return "Sampled " + target.size() + " arrows (" + sampler.getEvaluated() + " evaluated, " + sampler.getReused() + " reused) in "
+						+ (System.nanoTime() - start) / 1000000 + " ms";
+			}
+		}, new Consumer<String>()
+		{
+			@Override
+			public void accept(String report)
+			{
+				if (started == generation)
+				{
+					graph.showField(target);
+					next ^= 1;
+					status.accept(report);
+				}
+				
+				finished();
+			}
+		}).exceptionally(new Function<Throwable, Void>()
+		{
+			@Override
+			public Void apply(Throwable e)
+			{
+				final Throwable cause = e.getCause() == null ? e : e.getCause();
+				
+				Platform.runLater(new Runnable()
+				{
+					@Override
+					public void run()
+					{
+						status.accept("ERROR: " + cause.getMessage());
+						finished();
+					}
+				});
+				
+				return null;
+			}
+		});
+	}
+	
+	/**
+	 * Starts on whatever was asked for while the last sampling ran
+	 */
+	private void finished()
+	{
+		running = false;
+		
+		if (pending != null)
+			sampleNext();
+	}
+}
@@ -0,0 +1,99 @@
+package vectorVisualizer.viewer;
+
+import java.io.File;
+
+import javafx.application.Platform;
+import javafx.concurrent.Task;
+
+import vectorVisualizer.io.CsvVectorReader;
+import vectorVisualizer.vectors.VectorStore;
+
+/**
+ * Reads a CSV file of vectors and builds their lines on a background thread, then hands them to the graph a chunk at a time.
+ * Every chunk is read into the same store, since {@link Graph#prepareVectors} copies it before it is handed over
+ * @author Robert "Drew" Weimer
+ */
+public class VectorImportTask extends Task<Integer>
+{
+	/**
+	 * The number of vectors read before they are handed to the graph
+	 */
+	private static final int CHUNK_SIZE = 8192;
+	
+	/**
+	 * The file to import
+	 */
+	private File file;
+	
+	/**
+	 * The graph to add the vectors to
+	 */
+	private Graph graph;
+	
+	/**
+	 * Run on the JavaFX thread after each chunk is added to the graph, may be null
+	 */
+	private Runnable onChunk;
+	
+	/**
+	 * Creates a task to import the given file into the graph
+	 * @param file The CSV file to import
+	 * @param graph The graph to add the vectors to
+	 * @param onChunk Run on the JavaFX thread after each chunk is added, may be null
+	 */
+	public VectorImportTask(File file, Graph graph, Runnable onChunk)
+	{
+		this.file = file;
+		this.graph = graph;
+		this.onChunk = onChunk;
+	}
+	
+	@Override
+	/**
+	 * Reads the file chunk by chunk, handing each one to the JavaFX thread once its lines are built
+	 * @return The number of vectors imported
+	 */
+	protected Integer call() throws Exception
+	{
+		long length = Math.max(file.length(), 1);
+		
+		VectorStore chunk = new VectorStore(CHUNK_SIZE);
+		int imported = 0;
+		
+		try (CsvVectorReader reader = new CsvVectorReader(file))
+		{
+			while (!isCancelled())
+			{
+				chunk.clear();
+				
+				if (reader.read(chunk, CHUNK_SIZE) == 0)
+					break;
+				
+				imported += chunk.size();
+				
+				//Build the lines here so the JavaFX thread only has to put them in the scene
+				Graph.PreparedVectors prepared = graph.prepareVectors(chunk);
+				
+				Platform.runLater(new Runnable()
+				{
+					@Override
+					public void run()
+					{
+						graph.publishVectors(prepared);
+						
+						if (onChunk != null)
+							onChunk.run();
+					}
+				});
+				
+				updateProgress(reader.getBytesRead(), length);
+				updateMessage("Imported " + imported + " vectors");
+			}
+		}
+		
+		//The task is only marked as done on the JavaFX thread after the chunks queued ahead of it, so they are all on the graph by then
+		updateProgress(length, length);
+		
+		return imported;
+	}
+}
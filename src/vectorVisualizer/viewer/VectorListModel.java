@@ -0,0 +1,119 @@
+package vectorVisualizer.viewer;
+
+import java.util.Collections;
+
+import javafx.collections.ObservableListBase;
+
+import vectorVisualizer.vectors.Vector;
+import vectorVisualizer.vectors.VectorStore;
+
+/**
+ * An observable list over a vector store, for showing the vectors in a ListView.
+ * Nothing is copied, {@link #get(int)} hands out a view of the vector when a row is actually shown
+ * @author Robert "Drew" Weimer
+ */
+public class VectorListModel extends ObservableListBase<Vector>
+{
+	/**
+	 * The vectors shown by the list
+	 */
+	private VectorStore vectors;
+	
+	/**
+	 * The number of vectors the list has been told about
+	 */
+	private int size;
+	
+	/**
+	 * Creates a list showing the vectors in the given store
+	 * @param vectors The store to show
+	 */
+	public VectorListModel(VectorStore vectors)
+	{
+		this.vectors = vectors;
+		size = vectors.size();
+	}
+	
+	@Override
+	public Vector get(int index)
+	{
+		if (index < 0 || index >= size)
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		
+		return vectors.get(index);
+	}
+	
+	@Override
+	public int size()
+	{
+		return size;
+	}
+	
+	/**
+	 * Tells anything watching the list about vectors added to or removed from the end of the store since the last refresh.
+	 * Only the rows that changed are reported, so a ListView only has to lay out the ones on screen
+	 */
+	public void refresh()
+	{
+		int newSize = vectors.size();
+		
+		if (newSize == size)
+			return;
+		
+		beginChange();
+		
+		if (newSize > size)
+			nextAdd(size, newSize);
+		else
+			nextRemove(newSize, Collections.<Vector>nCopies(size - newSize, null));
+		
+		size = newSize;
+		
+		endChange();
+	}
+	
+	/**
+	 * Tells anything watching the list that the vector at the given index was removed from the store
+	 * @param index The index the vector was removed from
+	 */
+	public void removed(int index)
+	{
+		beginChange();
+		
+		size--;
+		nextRemove(index, (Vector) null);
+		
+		endChange();
+	}
+	
+	/**
+	 * Tells anything watching the list that many vectors were removed from the store, as one change
+	 * @param sortedIndices The indices the vectors were removed from, smallest first and with no repeats, as they were before any was removed
+	 */
+	public void removed(int[] sortedIndices)
+	{
+		if (sortedIndices.length == 0)
+			return;
+		
+		beginChange();
+		
+		//Each removal is reported where the row is once the ones before it have gone, so the changes are built up in order
+		for (int r = 0; r < sortedIndices.length; r++)
+			nextRemove(sortedIndices[r] - r, (Vector) null);
+		
+		size -= sortedIndices.length;
+		
+		endChange();
+	}
+	
+	/**
+	 * Tells anything watching the list that the vector at the given index was changed
+	 * @param index The index of the vector
+	 */
+	public void updated(int index)
+	{
+		beginChange();
+		nextUpdate(index);
+		endChange();
+	}
+}